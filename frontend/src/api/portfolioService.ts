@@ -1,47 +1,36 @@
-import { portfolioClient } from "./client";
+import { API_BASE_URLS, portfolioClient } from "./client";
 
 export type StockHolding = {
-  id: number;
   externalId: string;
-  userId: string;
   symbol: string;
   exchange: string;
   quantity: number;
   purchasePrice: number;
   purchaseDate: string;
   createdAt: string;
-  updatedAt: string;
 };
 
 export type MutualFundHolding = {
-  id: number;
   externalId: string;
-  userId: string;
   schemeCode: string;
   quantity: number;
   purchasePrice: number;
   purchaseDate: string;
   createdAt: string;
-  updatedAt: string;
 };
 
 export type CryptoHolding = {
-  id: number;
   externalId: string;
-  userId: string;
   coinId: string;
   symbol: string;
   quantity: number;
   purchasePrice: number;
   purchaseDate: string;
   createdAt: string;
-  updatedAt: string;
 };
 
 export type ManualHolding = {
-  id: number;
   externalId: string;
-  userId: string;
   assetName: string;
   assetType: string;
   investedValue: number;
@@ -49,34 +38,49 @@ export type ManualHolding = {
   purchaseDate: string;
   maturityDate: string | null;
   createdAt: string;
-  updatedAt: string;
 };
 
 export type PortfolioHistory = {
-  id: number;
-  userId: string;
   snapshotDate: string;
   totalValue: number;
+  priceStale: boolean | null;
+};
+
+/** One keyset page; pass nextCursor back as `cursor` until it is null. */
+export type CursorPage<T> = {
+  items: T[];
+  nextCursor: string | null;
+};
+
+const PAGE_SIZE = 500;
+
+const getAllPages = async <T>(url: string, params: Record<string, string> = {}): Promise<T[]> => {
+  const items: T[] = [];
+  let cursor: string | null = null;
+  do {
+    const response: { data: CursorPage<T> } = await portfolioClient.get(url, {
+      params: { ...params, limit: PAGE_SIZE, ...(cursor ? { cursor } : {}) },
+    });
+    items.push(...response.data.items);
+    cursor = response.data.nextCursor;
+  } while (cursor);
+  return items;
 };
 
 export const getStockHoldings = async (): Promise<StockHolding[]> => {
-  const response = await portfolioClient.get("/portfolio/v1/stocks");
-  return response.data;
+  return getAllPages<StockHolding>("/portfolio/v1/stocks");
 };
 
 export const getMutualFundHoldings = async (): Promise<MutualFundHolding[]> => {
-  const response = await portfolioClient.get("/portfolio/v1/mutual-funds");
-  return response.data;
+  return getAllPages<MutualFundHolding>("/portfolio/v1/mutual-funds");
 };
 
 export const getCryptoHoldings = async (): Promise<CryptoHolding[]> => {
-  const response = await portfolioClient.get("/portfolio/v1/cryptos");
-  return response.data;
+  return getAllPages<CryptoHolding>("/portfolio/v1/cryptos");
 };
 
 export const getManualHoldings = async (): Promise<ManualHolding[]> => {
-  const response = await portfolioClient.get("/portfolio/v1/manuals");
-  return response.data;
+  return getAllPages<ManualHolding>("/portfolio/v1/manuals");
 };
 
 export const getAllHoldings = async () => {
@@ -90,13 +94,186 @@ export const getAllHoldings = async () => {
   return { stocks, mutualFunds, cryptos, manuals };
 };
 
+export type AggregatedAsset = {
+  externalId: string;
+  type: string;
+  name: string;
+  quantity: number | null;
+  totalInvested: number;
+  currentPrice: number | null;
+  currentValue: number;
+  pnl: number;
+};
+
+export type PortfolioDashboard = {
+  assets: AggregatedAsset[];
+  totalInvested: number;
+  totalCurrentValue: number;
+  totalPnl: number;
+};
+
+export const getPortfolioDashboard = async (): Promise<PortfolioDashboard> => {
+  const response = await portfolioClient.get("/portfolio/v1/dashboard");
+  return response.data;
+};
+
 export const getPortfolioHistory = async (
   period: string = "1M"
 ): Promise<PortfolioHistory[]> => {
-  const response = await portfolioClient.get("/portfolio/v1/history", {
-    params: { period },
+  return getAllPages<PortfolioHistory>("/portfolio/v1/history", { period });
+};
+
+/** Per-type value and invested amount; null on snapshots recorded before breakdowns existed. */
+export type PortfolioBreakdown = {
+  snapshotDate: string;
+  totalValue: number;
+  stockValue: number | null;
+  stockInvested: number | null;
+  mutualFundValue: number | null;
+  mutualFundInvested: number | null;
+  cryptoValue: number | null;
+  cryptoInvested: number | null;
+  manualValue: number | null;
+  manualInvested: number | null;
+};
+
+export const getPortfolioBreakdown = async (
+  period: string = "1M"
+): Promise<PortfolioBreakdown[]> => {
+  return getAllPages<PortfolioBreakdown>("/portfolio/v1/history/breakdown", { period });
+};
+
+/** Returns as fractions (0.12 is 12%); null where a figure is undefined. */
+export type PortfolioReturns = {
+  asOf: string | null;
+  inceptionDate: string | null;
+  timeWeighted1M: number | null;
+  timeWeighted6M: number | null;
+  timeWeighted1Y: number | null;
+  timeWeightedAll: number | null;
+  moneyWeighted1M: number | null;
+  moneyWeighted6M: number | null;
+  moneyWeighted1Y: number | null;
+  moneyWeightedAll: number | null;
+  xirr: number | null;
+  xirrAsOf: string | null;
+};
+
+/** Resolves to null until the first snapshot with returns has been recorded for the user. */
+export const getPortfolioReturns = async (): Promise<PortfolioReturns | null> => {
+  const response = await portfolioClient.get("/portfolio/v1/returns", {
+    validateStatus: (status) => status === 200 || status === 404,
   });
-  return response.data;
+  return response.status === 404 ? null : response.data;
+};
+
+export type ProjectionBand = {
+  year: number;
+  p5: number;
+  p25: number;
+  p50: number;
+  p75: number;
+  p95: number;
+};
+
+export type PortfolioProjection = {
+  basedOn: string;
+  startValue: number;
+  historyDays: number;
+  paths: number;
+  bands: ProjectionBand[];
+};
+
+/** Path counts the projection endpoint accepts. */
+export type ProjectionPaths = 5000 | 20000 | 50000;
+
+/** Resolves to null while the user has too little history to project from. */
+export const getPortfolioProjection = async (
+  years: number = 10,
+  paths: ProjectionPaths = 20000
+): Promise<PortfolioProjection | null> => {
+  const response = await portfolioClient.get("/portfolio/v1/projection", {
+    params: { years, paths },
+    validateStatus: (status) => status === 200 || status === 404,
+  });
+  return response.status === 404 ? null : response.data;
+};
+
+export type IntradayValue = {
+  capturedAt: string;
+  totalValue: number;
+  priceStale: boolean | null;
+};
+
+export const getIntradayHistory = async (hours: number = 24): Promise<IntradayValue[]> => {
+  return getAllPages<IntradayValue>("/portfolio/v1/history/intraday", { hours: String(hours) });
+};
+
+export type LiveAssetValue = {
+  externalId: string;
+  type: string;
+  name: string;
+  currentPrice: number | null;
+  currentValue: number;
+  pnl: number;
+};
+
+/** A full update replaces every asset; otherwise only assets whose value moved are listed. */
+export type LiveValue = {
+  full: boolean;
+  totalValue: number;
+  totalInvested: number;
+  change: number;
+  assets: LiveAssetValue[];
+  asOf: string;
+};
+
+/**
+ * Opens the server-sent live value stream. EventSource cannot send the X-User-Id and
+ * Authorization headers, so the stream is read through fetch. Returns a function that closes it.
+ */
+export const subscribeLiveValue = (
+  onValue: (value: LiveValue) => void,
+  onError: (error: unknown) => void
+): (() => void) => {
+  const controller = new AbortController();
+  const headers: Record<string, string> = { Accept: "text/event-stream" };
+  Object.entries(portfolioClient.defaults.headers.common).forEach(([name, value]) => {
+    if (typeof value === "string") headers[name] = value;
+  });
+
+  (async () => {
+    const response = await fetch(`${API_BASE_URLS.portfolio}/portfolio/v1/live`, {
+      headers,
+      signal: controller.signal,
+    });
+    if (!response.ok || !response.body) {
+      throw new Error(`Live value stream failed with status ${response.status}`);
+    }
+    const reader = response.body.pipeThrough(new TextDecoderStream()).getReader();
+    let buffer = "";
+    for (;;) {
+      const { value, done } = await reader.read();
+      if (done) return;
+      buffer += value;
+      // Events are separated by a blank line; comment lines (heartbeats) carry no data
+      let boundary;
+      while ((boundary = buffer.indexOf("\n\n")) >= 0) {
+        const data = buffer
+          .slice(0, boundary)
+          .split("\n")
+          .filter((line) => line.startsWith("data:"))
+          .map((line) => line.slice(5))
+          .join("\n");
+        buffer = buffer.slice(boundary + 2);
+        if (data) onValue(JSON.parse(data));
+      }
+    }
+  })().catch((error) => {
+    if (!controller.signal.aborted) onError(error);
+  });
+
+  return () => controller.abort();
 };
 
 /* ------------------------------------------------------------------ */
@@ -167,6 +344,51 @@ export const addManualHolding = async (
   return response.data;
 };
 
+/* ------------------------------------------------------------------ */
+/*  POSITIONS — lots merged per instrument, with FIFO PnL             */
+/* ------------------------------------------------------------------ */
+
+/** Price, value and unrealized PnL are null for closed positions and when no price is known. */
+export type Position = {
+  externalId: string;
+  type: "STOCK" | "MUTUAL_FUND" | "CRYPTO";
+  instrumentId: string;
+  detail: string | null;
+  quantity: number;
+  costBasis: number;
+  averagePrice: number | null;
+  lotCount: number;
+  currentPrice: number | null;
+  currentValue: number | null;
+  unrealizedPnl: number | null;
+  realizedPnl: number;
+};
+
+export const getPositions = async (): Promise<Position[]> => {
+  const response = await portfolioClient.get("/portfolio/v1/positions");
+  return response.data;
+};
+
+export type SellRequestDto = {
+  type: Position["type"];
+  instrumentId: string;
+  quantity: number;
+  price: number;
+};
+
+export type SellResult = {
+  quantitySold: number;
+  costOfSold: number;
+  realizedPnl: number;
+  lotsClosed: number;
+};
+
+/** Sells oldest lots first; rejected with 400 when more than the held quantity is sold. */
+export const sellPosition = async (dto: SellRequestDto): Promise<SellResult> => {
+  const response = await portfolioClient.post("/portfolio/v1/positions/sell", dto);
+  return response.data;
+};
+
 /* ------------------------------------------------------------------ */
 /*  DELETE — remove holdings                                          */
 /* ------------------------------------------------------------------ */
@@ -186,3 +408,32 @@ export const deleteCryptoHolding = async (externalId: string): Promise<void> =>
 export const deleteManualHolding = async (externalId: string): Promise<void> => {
   await portfolioClient.delete(`/portfolio/v1/manual/${externalId}`);
 };
+
+export type BulkDeleteResult = {
+  requested: number;
+  deleted: number;
+};
+
+export const deleteHoldings = async (externalIds: string[]): Promise<BulkDeleteResult> => {
+  const response = await portfolioClient.post("/portfolio/v1/holdings/delete", { externalIds });
+  return response.data;
+};
+
+export type HoldingImportResult = {
+  rowsRead: number;
+  imported: number;
+  failed: number;
+  errors: { row: number; message: string }[];
+  errorsTruncated: boolean;
+  abortedReason: string | null;
+};
+
+/** Uploads a CSV (with header row) or JSON array holdings statement as the raw request body. */
+export const importHoldings = async (file: File): Promise<HoldingImportResult> => {
+  const contentType = file.name.toLowerCase().endsWith(".json") ? "application/json" : "text/csv";
+  const response = await portfolioClient.post("/portfolio/v1/holdings/import", file, {
+    headers: { "Content-Type": contentType },
+    validateStatus: (status) => status === 200 || status === 400,
+  });
+  return response.data;
+};
@@ -7,7 +7,7 @@ import type { CryptoHolding } from "../../api/portfolioService";
 import { getCryptoPrice } from "../../api/marketDataService";
 
 interface EnrichedCrypto {
-  id: number;
+  id: string;
   symbol: string;
   name: string;
   coinId: string;
@@ -33,10 +33,10 @@ const CryptoHoldingsTable: React.FC = () => {
               const price = await getCryptoPrice(h.coinId);
               const current = h.quantity * price.current_price;
               const ret = invested > 0 ? ((current - invested) / invested) * 100 : 0;
-              return { id: h.id, symbol: (h.symbol || h.coinId).toUpperCase(), name: price.name || h.coinId, coinId: h.coinId, quantity: h.quantity, ltp: price.current_price, currentValue: current, change24h: price.price_change_percentage_24h || 0, totalReturn: ret };
+              return { id: h.externalId, symbol: (h.symbol || h.coinId).toUpperCase(), name: price.name || h.coinId, coinId: h.coinId, quantity: h.quantity, ltp: price.current_price, currentValue: current, change24h: price.price_change_percentage_24h || 0, totalReturn: ret };
             } catch {
               const est = invested * 1.10;
-              return { id: h.id, symbol: (h.symbol || h.coinId).toUpperCase(), name: h.coinId, coinId: h.coinId, quantity: h.quantity, ltp: h.purchasePrice * 1.10, currentValue: est, change24h: 0, totalReturn: 10 };
+              return { id: h.externalId, symbol: (h.symbol || h.coinId).toUpperCase(), name: h.coinId, coinId: h.coinId, quantity: h.quantity, ltp: h.purchasePrice * 1.10, currentValue: est, change24h: 0, totalReturn: 10 };
             }
           })
         );
@@ -4,7 +4,7 @@ import type { MutualFundHolding } from "../../api/portfolioService";
 import { getMutualFundPrice } from "../../api/marketDataService";
 
 interface EnrichedFund {
-  id: number;
+  id: string;
   name: string;
   schemeCode: string;
   category: string;
@@ -30,10 +30,10 @@ export const FundHoldingsTable = () => {
               const price = await getMutualFundPrice(h.schemeCode);
               const current = h.quantity * price.nav;
               const ret = invested > 0 ? ((current - invested) / invested) * 100 : 0;
-              return { id: h.id, name: price.scheme_name || `Fund ${h.schemeCode}`, schemeCode: h.schemeCode, category: "Equity", nav: price.nav, units: h.quantity, investedAmount: invested, currentValue: current, xirr: Math.round(ret * 10) / 10 };
+              return { id: h.externalId, name: price.scheme_name || `Fund ${h.schemeCode}`, schemeCode: h.schemeCode, category: "Equity", nav: price.nav, units: h.quantity, investedAmount: invested, currentValue: current, xirr: Math.round(ret * 10) / 10 };
             } catch {
               const est = invested * 1.08;
-              return { id: h.id, name: `Fund ${h.schemeCode}`, schemeCode: h.schemeCode, category: "Equity", nav: h.purchasePrice * 1.08, units: h.quantity, investedAmount: invested, currentValue: est, xirr: 8 };
+              return { id: h.externalId, name: `Fund ${h.schemeCode}`, schemeCode: h.schemeCode, category: "Equity", nav: h.purchasePrice * 1.08, units: h.quantity, investedAmount: invested, currentValue: est, xirr: 8 };
             }
           })
         );
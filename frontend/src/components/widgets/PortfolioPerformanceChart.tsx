@@ -8,7 +8,7 @@ import {
   Tooltip, 
   ResponsiveContainer 
 } from "recharts";
-import { getPortfolioHistory } from "../../api/portfolioService";
+import { getIntradayHistory, getPortfolioHistory } from "../../api/portfolioService";
 import type { PortfolioHistory } from "../../api/portfolioService";
 
 const TimeRangeButton = ({ 
@@ -34,7 +34,7 @@ const TimeRangeButton = ({
 
 export const PortfolioPerformanceChart = () => {
   const [data, setData] = useState<PortfolioHistory[]>([]);
-  const [timeRange, setTimeRange] = useState<"1D" | "1W" | "1M" | "1Y" | "ALL">("1M");
+  const [timeRange, setTimeRange] = useState<"1D" | "1W" | "1M" | "1Y" | "5Y" | "ALL">("1M");
   const [loading, setLoading] = useState(false);
 
   useEffect(() => {
@@ -43,7 +43,13 @@ export const PortfolioPerformanceChart = () => {
       // Fetch portfolio history from real API; fall back to empty array
       let history: PortfolioHistory[] = [];
       try {
-        history = await getPortfolioHistory(timeRange);
+        history = timeRange === "1D"
+          ? (await getIntradayHistory()).map((point) => ({
+              snapshotDate: point.capturedAt,
+              totalValue: point.totalValue,
+              priceStale: point.priceStale,
+            }))
+          : await getPortfolioHistory(timeRange);
       } catch {
         // API may not have history data yet – generate simple placeholder
         const points = timeRange === "1Y" ? 12 : timeRange === "1M" ? 30 : timeRange === "1W" ? 7 : 24;
@@ -52,7 +58,7 @@ export const PortfolioPerformanceChart = () => {
           base += (Math.random() - 0.45) * 15000;
           if (base < 800000) base = 800000;
           const d = new Date(); d.setDate(d.getDate() - i);
-          history.push({ id: i, userId: "", snapshotDate: d.toISOString(), totalValue: Math.floor(base) });
+          history.push({ snapshotDate: d.toISOString(), totalValue: Math.floor(base), priceStale: null });
         }
       }
       setData(history);
@@ -93,7 +99,7 @@ export const PortfolioPerformanceChart = () => {
 
         {/* Time Range Selector */}
         <div className="flex bg-slate-900/50 p-1 rounded-xl border border-slate-800">
-          {(["1D", "1W", "1M", "1Y", "ALL"] as const).map((range) => (
+          {(["1D", "1W", "1M", "1Y", "5Y", "ALL"] as const).map((range) => (
             <TimeRangeButton
               key={range}
               label={range}
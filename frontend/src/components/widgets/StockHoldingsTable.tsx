@@ -7,7 +7,7 @@ import type { StockHolding } from "../../api/portfolioService";
 import { getStockPrice } from "../../api/marketDataService";
 
 interface EnrichedStock {
-  id: number;
+  id: string;
   symbol: string;
   exchange: string;
   quantity: number;
@@ -33,12 +33,12 @@ const StockHoldingsTable: React.FC = () => {
               const price = await getStockPrice(h.symbol);
               const current = h.quantity * price.current_price;
               const ret = invested > 0 ? ((current - invested) / invested) * 100 : 0;
-              return { id: h.id, symbol: h.symbol, exchange: h.exchange || "NSE", quantity: h.quantity, investedAmount: invested, ltp: price.current_price, currentValue: current, dayChange: price.change_percent_24h, totalReturn: ret };
+              return { id: h.externalId, symbol: h.symbol, exchange: h.exchange || "NSE", quantity: h.quantity, investedAmount: invested, ltp: price.current_price, currentValue: current, dayChange: price.change_percent_24h, totalReturn: ret };
             } catch {
               // fallback: estimate ~5% growth
               const est = invested * 1.05;
               const ret = 5;
-              return { id: h.id, symbol: h.symbol, exchange: h.exchange || "NSE", quantity: h.quantity, investedAmount: invested, ltp: h.purchasePrice * 1.05, currentValue: est, dayChange: 0, totalReturn: ret };
+              return { id: h.externalId, symbol: h.symbol, exchange: h.exchange || "NSE", quantity: h.quantity, investedAmount: invested, ltp: h.purchasePrice * 1.05, currentValue: est, dayChange: 0, totalReturn: ret };
             }
           })
         );
@@ -1,3 +1,4 @@
+import { useLivePortfolioValue } from "../../hooks/useLivePortfolioValue";
 import { useTotalPortfolioValue } from "../../hooks/useTotalPortfolioValue";
 
 const timeFilters = ["1D", "1W", "1M", "6M", "1Y", "5Y"] as const;
@@ -46,10 +47,22 @@ const ErrorState = ({ message }: { message: string }) => (
 );
 
 export const TotalHoldingCard = () => {
-  const { data, isLoading, isError, error } = useTotalPortfolioValue();
+  const { data: estimate, isLoading, isError, error } = useTotalPortfolioValue();
+  const live = useLivePortfolioValue();
+
+  // Live values from the server replace the local estimate as soon as the stream delivers one
+  const data = live
+    ? {
+        totalValue: live.totalValue,
+        returnAmount: live.totalValue - live.totalInvested,
+        returnPercent:
+          live.totalInvested > 0 ? ((live.totalValue - live.totalInvested) / live.totalInvested) * 100 : 0,
+        totalInvested: live.totalInvested,
+      }
+    : estimate;
 
   // Show loading skeleton
-  if (isLoading) {
+  if (isLoading && !live) {
     return (
       <div className="rounded-2xl border border-slate-800 bg-slate-900/80 p-6">
         <SkeletonLoader />
@@ -58,7 +71,7 @@ export const TotalHoldingCard = () => {
   }
 
   // Show error state
-  if (isError || !data) {
+  if ((isError && !live) || !data) {
     return (
       <ErrorState
         message={error?.message || "Could not load portfolio value"}
@@ -80,7 +80,7 @@ export const useAllTransactions = (): UseAllTransactionsReturn => {
         /* ---------- Stock holdings ---------- */
         for (const s of stocks) {
           rows.push({
-            id: `stock-${s.id}`,
+            id: `stock-${s.externalId}`,
             date: s.purchaseDate ?? s.createdAt,
             type: "Stock Buy",
             category: "Stocks",
@@ -100,7 +100,7 @@ export const useAllTransactions = (): UseAllTransactionsReturn => {
         /* ---------- Mutual Fund holdings ---------- */
         for (const m of mfs) {
           rows.push({
-            id: `mf-${m.id}`,
+            id: `mf-${m.externalId}`,
             date: m.purchaseDate ?? m.createdAt,
             type: "MF Buy",
             category: "Mutual Funds",
@@ -120,7 +120,7 @@ export const useAllTransactions = (): UseAllTransactionsReturn => {
         /* ---------- Crypto holdings ---------- */
         for (const c of cryptos) {
           rows.push({
-            id: `crypto-${c.id}`,
+            id: `crypto-${c.externalId}`,
             date: c.purchaseDate ?? c.createdAt,
             type: "Crypto Buy",
             category: "Crypto",
@@ -146,7 +146,7 @@ export const useAllTransactions = (): UseAllTransactionsReturn => {
               : "Manual";
 
           rows.push({
-            id: `manual-${h.id}`,
+            id: `manual-${h.externalId}`,
             date: h.purchaseDate ?? h.createdAt,
             type: assetType as TransactionType,
             category: assetType,
@@ -0,0 +1,59 @@
+import { useEffect, useState } from "react";
+import { subscribeLiveValue, type LiveAssetValue } from "../api/portfolioService";
+
+export type LivePortfolioValue = {
+  totalValue: number;
+  totalInvested: number;
+  change: number;
+  assets: Record<string, LiveAssetValue>;
+  asOf: string;
+};
+
+const RECONNECT_DELAY_MS = 5000;
+
+/**
+ * Live portfolio value pushed by portfolioService whenever prices refresh. Deltas are merged
+ * into the last full update; the stream reconnects after a drop. Returns null until the
+ * first update arrives.
+ */
+export const useLivePortfolioValue = () => {
+  const [value, setValue] = useState<LivePortfolioValue | null>(null);
+
+  useEffect(() => {
+    let close: () => void = () => {};
+    let retry: ReturnType<typeof setTimeout> | undefined;
+
+    const connect = () => {
+      close = subscribeLiveValue(
+        (update) => {
+          setValue((previous) => {
+            const assets = update.full || !previous ? {} : { ...previous.assets };
+            update.assets.forEach((asset) => {
+              assets[asset.externalId] = asset;
+            });
+            return {
+              totalValue: update.totalValue,
+              totalInvested: update.totalInvested,
+              change: update.change,
+              assets,
+              asOf: update.asOf,
+            };
+          });
+        },
+        () => {
+          retry = setTimeout(connect, RECONNECT_DELAY_MS);
+        }
+      );
+    };
+    connect();
+
+    return () => {
+      clearTimeout(retry);
+      close();
+    };
+  }, []);
+
+  return value;
+};
+
+export default useLivePortfolioValue;
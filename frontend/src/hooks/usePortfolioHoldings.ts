@@ -56,7 +56,7 @@ export const usePortfolioHoldings = (): UsePortfolioHoldingsReturn => {
               const gainLossPercent = (gainLoss / totalCost) * 100;
 
               return {
-                id: `stock-${stock.id}`,
+                id: `stock-${stock.externalId}`,
                 symbol: stock.symbol,
                 name: stock.symbol,
                 quantity: stock.quantity,
@@ -72,7 +72,7 @@ export const usePortfolioHoldings = (): UsePortfolioHoldingsReturn => {
               const totalValue = stock.quantity * currentPrice;
               const totalCost = stock.quantity * stock.purchasePrice;
               return {
-                id: `stock-${stock.id}`,
+                id: `stock-${stock.externalId}`,
                 symbol: stock.symbol,
                 name: stock.symbol,
                 quantity: stock.quantity,
@@ -98,7 +98,7 @@ export const usePortfolioHoldings = (): UsePortfolioHoldingsReturn => {
               const gainLossPercent = (gainLoss / totalCost) * 100;
 
               return {
-                id: `mf-${mf.id}`,
+                id: `mf-${mf.externalId}`,
                 symbol: mf.schemeCode,
                 name: `Scheme ${mf.schemeCode}`,
                 quantity: mf.quantity,
@@ -114,7 +114,7 @@ export const usePortfolioHoldings = (): UsePortfolioHoldingsReturn => {
               const totalValue = mf.quantity * currentPrice;
               const totalCost = mf.quantity * mf.purchasePrice;
               return {
-                id: `mf-${mf.id}`,
+                id: `mf-${mf.externalId}`,
                 symbol: mf.schemeCode,
                 name: `Scheme ${mf.schemeCode}`,
                 quantity: mf.quantity,
@@ -140,7 +140,7 @@ export const usePortfolioHoldings = (): UsePortfolioHoldingsReturn => {
               const gainLossPercent = (gainLoss / totalCost) * 100;
 
               return {
-                id: `crypto-${crypto.id}`,
+                id: `crypto-${crypto.externalId}`,
                 symbol: crypto.symbol,
                 name: crypto.symbol,
                 quantity: crypto.quantity,
@@ -156,7 +156,7 @@ export const usePortfolioHoldings = (): UsePortfolioHoldingsReturn => {
               const totalValue = crypto.quantity * currentPrice;
               const totalCost = crypto.quantity * crypto.purchasePrice;
               return {
-                id: `crypto-${crypto.id}`,
+                id: `crypto-${crypto.externalId}`,
                 symbol: crypto.symbol,
                 name: crypto.symbol,
                 quantity: crypto.quantity,
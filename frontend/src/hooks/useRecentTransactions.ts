@@ -19,7 +19,7 @@ export type UseRecentTransactionsReturn = {
 export const useRecentTransactions = (): UseRecentTransactionsReturn => {
   const { data: expenses, isLoading: loadingExpenses } = useExpenses();
   const [holdings, setHoldings] = useState<
-    Array<{ purchaseDate: string; symbol: string; quantity: number; totalCost: number; id: number }>
+    Array<{ purchaseDate: string; symbol: string; quantity: number; totalCost: number; id: string }>
   >([]);
   const [loadingHoldings, setLoadingHoldings] = useState(true);
 
@@ -35,21 +35,21 @@ export const useRecentTransactions = (): UseRecentTransactionsReturn => {
             symbol: stock.symbol,
             quantity: stock.quantity,
             totalCost: stock.quantity * stock.purchasePrice,
-            id: stock.id,
+            id: stock.externalId,
           })),
           ...mutualFunds.map(mf => ({
             purchaseDate: mf.purchaseDate,
             symbol: mf.schemeCode,
             quantity: mf.quantity,
             totalCost: mf.quantity * mf.purchasePrice,
-            id: mf.id,
+            id: mf.externalId,
           })),
           ...cryptos.map(crypto => ({
             purchaseDate: crypto.purchaseDate,
             symbol: crypto.symbol,
             quantity: crypto.quantity,
             totalCost: crypto.quantity * crypto.purchasePrice,
-            id: crypto.id,
+            id: crypto.externalId,
           })),
         ];
         
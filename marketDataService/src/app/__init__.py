@@ -5,11 +5,17 @@ from .clients.mf_client import search_mutual_funds, get_mutual_fund_nav
 from .clients.crypto_client import search_crypto, get_crypto_price
 from .clients.nps_client import search_nps, get_nps_nav
 from .clients.metals_client import get_gold_price, get_silver_price
+from .clients.errors import UpstreamError
 
 app = Flask(__name__)
 # Allow requests from our frontend
 CORS(app, origins=["http://localhost:5173", "http://localhost:5174", "http://localhost:3000", "http://localhost:8080", "http://localhost:8081"])
 
+@app.errorhandler(UpstreamError)
+def handle_upstream_error(error):
+    # 404 stays reserved for instruments that have no price
+    return jsonify({'error': str(error)}), error.status
+
 @app.route('/', methods=['GET'])
 def handle_get():
     return 'Hello world'
@@ -3,6 +3,7 @@ import requests
 import json
 import time
 from pathlib import Path
+from .errors import upstream_error
 
 # Cache file path
 CACHE_FILE = Path(__file__).parent / "coingecko_list.json"
@@ -121,4 +122,4 @@ def get_crypto_price(coin_id):
         return None
     except Exception as e:
         print(f"Error fetching price for {coin_id}: {e}")
-        return None
+        raise upstream_error("CoinGecko", e) from e
@@ -0,0 +1,21 @@
+class UpstreamError(Exception):
+    """
+    Raised when a price source could not be reached or refused the request, as opposed to
+    having no price for the instrument. Routes answer it with 429 or 502 instead of 404, so
+    callers can tell an outage from a missing instrument.
+    """
+
+    def __init__(self, message, status=502):
+        super().__init__(message)
+        self.status = status
+
+
+def upstream_error(source, error):
+    """
+    Wraps a failed call to a price source, keeping a rate-limit refusal recognisable.
+    """
+    response = getattr(error, 'response', None)
+    rate_limited = (getattr(response, 'status_code', None) == 429
+                    or 'ratelimit' in type(error).__name__.lower()
+                    or 'too many requests' in str(error).lower())
+    return UpstreamError(f"{source} request failed: {error}", 429 if rate_limited else 502)
@@ -1,6 +1,7 @@
 import requests
 from lxml import html
 import re
+from .errors import upstream_error
 
 # This "disguises" our script as a real browser
 HEADERS = {
@@ -86,7 +87,7 @@ def get_gold_price():
 
     except Exception as e:
         print(f"Error fetching gold price: {e}")
-        return None
+        raise upstream_error("goodreturns.in", e) from e
 
 def get_silver_price():
     """
@@ -115,4 +116,4 @@ def get_silver_price():
         }
     except Exception as e:
         print(f"Error fetching silver price: {e}")
-        return None
+        raise upstream_error("goodreturns.in", e) from e
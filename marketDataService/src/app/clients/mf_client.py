@@ -2,6 +2,7 @@ import os
 import requests
 import time
 from pathlib import Path
+from .errors import UpstreamError, upstream_error
 
 # Cache file path
 CACHE_FILE = Path(__file__).parent / "amfi_data.txt"
@@ -97,7 +98,7 @@ def get_mutual_fund_nav(scheme_code):
     ensure_data_available()
     
     if not CACHE_FILE.exists():
-        return None
+        raise UpstreamError("AMFI NAV data could not be downloaded")
     
     try:
         with open(CACHE_FILE, 'r', encoding='utf-8') as f:
@@ -122,4 +123,4 @@ def get_mutual_fund_nav(scheme_code):
         return None
     except Exception as e:
         print(f"Error fetching NAV for scheme {scheme_code}: {e}")
-        return None
+        raise upstream_error("AMFI", e) from e
@@ -3,6 +3,7 @@ import requests
 import json
 import time
 from pathlib import Path
+from .errors import upstream_error
 
 # Cache file path
 CACHE_FILE = Path(__file__).parent / "nps_data.json"
@@ -97,6 +98,8 @@ def get_nps_nav(scheme_id):
     try:
         url = f"{NPS_DETAILED_API_URL}{scheme_id}"
         response = requests.get(url, timeout=30)
+        if response.status_code == 404:
+            return None
         response.raise_for_status()
         
         data = response.json()
@@ -106,4 +109,4 @@ def get_nps_nav(scheme_id):
         return nav
     except Exception as e:
         print(f"Error fetching NAV for scheme {scheme_id}: {e}")
-        return None
+        raise upstream_error("npsnav.in", e) from e
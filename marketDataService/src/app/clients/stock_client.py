@@ -2,6 +2,7 @@ import os
 import time
 import requests
 import yfinance as yf
+from .errors import upstream_error
 
 # In-memory cache: { key: (value, timestamp) }
 _price_cache = {}
@@ -59,4 +60,4 @@ def get_stock_price(symbol):
         return price
     except Exception as e:
         print(f"Error fetching price for {symbol}: {e}")
-        return None
+        raise upstream_error("yfinance", e) from e
@@ -0,0 +1,63 @@
+package com.expense.service.client;
+
+import java.time.Duration;
+
+/**
+ * Consecutive-failure circuit breaker for one market data endpoint. After
+ * {@code failureThreshold} failures in a row the circuit opens and calls fail fast for
+ * {@code openDuration}; then a single trial call is let through (half-open), and its
+ * outcome closes the circuit again or re-opens it.
+ */
+public class CircuitBreaker {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final int failureThreshold;
+    private final long openNanos;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+
+    public CircuitBreaker(int failureThreshold, Duration openDuration) {
+        this.failureThreshold = failureThreshold;
+        this.openNanos = openDuration.toNanos();
+    }
+
+    public synchronized boolean allowRequest() {
+        if (state == State.OPEN && System.nanoTime() - openedAt >= openNanos) {
+            state = State.HALF_OPEN;
+            return true;
+        }
+        return state == State.CLOSED;
+    }
+
+    public synchronized void recordSuccess() {
+        consecutiveFailures = 0;
+        state = State.CLOSED;
+    }
+
+    public synchronized void recordFailure() {
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            state = State.OPEN;
+            openedAt = System.nanoTime();
+        }
+    }
+
+    /**
+     * For a call that was let through but never reached the endpoint. A half-open trial is
+     * handed back, so the next call makes the trial instead of the circuit waiting forever
+     * for an outcome.
+     */
+    public synchronized void releaseTrial() {
+        if (state == State.HALF_OPEN) {
+            state = State.OPEN;
+            openedAt = System.nanoTime() - openNanos;
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+}
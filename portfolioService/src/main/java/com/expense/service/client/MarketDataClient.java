@@ -0,0 +1,250 @@
+package com.expense.service.client;
+
+import com.expense.service.entities.AssetClass;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Asynchronous HTTP client for marketdataservice. Connections are kept alive and reused by
+ * the underlying {@link HttpClient}, every request has connect and response timeouts, and
+ * the number of requests in flight is capped so a burst cannot swamp the upstream. Requests
+ * over the cap wait in a queue rather than on the caller's thread, and are started as earlier
+ * ones complete; one still queued after the request timeout fails. Each
+ * endpoint has its own {@link CircuitBreaker}, so an unhealthy endpoint fails fast instead
+ * of tying up permits and connections.
+ *
+ * Latency is recorded per endpoint as the {@code portfolio.marketdata.requests} timer.
+ */
+@Component
+@Slf4j
+public class MarketDataClient {
+
+    private static final TypeReference<Map<String, Object>> JSON_OBJECT = new TypeReference<>() {
+    };
+
+    private final String baseUrl;
+    private final Duration requestTimeout;
+    private final Semaphore permits;
+    private final Queue<CompletableFuture<Void>> permitWaiters = new ConcurrentLinkedQueue<>();
+    private final ExecutorService executor;
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final int breakerFailureThreshold;
+    private final Duration breakerOpenDuration;
+    private final Map<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+
+    @Autowired
+    public MarketDataClient(
+            @Value("${portfolio.marketdata.base-url:http://marketdataservice:8010}") String baseUrl,
+            @Value("${portfolio.marketdata.connect-timeout:2s}") Duration connectTimeout,
+            @Value("${portfolio.marketdata.request-timeout:5s}") Duration requestTimeout,
+            @Value("${portfolio.marketdata.max-concurrent-requests:16}") int maxConcurrentRequests,
+            @Value("${portfolio.marketdata.circuit-breaker.failure-threshold:5}") int breakerFailureThreshold,
+            @Value("${portfolio.marketdata.circuit-breaker.open-duration:30s}") Duration breakerOpenDuration,
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry) {
+        this.baseUrl = baseUrl;
+        this.requestTimeout = requestTimeout;
+        this.permits = new Semaphore(maxConcurrentRequests);
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(Math.max(2, maxConcurrentRequests / 4), runnable -> {
+            Thread thread = new Thread(runnable, "marketdata-client-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(connectTimeout)
+                .executor(executor)
+                .build();
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.breakerFailureThreshold = breakerFailureThreshold;
+        this.breakerOpenDuration = breakerOpenDuration;
+    }
+
+    /**
+     * Fetches the current price of one instrument. Completes with {@code null} when
+     * marketdataservice has no price for it, and exceptionally on timeouts, connection
+     * failures or unexpected responses.
+     */
+    public CompletableFuture<BigDecimal> fetchPrice(AssetClass assetClass, String instrumentId) {
+        return switch (assetClass) {
+            case STOCK -> getJson("stock", "/price/stock/" + encode(instrumentId))
+                    .thenApply(body -> readField(body, "price"));
+            case CRYPTO -> getJson("crypto", "/price/crypto/" + encode(instrumentId))
+                    .thenApply(body -> readField(body, "price"));
+            case MUTUAL_FUND -> getJson("mf", "/price/mf/" + encode(instrumentId))
+                    .thenApply(body -> readField(body, "nav"));
+            case NPS -> getJson("nps", "/price/nps/" + encode(instrumentId))
+                    .thenApply(body -> readField(body, "nav"));
+            case METAL -> fetchMetalPrice(instrumentId);
+        };
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @SuppressWarnings("unchecked")
+    private CompletableFuture<BigDecimal> fetchMetalPrice(String instrumentId) {
+        // Metal routes return every grade at once, e.g. {"24K": {"today": 7250.0, ...}, ...}
+        String[] parts = instrumentId.split(":", 2);
+        if (parts.length < 2) {
+            return CompletableFuture.failedFuture(
+                    new IllegalArgumentException("Metal instrument id must be metal:grade, got " + instrumentId));
+        }
+        return getJson(parts[0], "/price/" + encode(parts[0])).thenApply(grades ->
+                grades != null && grades.get(parts[1]) instanceof Map<?, ?> grade
+                        ? readField((Map<String, Object>) grade, "today")
+                        : null);
+    }
+
+    private CompletableFuture<Map<String, Object>> getJson(String endpoint, String path) {
+        CircuitBreaker breaker = breakers.computeIfAbsent(endpoint, this::newBreaker);
+        if (!breaker.allowRequest()) {
+            return CompletableFuture.failedFuture(
+                    new MarketDataException("Circuit open for market data endpoint " + endpoint));
+        }
+        return acquirePermit()
+                .exceptionallyCompose(error -> {
+                    // Local saturation says nothing about the endpoint, so it is not held against the circuit
+                    breaker.releaseTrial();
+                    return CompletableFuture.failedFuture(
+                            new MarketDataException("Too many concurrent market data requests for " + path));
+                })
+                .thenCompose(ignored -> send(endpoint, path, breaker));
+    }
+
+    /**
+     * Sends one request while holding a permit, and releases the permit when it completes.
+     */
+    private CompletableFuture<Map<String, Object>> send(String endpoint, String path, CircuitBreaker breaker) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(requestTimeout)
+                .header("Accept", "application/json")
+                .GET()
+                .build();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+                .whenComplete((response, error) -> {
+                    releasePermit();
+                    if (error != null || isUpstreamFailure(response.statusCode())) {
+                        breaker.recordFailure();
+                    } else {
+                        breaker.recordSuccess();
+                    }
+                    String outcome = error != null ? "error" : String.valueOf(response.statusCode());
+                    sample.stop(meterRegistry.timer("portfolio.marketdata.requests",
+                            "endpoint", endpoint, "outcome", outcome));
+                })
+                .thenApply(response -> parse(response, path));
+    }
+
+    /**
+     * Completes once a request permit is held, without blocking the caller. With every permit
+     * in use the request joins a queue and is handed the next permit released, or fails once
+     * it has waited for the request timeout.
+     */
+    private CompletableFuture<Void> acquirePermit() {
+        if (permits.tryAcquire()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        CompletableFuture<Void> waiter = new CompletableFuture<>();
+        permitWaiters.add(waiter);
+        // A permit released between the tryAcquire and the add would otherwise go unnoticed
+        handOverPermits();
+        return waiter.orTimeout(requestTimeout.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private void releasePermit() {
+        permits.release();
+        handOverPermits();
+    }
+
+    private void handOverPermits() {
+        while (!permitWaiters.isEmpty() && permits.tryAcquire()) {
+            CompletableFuture<Void> waiter = permitWaiters.poll();
+            if (waiter == null) {
+                permits.release();
+                return;
+            }
+            // A waiter that already timed out gives the permit back for the next one
+            if (!waiter.complete(null)) {
+                permits.release();
+            }
+        }
+    }
+
+    /**
+     * marketdataservice answers 502 when a price source failed and 429 when it was rate
+     * limited; a 404 means the endpoint is healthy but has no price for this instrument.
+     */
+    private static boolean isUpstreamFailure(int statusCode) {
+        return statusCode >= 500 || statusCode == 429;
+    }
+
+    private CircuitBreaker newBreaker(String endpoint) {
+        CircuitBreaker breaker = new CircuitBreaker(breakerFailureThreshold, breakerOpenDuration);
+        Gauge.builder("portfolio.marketdata.circuit.open", breaker,
+                        b -> b.getState() == CircuitBreaker.State.CLOSED ? 0 : 1)
+                .tag("endpoint", endpoint)
+                .register(meterRegistry);
+        return breaker;
+    }
+
+    private Map<String, Object> parse(HttpResponse<byte[]> response, String path) {
+        if (response.statusCode() == 404) {
+            return null;
+        }
+        if (response.statusCode() != 200) {
+            throw new MarketDataException("marketdataservice returned " + response.statusCode() + " for " + path);
+        }
+        try {
+            return objectMapper.readValue(response.body(), JSON_OBJECT);
+        } catch (IOException e) {
+            throw new MarketDataException("Unreadable response from marketdataservice for " + path, e);
+        }
+    }
+
+    private static BigDecimal readField(Map<String, Object> data, String field) {
+        if (data == null || data.get(field) == null) {
+            return null;
+        }
+        return new BigDecimal(data.get(field).toString());
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8).replace("+", "%20");
+    }
+}
@@ -0,0 +1,56 @@
+package com.expense.service.config;
+
+import com.expense.service.repository.SnapshotFailureJdbcRepository;
+import com.expense.service.repository.SnapshotPendingItemJdbcRepository;
+import com.expense.service.service.SnapshotWorkItem;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.TopicBuilder;
+import org.springframework.kafka.listener.CommonErrorHandler;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.util.backoff.FixedBackOff;
+
+/**
+ * Kafka wiring for the distributed snapshot mode. The partition count caps how many workers
+ * can value users at once across the deployment, so keep it at or above
+ * instances x consumer-concurrency.
+ */
+@Configuration
+@Slf4j
+@ConditionalOnProperty(name = "portfolio.snapshot.mode", havingValue = "distributed")
+public class DistributedSnapshotConfig {
+
+    @Bean
+    public NewTopic snapshotWorkTopic(@Value("${portfolio.snapshot.distributed.topic:portfolio_snapshot_work}") String topic,
+                                      @Value("${portfolio.snapshot.distributed.partitions:24}") int partitions,
+                                      @Value("${portfolio.snapshot.distributed.replicas:1}") int replicas) {
+        return TopicBuilder.name(topic).partitions(partitions).replicas(replicas).build();
+    }
+
+    /**
+     * Retries a failed work item a few times before giving up on it. Its users are then
+     * recorded as snapshot failures and the item is finished, so the coordinator republishes
+     * them later instead of the day completing without them. If recording fails the item is
+     * retried again.
+     */
+    @Bean
+    public CommonErrorHandler snapshotWorkErrorHandler(SnapshotFailureJdbcRepository snapshotFailureJdbcRepository,
+                                                       SnapshotPendingItemJdbcRepository snapshotPendingItemJdbcRepository) {
+        return new DefaultErrorHandler((record, e) -> {
+            if (!(record.value() instanceof SnapshotWorkItem item) || item.userIds().isEmpty()) {
+                // Nothing to record; its pending marker, if any, keeps the day running
+                log.error("Dropping unreadable snapshot work item at offset {} of partition {}",
+                        record.offset(), record.partition(), e);
+                return;
+            }
+            log.error("Giving up on snapshot work item of {} users starting at {} for {}; recording them as failed",
+                    item.userIds().size(), item.userIds().get(0), item.snapshotDate(), e);
+            snapshotFailureJdbcRepository.record(item.snapshotDate(), item.userIds());
+            snapshotPendingItemJdbcRepository.finish(item.snapshotDate(), item.userIds().get(0));
+        }, new FixedBackOff(5000, 3));
+    }
+}
@@ -0,0 +1,24 @@
+package com.expense.service.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+
+/**
+ * Names this instance in the leases instances take through the database. Defaults to the
+ * host name, which is unique per container, and falls back to a random id.
+ */
+@Component
+public class InstanceIdentity {
+
+    private final String id;
+
+    public InstanceIdentity(@Value("${portfolio.instance-id:${HOSTNAME:}}") String id) {
+        this.id = id.isBlank() ? UUID.randomUUID().toString() : id;
+    }
+
+    public String getId() {
+        return id;
+    }
+}
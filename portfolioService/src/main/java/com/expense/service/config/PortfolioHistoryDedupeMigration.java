@@ -0,0 +1,78 @@
+package com.expense.service.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.orm.jpa.EntityManagerFactoryDependsOnPostProcessor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+
+/**
+ * Removes duplicate (user_id, snapshot_date) rows from portfolio_history before Hibernate
+ * adds the {@code uk_portfolio_history_user_date} unique key. History written before the key
+ * existed can hold several rows for one day, and ddl-auto only logs the failed ALTER, which
+ * would leave snapshot upserts inserting duplicates. The latest row of each day is kept.
+ *
+ * Runs before the entity manager factory, and does nothing once the key exists.
+ */
+@Component
+@Slf4j
+public class PortfolioHistoryDedupeMigration implements InitializingBean {
+
+    private static final String UNIQUE_KEY = "uk_portfolio_history_user_date";
+
+    private static final String TABLE_EXISTS = """
+            SELECT COUNT(*) FROM information_schema.tables
+            WHERE table_schema = DATABASE() AND table_name = 'portfolio_history'
+            """;
+
+    private static final String KEY_EXISTS = """
+            SELECT COUNT(*) FROM information_schema.statistics
+            WHERE table_schema = DATABASE() AND table_name = 'portfolio_history' AND index_name = ?
+            """;
+
+    private static final String DELETE_DUPLICATES = """
+            DELETE older FROM portfolio_history older
+            JOIN portfolio_history newer
+              ON newer.user_id = older.user_id AND newer.snapshot_date = older.snapshot_date AND newer.id > older.id
+            """;
+
+    private final DataSource dataSource;
+
+    @Autowired
+    public PortfolioHistoryDedupeMigration(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    @Override
+    public void afterPropertiesSet() throws Exception {
+        try (Connection connection = dataSource.getConnection()) {
+            // The statements are MySQL's; other databases here (H2 in tests) start from an empty schema
+            if (!"MySQL".equalsIgnoreCase(connection.getMetaData().getDatabaseProductName())) {
+                return;
+            }
+        }
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        if (jdbcTemplate.queryForObject(TABLE_EXISTS, Integer.class) == 0
+                || jdbcTemplate.queryForObject(KEY_EXISTS, Integer.class, UNIQUE_KEY) > 0) {
+            return;
+        }
+        int removed = jdbcTemplate.update(DELETE_DUPLICATES);
+        log.info("Removed {} duplicate portfolio_history rows before adding {}", removed, UNIQUE_KEY);
+    }
+
+    /**
+     * Makes the entity manager factory, and with it the ddl-auto schema update, wait for the
+     * migration.
+     */
+    @Component
+    static class RunBeforeSchemaUpdate extends EntityManagerFactoryDependsOnPostProcessor {
+
+        RunBeforeSchemaUpdate() {
+            super("portfolioHistoryDedupeMigration");
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.expense.service.consumer;
+
+import com.expense.service.repository.SnapshotPendingItemJdbcRepository;
+import com.expense.service.service.PortfolioSnapshotService;
+import com.expense.service.service.SnapshotWorkItem;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Service;
+
+/**
+ * Snapshot worker for distributed mode. Every instance joins the same consumer group, so the
+ * work topic's partitions are shared out between them and rebalanced when one joins or dies.
+ * Offsets are committed per item after it is written, so an item in progress on a dead
+ * instance is redelivered to the new owner of its partition; snapshot upserts make that
+ * repeat harmless. Finishing an item clears its pending marker, which is what lets the
+ * coordinator complete the day.
+ */
+@Service
+@Slf4j
+@ConditionalOnProperty(name = "portfolio.snapshot.mode", havingValue = "distributed")
+public class SnapshotWorkConsumer {
+
+    private final PortfolioSnapshotService portfolioSnapshotService;
+    private final SnapshotPendingItemJdbcRepository snapshotPendingItemJdbcRepository;
+
+    @Autowired
+    public SnapshotWorkConsumer(PortfolioSnapshotService portfolioSnapshotService,
+                                SnapshotPendingItemJdbcRepository snapshotPendingItemJdbcRepository) {
+        this.portfolioSnapshotService = portfolioSnapshotService;
+        this.snapshotPendingItemJdbcRepository = snapshotPendingItemJdbcRepository;
+    }
+
+    @KafkaListener(topics = "${portfolio.snapshot.distributed.topic:portfolio_snapshot_work}",
+            groupId = "${portfolio.snapshot.distributed.group-id:portfolio-snapshot-workers}",
+            concurrency = "${portfolio.snapshot.distributed.consumer-concurrency:2}")
+    public void consume(SnapshotWorkItem item) {
+        long startedAt = System.nanoTime();
+        // Failures propagate so the container's error handler retries the item
+        portfolioSnapshotService.snapshotUsers(item.snapshotDate(), item.userIds());
+        snapshotPendingItemJdbcRepository.finish(item.snapshotDate(), item.userIds().get(0));
+        log.debug("Snapshot work item of {} users for {} done in {}ms",
+                item.userIds().size(), item.snapshotDate(), (System.nanoTime() - startedAt) / 1_000_000);
+    }
+}
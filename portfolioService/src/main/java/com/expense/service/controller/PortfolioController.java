@@ -1,35 +1,148 @@
 package com.expense.service.controller;
 
+import com.expense.service.dto.BulkDeleteRequestDto;
+import com.expense.service.dto.BulkDeleteResultDto;
+import com.expense.service.dto.CryptoHoldingDto;
 import com.expense.service.dto.CryptoHoldingRequestDto;
+import com.expense.service.dto.CursorPageDto;
+import com.expense.service.dto.HoldingImportResultDto;
+import com.expense.service.dto.IntradayValueDto;
+import com.expense.service.dto.ManualHoldingDto;
 import com.expense.service.dto.ManualHoldingRequestDto;
+import com.expense.service.dto.MutualFundHoldingDto;
 import com.expense.service.dto.MutualFundHoldingRequestDto;
+import com.expense.service.dto.PortfolioBreakdownDto;
+import com.expense.service.dto.PortfolioDashboardDto;
+import com.expense.service.dto.PortfolioHistoryDto;
+import com.expense.service.dto.PortfolioProjectionDto;
+import com.expense.service.dto.PortfolioReturnsDto;
+import com.expense.service.dto.PositionDto;
+import com.expense.service.dto.RevalueRequestDto;
+import com.expense.service.dto.SellRequestDto;
+import com.expense.service.dto.SellResultDto;
+import com.expense.service.dto.StockHoldingDto;
 import com.expense.service.dto.StockHoldingRequestDto;
 import com.expense.service.entities.CryptoHolding;
+import com.expense.service.entities.HistoryResolution;
 import com.expense.service.entities.ManualHolding;
 import com.expense.service.entities.MutualFundHolding;
-import com.expense.service.entities.PortfolioHistory;
+import com.expense.service.entities.PortfolioReturns;
 import com.expense.service.entities.StockHolding;
 import com.expense.service.repository.PortfolioHistoryRepository;
+import com.expense.service.repository.PortfolioHistoryRollupRepository;
+import com.expense.service.repository.PortfolioIntradaySnapshotRepository;
+import com.expense.service.service.HoldingImportService;
+import com.expense.service.service.InstrumentHolderIndex;
+import com.expense.service.service.LiveValueStreamService;
+import com.expense.service.service.PortfolioDashboardService;
+import com.expense.service.service.PortfolioProjectionService;
+import com.expense.service.service.PortfolioReturnsService;
 import com.expense.service.service.PortfolioService;
+import com.expense.service.service.PortfolioSnapshotService;
+import com.expense.service.service.PortfolioVersionService;
+import com.expense.service.service.PositionService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/portfolio/v1")
 public class PortfolioController {
 
+    private static final String DEFAULT_PAGE_SIZE = "100";
+    private static final int MAX_PAGE_SIZE = 500;
+
+    // Keeps the IN lists of a bulk delete to a size MySQL handles comfortably
+    private static final int MAX_BULK_DELETE_IDS = 1000;
+    private static final int MAX_REVALUE_INSTRUMENTS = 1000;
+
+    private static final int MAX_PROJECTION_YEARS = 30;
+    // A few fixed sizes keep the projection cache and conditional requests to a handful of keys per user
+    private static final Set<Integer> PROJECTION_PATHS = Set.of(5000, 20000, 50000);
+
     private final PortfolioService portfolioService;
+    private final PortfolioDashboardService portfolioDashboardService;
+    private final HoldingImportService holdingImportService;
+    private final PortfolioVersionService portfolioVersionService;
+    private final PortfolioSnapshotService portfolioSnapshotService;
+    private final PortfolioReturnsService portfolioReturnsService;
+    private final PositionService positionService;
+    private final PortfolioProjectionService portfolioProjectionService;
+    private final InstrumentHolderIndex instrumentHolderIndex;
+    private final LiveValueStreamService liveValueStreamService;
     private final PortfolioHistoryRepository portfolioHistoryRepository;
+    private final PortfolioHistoryRollupRepository portfolioHistoryRollupRepository;
+    private final PortfolioIntradaySnapshotRepository portfolioIntradaySnapshotRepository;
+
+    @Value("${portfolio.zone:Asia/Kolkata}")
+    private String zone;
+
+    // Shared with internal callers such as the price feed; internal endpoints are disabled while unset
+    @Value("${portfolio.internal-token:}")
+    private String internalToken;
 
     @Autowired
-    public PortfolioController(PortfolioService portfolioService, PortfolioHistoryRepository portfolioHistoryRepository) {
+    public PortfolioController(PortfolioService portfolioService,
+                               PortfolioDashboardService portfolioDashboardService,
+                               HoldingImportService holdingImportService,
+                               PortfolioVersionService portfolioVersionService,
+                               PortfolioSnapshotService portfolioSnapshotService,
+                               PortfolioReturnsService portfolioReturnsService,
+                               PositionService positionService,
+                               PortfolioProjectionService portfolioProjectionService,
+                               InstrumentHolderIndex instrumentHolderIndex,
+                               LiveValueStreamService liveValueStreamService,
+                               PortfolioHistoryRepository portfolioHistoryRepository,
+                               PortfolioHistoryRollupRepository portfolioHistoryRollupRepository,
+                               PortfolioIntradaySnapshotRepository portfolioIntradaySnapshotRepository) {
         this.portfolioService = portfolioService;
+        this.portfolioDashboardService = portfolioDashboardService;
+        this.holdingImportService = holdingImportService;
+        this.portfolioVersionService = portfolioVersionService;
+        this.portfolioSnapshotService = portfolioSnapshotService;
+        this.portfolioReturnsService = portfolioReturnsService;
+        this.positionService = positionService;
+        this.portfolioProjectionService = portfolioProjectionService;
+        this.instrumentHolderIndex = instrumentHolderIndex;
+        this.liveValueStreamService = liveValueStreamService;
         this.portfolioHistoryRepository = portfolioHistoryRepository;
+        this.portfolioHistoryRollupRepository = portfolioHistoryRollupRepository;
+        this.portfolioIntradaySnapshotRepository = portfolioIntradaySnapshotRepository;
+    }
+
+    // Dashboard Endpoint
+    @GetMapping("/dashboard")
+    public ResponseEntity<PortfolioDashboardDto> getDashboard(
+            @RequestHeader("X-User-Id") String userId) {
+        PortfolioDashboardDto dashboard = portfolioDashboardService.getDashboard(userId);
+        return new ResponseEntity<>(dashboard, HttpStatus.OK);
+    }
+
+    // Live Value Stream Endpoint
+    @GetMapping(value = "/live", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamLiveValue(
+            @RequestHeader("X-User-Id") String userId) {
+        return liveValueStreamService.connect(userId);
     }
 
     // Stock Holding Endpoints
@@ -42,10 +155,16 @@ public class PortfolioController {
     }
 
     @GetMapping("/stocks")
-    public ResponseEntity<List<StockHolding>> getStocks(
-            @RequestHeader("X-User-Id") String userId) {
-        List<StockHolding> stocks = portfolioService.getStocksForUser(userId);
-        return new ResponseEntity<>(stocks, HttpStatus.OK);
+    public ResponseEntity<CursorPageDto<StockHoldingDto>> getStocks(
+            @RequestHeader("X-User-Id") String userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int limit,
+            WebRequest request) {
+        if (notModified(request, userId, PortfolioVersionService.Scope.HOLDINGS, null)) {
+            return null;
+        }
+        CursorPageDto<StockHoldingDto> stocks = portfolioService.getStocksForUser(userId, cursor, pageSize(limit));
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(stocks);
     }
 
     @DeleteMapping("/stock/{externalId}")
@@ -66,10 +185,16 @@ public class PortfolioController {
     }
 
     @GetMapping("/mutual-funds")
-    public ResponseEntity<List<MutualFundHolding>> getMutualFunds(
-            @RequestHeader("X-User-Id") String userId) {
-        List<MutualFundHolding> mutualFunds = portfolioService.getMutualFundsForUser(userId);
-        return new ResponseEntity<>(mutualFunds, HttpStatus.OK);
+    public ResponseEntity<CursorPageDto<MutualFundHoldingDto>> getMutualFunds(
+            @RequestHeader("X-User-Id") String userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int limit,
+            WebRequest request) {
+        if (notModified(request, userId, PortfolioVersionService.Scope.HOLDINGS, null)) {
+            return null;
+        }
+        CursorPageDto<MutualFundHoldingDto> mutualFunds = portfolioService.getMutualFundsForUser(userId, cursor, pageSize(limit));
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(mutualFunds);
     }
 
     @DeleteMapping("/mutual-fund/{externalId}")
@@ -90,10 +215,16 @@ public class PortfolioController {
     }
 
     @GetMapping("/cryptos")
-    public ResponseEntity<List<CryptoHolding>> getCryptos(
-            @RequestHeader("X-User-Id") String userId) {
-        List<CryptoHolding> cryptos = portfolioService.getCryptoForUser(userId);
-        return new ResponseEntity<>(cryptos, HttpStatus.OK);
+    public ResponseEntity<CursorPageDto<CryptoHoldingDto>> getCryptos(
+            @RequestHeader("X-User-Id") String userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int limit,
+            WebRequest request) {
+        if (notModified(request, userId, PortfolioVersionService.Scope.HOLDINGS, null)) {
+            return null;
+        }
+        CursorPageDto<CryptoHoldingDto> cryptos = portfolioService.getCryptoForUser(userId, cursor, pageSize(limit));
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(cryptos);
     }
 
     @DeleteMapping("/crypto/{externalId}")
@@ -114,10 +245,16 @@ public class PortfolioController {
     }
 
     @GetMapping("/manuals")
-    public ResponseEntity<List<ManualHolding>> getManualHoldings(
-            @RequestHeader("X-User-Id") String userId) {
-        List<ManualHolding> manualHoldings = portfolioService.getManualHoldingsForUser(userId);
-        return new ResponseEntity<>(manualHoldings, HttpStatus.OK);
+    public ResponseEntity<CursorPageDto<ManualHoldingDto>> getManualHoldings(
+            @RequestHeader("X-User-Id") String userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int limit,
+            WebRequest request) {
+        if (notModified(request, userId, PortfolioVersionService.Scope.HOLDINGS, null)) {
+            return null;
+        }
+        CursorPageDto<ManualHoldingDto> manualHoldings = portfolioService.getManualHoldingsForUser(userId, cursor, pageSize(limit));
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(manualHoldings);
     }
 
     @DeleteMapping("/manual/{externalId}")
@@ -128,20 +265,255 @@ public class PortfolioController {
         return new ResponseEntity<>(HttpStatus.NO_CONTENT);
     }
 
+    // Bulk Delete Endpoint
+    @PostMapping("/holdings/delete")
+    public ResponseEntity<BulkDeleteResultDto> deleteHoldings(
+            @RequestHeader("X-User-Id") String userId,
+            @RequestBody BulkDeleteRequestDto dto) {
+        List<String> externalIds = dto.getExternalIds() == null ? List.of() : dto.getExternalIds();
+        if (externalIds.size() > MAX_BULK_DELETE_IDS) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        int deleted = portfolioService.deleteHoldings(externalIds, userId);
+        return new ResponseEntity<>(new BulkDeleteResultDto(externalIds.size(), deleted), HttpStatus.OK);
+    }
+
+    // Position Endpoints
+    @GetMapping("/positions")
+    public ResponseEntity<List<PositionDto>> getPositions(
+            @RequestHeader("X-User-Id") String userId) {
+        return new ResponseEntity<>(positionService.getPositions(userId), HttpStatus.OK);
+    }
+
+    @PostMapping("/positions/sell")
+    public ResponseEntity<SellResultDto> sell(
+            @RequestHeader("X-User-Id") String userId,
+            @RequestBody SellRequestDto dto) {
+        try {
+            return new ResponseEntity<>(portfolioService.sell(dto, userId), HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    // Bulk Import Endpoint
+    @PostMapping(value = "/holdings/import", consumes = {"text/csv", MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<HoldingImportResultDto> importHoldings(
+            @RequestHeader("X-User-Id") String userId,
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+            InputStream body) throws IOException {
+        HoldingImportResultDto result = MediaType.parseMediaType(contentType).isCompatibleWith(MediaType.APPLICATION_JSON)
+                ? holdingImportService.importJson(body, userId)
+                : holdingImportService.importCsv(body, userId);
+        HttpStatus status = result.getImported() == 0 && result.getAbortedReason() != null
+                ? HttpStatus.BAD_REQUEST
+                : HttpStatus.OK;
+        return new ResponseEntity<>(result, status);
+    }
+
+    // Change-Driven Revaluation Endpoint (internal callers only)
+    @PostMapping("/revalue")
+    public ResponseEntity<Void> revalue(
+            @RequestHeader(value = "X-Internal-Token", required = false) String token,
+            @RequestBody RevalueRequestDto dto) {
+        if (!isInternalCaller(token)) {
+            return new ResponseEntity<>(HttpStatus.FORBIDDEN);
+        }
+        if (dto.getInstruments() == null || dto.getInstruments().containsValue(null)
+                || dto.getInstruments().values().stream().mapToInt(List::size).sum() > MAX_REVALUE_INSTRUMENTS) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        // Until the holder index is built the affected portfolios are unknown
+        if (!instrumentHolderIndex.isReady()) {
+            return new ResponseEntity<>(HttpStatus.SERVICE_UNAVAILABLE);
+        }
+        // Re-pricing and valuing every holder takes a while, so it runs in the background
+        if (!portfolioSnapshotService.submitRevalue(dto.getInstruments())) {
+            return new ResponseEntity<>(HttpStatus.TOO_MANY_REQUESTS);
+        }
+        return new ResponseEntity<>(HttpStatus.ACCEPTED);
+    }
+
     // Portfolio History Endpoint
     @GetMapping("/history")
-    public ResponseEntity<List<PortfolioHistory>> getPortfolioHistory(
+    public ResponseEntity<CursorPageDto<PortfolioHistoryDto>> getPortfolioHistory(
             @RequestHeader("X-User-Id") String userId,
-            @RequestParam(defaultValue = "1M") String period) {
+            @RequestParam(defaultValue = "1M") String period,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int limit,
+            WebRequest request) {
 
-        LocalDate startDate = switch (period) {
-            case "1W" -> LocalDate.now().minusWeeks(1);
-            case "6M" -> LocalDate.now().minusMonths(6);
-            case "1Y" -> LocalDate.now().minusYears(1);
-            default -> LocalDate.now().minusMonths(1); // 1M
-        };
+        // Period windows are relative to today, so the date is part of the validator
+        LocalDate today = today();
+        if (notModified(request, userId, PortfolioVersionService.Scope.HISTORY, today.toString())) {
+            return null;
+        }
 
-        List<PortfolioHistory> history = portfolioHistoryRepository.findByUserIdAndSnapshotDateAfter(userId, startDate);
+        // Long ranges read pre-aggregated rollups so a chart never needs more than a few hundred points
+        LocalDate startDate = periodStart(period, today);
+        HistoryResolution resolution = periodResolution(period);
+
+        // The cursor is the last snapshot date of the previous page
+        LocalDate afterDate = startDate;
+        if (cursor != null) {
+            try {
+                afterDate = LocalDate.parse(cursor);
+            } catch (DateTimeParseException e) {
+                return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+            }
+        }
+
+        int pageSize = pageSize(limit);
+        PageRequest firstRows = PageRequest.of(0, pageSize + 1);
+        List<PortfolioHistoryDto> rows = resolution == HistoryResolution.DAILY
+                ? portfolioHistoryRepository.findPageByUserId(userId, afterDate, firstRows)
+                : portfolioHistoryRollupRepository.findPageByUserId(userId, resolution, afterDate, firstRows);
+        CursorPageDto<PortfolioHistoryDto> history =
+                CursorPageDto.of(rows, pageSize, row -> row.snapshotDate().toString());
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(history);
+    }
+
+    // Allocation History Endpoint
+    @GetMapping("/history/breakdown")
+    public ResponseEntity<CursorPageDto<PortfolioBreakdownDto>> getPortfolioBreakdown(
+            @RequestHeader("X-User-Id") String userId,
+            @RequestParam(defaultValue = "1M") String period,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int limit,
+            WebRequest request) {
+
+        LocalDate today = today();
+        if (notModified(request, userId, PortfolioVersionService.Scope.HISTORY, "breakdown-" + today)) {
+            return null;
+        }
+
+        LocalDate afterDate = periodStart(period, today);
+        HistoryResolution resolution = periodResolution(period);
+        if (cursor != null) {
+            try {
+                afterDate = LocalDate.parse(cursor);
+            } catch (DateTimeParseException e) {
+                return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+            }
+        }
+
+        int pageSize = pageSize(limit);
+        PageRequest firstRows = PageRequest.of(0, pageSize + 1);
+        List<PortfolioBreakdownDto> rows = resolution == HistoryResolution.DAILY
+                ? portfolioHistoryRepository.findBreakdownPageByUserId(userId, afterDate, firstRows)
+                : portfolioHistoryRollupRepository.findBreakdownPageByUserId(userId, resolution, afterDate, firstRows);
+        CursorPageDto<PortfolioBreakdownDto> breakdown =
+                CursorPageDto.of(rows, pageSize, row -> row.snapshotDate().toString());
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(breakdown);
+    }
+
+    // Returns Endpoint
+    @GetMapping("/returns")
+    public ResponseEntity<PortfolioReturnsDto> getPortfolioReturns(
+            @RequestHeader("X-User-Id") String userId) {
+        // Precomputed as snapshots land, so this is a single primary-key read
+        PortfolioReturns returns = portfolioReturnsService.getReturns(userId);
+        if (returns == null) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(PortfolioReturnsDto.of(returns));
+    }
+
+    // Projection Endpoint
+    @GetMapping("/projection")
+    public ResponseEntity<PortfolioProjectionDto> getPortfolioProjection(
+            @RequestHeader("X-User-Id") String userId,
+            @RequestParam(defaultValue = "10") int years,
+            @RequestParam(defaultValue = "20000") int paths,
+            WebRequest request) {
+        if (years < 1 || years > MAX_PROJECTION_YEARS || !PROJECTION_PATHS.contains(paths)) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        // A projection only changes with history, so a client that has seen this one skips the simulation
+        if (notModified(request, userId, PortfolioVersionService.Scope.HISTORY, "projection-" + years + "-" + paths)) {
+            return null;
+        }
+        PortfolioProjectionDto projection;
+        try {
+            projection = portfolioProjectionService.project(userId, years, paths);
+        } catch (RejectedExecutionException e) {
+            return new ResponseEntity<>(HttpStatus.TOO_MANY_REQUESTS);
+        }
+        if (projection == null) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(projection);
+    }
+
+    // Intraday History Endpoint
+    @GetMapping("/history/intraday")
+    public ResponseEntity<CursorPageDto<IntradayValueDto>> getIntradayHistory(
+            @RequestHeader("X-User-Id") String userId,
+            @RequestParam(defaultValue = "24") int hours,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int limit) {
+
+        // The cursor is the capture time of the last point on the previous page
+        LocalDateTime after = LocalDateTime.now(ZoneId.of(zone)).minusHours(Math.max(hours, 1));
+        if (cursor != null) {
+            try {
+                after = LocalDateTime.parse(cursor);
+            } catch (DateTimeParseException e) {
+                return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+            }
+        }
+
+        int pageSize = pageSize(limit);
+        List<IntradayValueDto> rows =
+                portfolioIntradaySnapshotRepository.findPageByUserId(userId, after, PageRequest.of(0, pageSize + 1));
+        CursorPageDto<IntradayValueDto> history =
+                CursorPageDto.of(rows, pageSize, row -> row.capturedAt().toString());
         return new ResponseEntity<>(history, HttpStatus.OK);
     }
+
+    /**
+     * Answers a conditional GET from the user's portfolio version alone. Returns true when the
+     * 304 has already been prepared; otherwise the ETag and Last-Modified headers are set for
+     * the full response.
+     */
+    private boolean notModified(WebRequest request, String userId, PortfolioVersionService.Scope scope, String variant) {
+        PortfolioVersionService.Validator validator = portfolioVersionService.validator(userId, scope);
+        String etag = variant == null ? validator.etag() : validator.etag() + "-" + variant;
+        return request.checkNotModified(etag, validator.lastModified());
+    }
+
+    private boolean isInternalCaller(String token) {
+        return !internalToken.isEmpty() && token != null
+                && MessageDigest.isEqual(internalToken.getBytes(StandardCharsets.UTF_8), token.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Today in the portfolio zone, the calendar snapshot dates are kept in.
+     */
+    private LocalDate today() {
+        return LocalDate.now(ZoneId.of(zone));
+    }
+
+    private static LocalDate periodStart(String period, LocalDate today) {
+        return switch (period) {
+            case "1W" -> today.minusWeeks(1);
+            case "6M" -> today.minusMonths(6);
+            case "1Y" -> today.minusYears(1);
+            case "5Y" -> today.minusYears(5);
+            case "ALL" -> LocalDate.EPOCH;
+            default -> today.minusMonths(1); // 1M
+        };
+    }
+
+    private static HistoryResolution periodResolution(String period) {
+        return switch (period) {
+            case "1Y", "5Y" -> HistoryResolution.WEEKLY;
+            case "ALL" -> HistoryResolution.MONTHLY;
+            default -> HistoryResolution.DAILY;
+        };
+    }
+
+    private static int pageSize(int limit) {
+        return Math.min(Math.max(limit, 1), MAX_PAGE_SIZE);
+    }
 }
@@ -0,0 +1,12 @@
+package com.expense.service.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+public class BulkDeleteRequestDto {
+    private List<String> externalIds;
+}
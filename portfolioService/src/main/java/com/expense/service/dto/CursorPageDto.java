@@ -0,0 +1,23 @@
+package com.expense.service.dto;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * One page of a keyset-paginated list. {@code nextCursor} is passed back as the
+ * {@code cursor} request parameter to fetch the following page, and is null on the last page.
+ */
+public record CursorPageDto<T>(List<T> items, String nextCursor) {
+
+    /**
+     * Builds a page from {@code rows} fetched with a limit of {@code limit + 1}; the extra
+     * row only signals that another page exists and is dropped.
+     */
+    public static <T> CursorPageDto<T> of(List<T> rows, int limit, Function<T, String> cursorOf) {
+        if (rows.size() <= limit) {
+            return new CursorPageDto<>(rows, null);
+        }
+        List<T> items = rows.subList(0, limit);
+        return new CursorPageDto<>(items, cursorOf.apply(items.get(limit - 1)));
+    }
+}
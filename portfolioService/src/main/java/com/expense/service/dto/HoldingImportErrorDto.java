@@ -0,0 +1,8 @@
+package com.expense.service.dto;
+
+/**
+ * A rejected import row. {@code row} is 1-based and counts data rows only, so the CSV header
+ * is not row 1.
+ */
+public record HoldingImportErrorDto(long row, String message) {
+}
@@ -0,0 +1,21 @@
+package com.expense.service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class HoldingImportResultDto {
+    private long rowsRead;
+    private long imported;
+    private long failed;
+    private List<HoldingImportErrorDto> errors;
+    // True when more rows failed than are listed in errors
+    private boolean errorsTruncated;
+    // Set when the file itself could not be read further; rows before that point were still imported
+    private String abortedReason;
+}
@@ -0,0 +1,32 @@
+package com.expense.service.dto;
+
+import com.expense.service.entities.HoldingType;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * One row of a bulk holdings import, in CSV (one column per field, with a header row) or
+ * JSON (an array of objects). Which fields are required depends on {@code type}:
+ * STOCK needs symbol, MUTUAL_FUND needs schemeCode, CRYPTO needs coinId and symbol (each with
+ * quantity and purchasePrice), and MANUAL needs assetName, assetType and investedValue.
+ */
+@Data
+@NoArgsConstructor
+public class HoldingImportRowDto {
+    private HoldingType type;
+    private String symbol;
+    private String exchange;
+    private String schemeCode;
+    private String coinId;
+    private String assetName;
+    private String assetType;
+    private BigDecimal quantity;
+    private BigDecimal purchasePrice;
+    private BigDecimal investedValue;
+    private BigDecimal currentValue;
+    private LocalDate purchaseDate;
+    private LocalDate maturityDate;
+}
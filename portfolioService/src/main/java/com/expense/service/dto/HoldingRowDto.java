@@ -0,0 +1,36 @@
+package com.expense.service.dto;
+
+import com.expense.service.entities.HoldingType;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * One holding of any type, read without hydrating the JPA entity.
+ *
+ * {@code instrumentId} is the priced identifier (stock symbol, scheme code, coin id) or the
+ * asset name for manual holdings; {@code detail} is the secondary label (stock exchange,
+ * crypto symbol, manual asset type). Quantity and purchase price are null for manual
+ * holdings, and current value is only set for them.
+ */
+public record HoldingRowDto(
+        HoldingType type,
+        String externalId,
+        String userId,
+        String instrumentId,
+        String detail,
+        BigDecimal quantity,
+        BigDecimal purchasePrice,
+        BigDecimal investedValue,
+        BigDecimal currentValue,
+        LocalDate purchaseDate,
+        LocalDate maturityDate) {
+
+    /**
+     * What a manual holding is worth: its current value, or the amount invested while no
+     * current value has been entered.
+     */
+    public BigDecimal manualValue() {
+        return currentValue != null ? currentValue : investedValue;
+    }
+}
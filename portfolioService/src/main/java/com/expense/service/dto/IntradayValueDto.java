@@ -0,0 +1,10 @@
+package com.expense.service.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+public record IntradayValueDto(
+        LocalDateTime capturedAt,
+        BigDecimal totalValue,
+        Boolean priceStale) {
+}
@@ -0,0 +1,12 @@
+package com.expense.service.dto;
+
+import java.math.BigDecimal;
+
+public record LiveAssetValueDto(
+        String externalId,
+        String type,
+        String name,
+        BigDecimal currentPrice,
+        BigDecimal currentValue,
+        BigDecimal pnl) {
+}
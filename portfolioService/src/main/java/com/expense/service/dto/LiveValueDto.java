@@ -0,0 +1,19 @@
+package com.expense.service.dto;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * One push on the live value stream. A {@code full} update lists every asset and replaces
+ * the client's state; otherwise {@code assets} holds only the assets whose value moved.
+ * {@code change} is the move in total value since the previous push on the same connection.
+ */
+public record LiveValueDto(
+        boolean full,
+        BigDecimal totalValue,
+        BigDecimal totalInvested,
+        BigDecimal change,
+        List<LiveAssetValueDto> assets,
+        Instant asOf) {
+}
@@ -0,0 +1,16 @@
+package com.expense.service.dto;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Date;
+
+public record ManualHoldingDto(
+        String externalId,
+        String assetName,
+        String assetType,
+        BigDecimal investedValue,
+        BigDecimal currentValue,
+        Date purchaseDate,
+        Date maturityDate,
+        Instant createdAt) {
+}
@@ -0,0 +1,14 @@
+package com.expense.service.dto;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Date;
+
+public record MutualFundHoldingDto(
+        String externalId,
+        String schemeCode,
+        BigDecimal quantity,
+        BigDecimal purchasePrice,
+        Date purchaseDate,
+        Instant createdAt) {
+}
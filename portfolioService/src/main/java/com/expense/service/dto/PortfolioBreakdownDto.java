@@ -0,0 +1,21 @@
+package com.expense.service.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * One point of the allocation series. Per-type fields are null for snapshots recorded before
+ * the breakdown was captured.
+ */
+public record PortfolioBreakdownDto(
+        LocalDate snapshotDate,
+        BigDecimal totalValue,
+        BigDecimal stockValue,
+        BigDecimal stockInvested,
+        BigDecimal mutualFundValue,
+        BigDecimal mutualFundInvested,
+        BigDecimal cryptoValue,
+        BigDecimal cryptoInvested,
+        BigDecimal manualValue,
+        BigDecimal manualInvested) {
+}
@@ -0,0 +1,10 @@
+package com.expense.service.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+public record PortfolioHistoryDto(
+        LocalDate snapshotDate,
+        BigDecimal totalValue,
+        Boolean priceStale) {
+}
@@ -0,0 +1,17 @@
+package com.expense.service.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Monte Carlo projection of the current portfolio, resampled from {@code historyDays} days of
+ * the user's own history ending at {@code basedOn}. Future contributions are not modelled.
+ */
+public record PortfolioProjectionDto(
+        LocalDate basedOn,
+        BigDecimal startValue,
+        int historyDays,
+        int paths,
+        List<ProjectionBandDto> bands) {
+}
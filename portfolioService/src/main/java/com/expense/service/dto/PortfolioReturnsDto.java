@@ -0,0 +1,31 @@
+package com.expense.service.dto;
+
+import com.expense.service.entities.PortfolioReturns;
+
+import java.time.LocalDate;
+
+/**
+ * A user's returns over the standard windows, as fractions. Time-weighted figures measure the
+ * investments; money-weighted ones also reflect when money was added or withdrawn.
+ */
+public record PortfolioReturnsDto(
+        LocalDate asOf,
+        LocalDate inceptionDate,
+        Double timeWeighted1M,
+        Double timeWeighted6M,
+        Double timeWeighted1Y,
+        Double timeWeightedAll,
+        Double moneyWeighted1M,
+        Double moneyWeighted6M,
+        Double moneyWeighted1Y,
+        Double moneyWeightedAll,
+        Double xirr,
+        LocalDate xirrAsOf) {
+
+    public static PortfolioReturnsDto of(PortfolioReturns returns) {
+        return new PortfolioReturnsDto(returns.getAsOf(), returns.getInceptionDate(),
+                returns.getTwr1m(), returns.getTwr6m(), returns.getTwr1y(), returns.getTwrAll(),
+                returns.getMwr1m(), returns.getMwr6m(), returns.getMwr1y(), returns.getMwrAll(),
+                returns.getXirr(), returns.getXirrAsOf());
+    }
+}
@@ -0,0 +1,23 @@
+package com.expense.service.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * One position valued at the current price. Unrealized PnL is against the FIFO cost basis of
+ * the lots still held; realized PnL is accumulated from past sales. Price, value and
+ * unrealized PnL are null for closed positions and when no price is known.
+ */
+public record PositionDto(
+        String externalId,
+        String type,
+        String instrumentId,
+        String detail,
+        BigDecimal quantity,
+        BigDecimal costBasis,
+        BigDecimal averagePrice,
+        int lotCount,
+        BigDecimal currentPrice,
+        BigDecimal currentValue,
+        BigDecimal unrealizedPnl,
+        BigDecimal realizedPnl) {
+}
@@ -0,0 +1,15 @@
+package com.expense.service.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Projected portfolio value at the end of one year, as percentiles across simulated paths.
+ */
+public record ProjectionBandDto(
+        int year,
+        BigDecimal p5,
+        BigDecimal p25,
+        BigDecimal p50,
+        BigDecimal p75,
+        BigDecimal p95) {
+}
@@ -0,0 +1,11 @@
+package com.expense.service.dto;
+
+import com.expense.service.entities.HoldingType;
+
+import java.math.BigDecimal;
+
+/**
+ * One user's cumulative FIFO realized PnL in one holding type, summed over its positions.
+ */
+public record RealizedPnlDto(String userId, HoldingType type, BigDecimal realizedPnl) {
+}
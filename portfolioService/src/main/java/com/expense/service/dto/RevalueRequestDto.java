@@ -0,0 +1,15 @@
+package com.expense.service.dto;
+
+import com.expense.service.entities.AssetClass;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+public class RevalueRequestDto {
+    // Instruments whose price changed, as stored on holdings (symbol, coin id, scheme code)
+    private Map<AssetClass, List<String>> instruments;
+}
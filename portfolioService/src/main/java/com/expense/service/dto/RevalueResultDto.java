@@ -0,0 +1,14 @@
+package com.expense.service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RevalueResultDto {
+    private int instruments;
+    private int portfoliosRevalued;
+    private int failed;
+}
@@ -0,0 +1,20 @@
+package com.expense.service.dto;
+
+import com.expense.service.entities.HoldingType;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Sale of part or all of a position. {@code instrumentId} is the stock symbol, scheme code
+ * or coin id, as on the lots.
+ */
+@Data
+@NoArgsConstructor
+public class SellRequestDto {
+    private HoldingType type;
+    private String instrumentId;
+    private BigDecimal quantity;
+    private BigDecimal price;
+}
@@ -0,0 +1,17 @@
+package com.expense.service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SellResultDto {
+    private BigDecimal quantitySold;
+    private BigDecimal costOfSold;
+    private BigDecimal realizedPnl;
+    private int lotsClosed;
+}
@@ -0,0 +1,15 @@
+package com.expense.service.dto;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Date;
+
+public record StockHoldingDto(
+        String externalId,
+        String symbol,
+        String exchange,
+        BigDecimal quantity,
+        BigDecimal purchasePrice,
+        Date purchaseDate,
+        Instant createdAt) {
+}
@@ -0,0 +1,25 @@
+package com.expense.service.entities;
+
+/**
+ * Market-priced asset classes served by marketdataservice, with the currency each one is quoted in.
+ */
+public enum AssetClass {
+    STOCK("INR"),
+    CRYPTO("USD"),
+    MUTUAL_FUND("INR"),
+    NPS("INR"),
+    METAL("INR");
+
+    private final String quoteCurrency;
+
+    AssetClass(String quoteCurrency) {
+        this.quoteCurrency = quoteCurrency;
+    }
+
+    /**
+     * ISO 4217 code of the prices marketdataservice returns for this class.
+     */
+    public String getQuoteCurrency() {
+        return quoteCurrency;
+    }
+}
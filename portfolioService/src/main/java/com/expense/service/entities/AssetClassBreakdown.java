@@ -0,0 +1,121 @@
+package com.expense.service.entities;
+
+import jakarta.persistence.Embeddable;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+
+/**
+ * Current value and invested amount of a portfolio per holding type, recorded with each
+ * snapshot so allocation over time is a plain range read. All fields are null on rows
+ * written before the breakdown was recorded.
+ *
+ * The realized fields are the cumulative FIFO realized PnL of each market-priced type. A sale
+ * lowers the invested amount by the cost of what was sold, so together they give what left the
+ * portfolio: the sale proceeds.
+ */
+@Embeddable
+@Getter
+@Setter
+@NoArgsConstructor
+public class AssetClassBreakdown {
+    private BigDecimal stockValue;
+    private BigDecimal stockInvested;
+    private BigDecimal mutualFundValue;
+    private BigDecimal mutualFundInvested;
+    private BigDecimal cryptoValue;
+    private BigDecimal cryptoInvested;
+    private BigDecimal manualValue;
+    private BigDecimal manualInvested;
+    private BigDecimal stockRealized;
+    private BigDecimal mutualFundRealized;
+    private BigDecimal cryptoRealized;
+
+    /**
+     * Adds one holding's value and invested amount to its type's totals.
+     */
+    public void add(HoldingType type, BigDecimal value, BigDecimal invested) {
+        switch (type) {
+            case STOCK -> {
+                stockValue = plus(stockValue, value);
+                stockInvested = plus(stockInvested, invested);
+            }
+            case MUTUAL_FUND -> {
+                mutualFundValue = plus(mutualFundValue, value);
+                mutualFundInvested = plus(mutualFundInvested, invested);
+            }
+            case CRYPTO -> {
+                cryptoValue = plus(cryptoValue, value);
+                cryptoInvested = plus(cryptoInvested, invested);
+            }
+            case MANUAL -> {
+                manualValue = plus(manualValue, value);
+                manualInvested = plus(manualInvested, invested);
+            }
+        }
+    }
+
+    /**
+     * Adds realized PnL to its type's total. Manual holdings are never sold, so have none.
+     */
+    public void addRealized(HoldingType type, BigDecimal amount) {
+        switch (type) {
+            case STOCK -> stockRealized = plus(stockRealized, amount);
+            case MUTUAL_FUND -> mutualFundRealized = plus(mutualFundRealized, amount);
+            case CRYPTO -> cryptoRealized = plus(cryptoRealized, amount);
+            case MANUAL -> throw new IllegalArgumentException("Manual holdings have no realized PnL");
+        }
+    }
+
+    /**
+     * A breakdown with every type at zero, so a recorded snapshot is distinguishable from one
+     * written before breakdowns existed.
+     */
+    public static AssetClassBreakdown zero() {
+        AssetClassBreakdown breakdown = new AssetClassBreakdown();
+        for (HoldingType type : HoldingType.values()) {
+            breakdown.add(type, BigDecimal.ZERO, BigDecimal.ZERO);
+            if (type != HoldingType.MANUAL) {
+                breakdown.addRealized(type, BigDecimal.ZERO);
+            }
+        }
+        return breakdown;
+    }
+
+    /**
+     * Invested amount across every type, or null when none was recorded.
+     */
+    public BigDecimal totalInvested() {
+        BigDecimal total = null;
+        for (BigDecimal invested : new BigDecimal[]{stockInvested, mutualFundInvested, cryptoInvested, manualInvested}) {
+            if (invested != null) {
+                total = plus(total, invested);
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Money put in less money taken out across every type: the invested amount less realized
+     * PnL, so a sale counts as withdrawing its proceeds. Null when no invested amount was
+     * recorded.
+     */
+    public BigDecimal netContributed() {
+        BigDecimal invested = totalInvested();
+        if (invested == null) {
+            return null;
+        }
+        for (BigDecimal realized : new BigDecimal[]{stockRealized, mutualFundRealized, cryptoRealized}) {
+            if (realized != null) {
+                invested = invested.subtract(realized);
+            }
+        }
+        return invested;
+    }
+
+    private static BigDecimal plus(BigDecimal total, BigDecimal amount) {
+        return total == null ? amount : total.add(amount);
+    }
+}
@@ -11,7 +11,7 @@ import java.time.Instant;
 import java.util.Date;
 import java.util.UUID;
 @Entity
-@Table(name = "crypto_holdings")
+@Table(name = "crypto_holdings", indexes = @Index(name = "idx_crypto_holdings_user_external", columnList = "userId, externalId"))
 @Getter
 @Setter
 @NoArgsConstructor
@@ -0,0 +1,27 @@
+package com.expense.service.entities;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+
+/**
+ * Granularity of a portfolio history series. Daily points live in {@code portfolio_history};
+ * weekly and monthly points are rollups of them in {@code portfolio_history_rollups}.
+ */
+public enum HistoryResolution {
+    DAILY,
+    WEEKLY,
+    MONTHLY;
+
+    /**
+     * First day of the period that {@code date} falls in: the Monday of its ISO week, or the
+     * first of its month.
+     */
+    public LocalDate periodStart(LocalDate date) {
+        return switch (this) {
+            case DAILY -> date;
+            case WEEKLY -> date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            case MONTHLY -> date.withDayOfMonth(1);
+        };
+    }
+}
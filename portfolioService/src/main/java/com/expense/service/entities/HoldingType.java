@@ -0,0 +1,22 @@
+package com.expense.service.entities;
+
+/**
+ * The four holding tables. Market-priced types map to the {@link AssetClass} used for
+ * price lookups; manual holdings carry their own current value and have none.
+ */
+public enum HoldingType {
+    STOCK(AssetClass.STOCK),
+    MUTUAL_FUND(AssetClass.MUTUAL_FUND),
+    CRYPTO(AssetClass.CRYPTO),
+    MANUAL(null);
+
+    private final AssetClass assetClass;
+
+    HoldingType(AssetClass assetClass) {
+        this.assetClass = assetClass;
+    }
+
+    public AssetClass getAssetClass() {
+        return assetClass;
+    }
+}
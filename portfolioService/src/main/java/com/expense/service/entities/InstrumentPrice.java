@@ -0,0 +1,38 @@
+package com.expense.service.entities;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * Latest market price per instrument. Kept current for every held instrument by the
+ * background refresher and written whenever a live price is fetched, so valuations read
+ * prices from here in bulk and fall back to them when marketdataservice is unavailable.
+ */
+@Entity
+@Table(name = "instrument_prices",
+        uniqueConstraints = @UniqueConstraint(name = "uk_instrument_prices_instrument", columnNames = {"assetClass", "instrumentId"}),
+        indexes = @Index(name = "idx_instrument_prices_as_of", columnList = "asOf"))
+@Getter
+@Setter
+@NoArgsConstructor
+public class InstrumentPrice {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 32)
+    private AssetClass assetClass;
+    @Column(nullable = false)
+    private String instrumentId;
+    @Column(nullable = false, precision = 19, scale = 4)
+    private BigDecimal price;
+    @Column(length = 3)
+    private String currency;
+    @Column(nullable = false)
+    private Instant asOf;
+}
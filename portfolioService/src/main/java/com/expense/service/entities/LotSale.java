@@ -0,0 +1,54 @@
+package com.expense.service.entities;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * The part of one lot consumed by a FIFO sale. Sold lots are reduced or deleted, so this is
+ * what keeps their purchase and the sale proceeds as cash flows for the lot-based XIRR.
+ */
+@Entity
+@Table(name = "lot_sales", indexes = @Index(name = "idx_lot_sales_user", columnList = "userId"))
+@Getter
+@Setter
+@NoArgsConstructor
+public class LotSale {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String userId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private HoldingType holdingType;
+
+    @Column(nullable = false)
+    private String instrumentId;
+
+    // The lot the quantity was taken from, which may since have been deleted
+    @Column(nullable = false)
+    private String lotExternalId;
+
+    // Null for lots recorded without a purchase date
+    private LocalDate purchaseDate;
+
+    @Column(nullable = false)
+    private LocalDate soldOn;
+
+    @Column(nullable = false, precision = 19, scale = 8)
+    private BigDecimal quantity;
+
+    @Column(nullable = false, precision = 19, scale = 4)
+    private BigDecimal cost;
+
+    @Column(nullable = false, precision = 19, scale = 4)
+    private BigDecimal proceeds;
+}
@@ -11,7 +11,7 @@ import java.time.Instant;
 import java.util.Date;
 import java.util.UUID;
 @Entity
-@Table(name = "mf_holdings")
+@Table(name = "mf_holdings", indexes = @Index(name = "idx_mf_holdings_user_external", columnList = "userId, externalId"))
 @Getter
 @Setter
 @NoArgsConstructor
@@ -5,7 +5,8 @@ import java.math.BigDecimal;
 import java.time.LocalDate;
 
 @Entity
-@Table(name = "portfolio_history")
+@Table(name = "portfolio_history",
+        uniqueConstraints = @UniqueConstraint(name = "uk_portfolio_history_user_date", columnNames = {"userId", "snapshotDate"}))
 public class PortfolioHistory {
 
     @Id
@@ -21,6 +22,23 @@ public class PortfolioHistory {
     @Column(nullable = false)
     private BigDecimal totalValue;
 
+    // True when at least one holding was valued from a last known (not live) price
+    private Boolean priceStale;
+
+    @Embedded
+    private AssetClassBreakdown breakdown;
+
+    // Running return inputs, chained from the user's previous row; null on rows written before
+    // returns were tracked. netInvested is the cumulative external flow, growthIndex the chained
+    // time-weighted growth since inception (1 on the first row), and flowDayWeight the running
+    // sum of each flow times its epoch day.
+    private BigDecimal netInvested;
+
+    private Double growthIndex;
+
+    @Column(precision = 38, scale = 2)
+    private BigDecimal flowDayWeight;
+
     public PortfolioHistory() {
     }
 
@@ -61,4 +79,44 @@ public class PortfolioHistory {
     public void setTotalValue(BigDecimal totalValue) {
         this.totalValue = totalValue;
     }
+
+    public Boolean getPriceStale() {
+        return priceStale;
+    }
+
+    public void setPriceStale(Boolean priceStale) {
+        this.priceStale = priceStale;
+    }
+
+    public AssetClassBreakdown getBreakdown() {
+        return breakdown;
+    }
+
+    public void setBreakdown(AssetClassBreakdown breakdown) {
+        this.breakdown = breakdown;
+    }
+
+    public BigDecimal getNetInvested() {
+        return netInvested;
+    }
+
+    public void setNetInvested(BigDecimal netInvested) {
+        this.netInvested = netInvested;
+    }
+
+    public Double getGrowthIndex() {
+        return growthIndex;
+    }
+
+    public void setGrowthIndex(Double growthIndex) {
+        this.growthIndex = growthIndex;
+    }
+
+    public BigDecimal getFlowDayWeight() {
+        return flowDayWeight;
+    }
+
+    public void setFlowDayWeight(BigDecimal flowDayWeight) {
+        this.flowDayWeight = flowDayWeight;
+    }
 }
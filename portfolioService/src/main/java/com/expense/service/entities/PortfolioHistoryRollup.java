@@ -0,0 +1,50 @@
+package com.expense.service.entities;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Closing portfolio value of one user for one week or month: the value of the latest daily
+ * snapshot inside the period, and the date it was taken. Kept up to date by the snapshot job
+ * alongside {@link PortfolioHistory}, so long-range charts never read daily rows.
+ */
+@Entity
+@Table(name = "portfolio_history_rollups",
+        uniqueConstraints = @UniqueConstraint(name = "uk_portfolio_history_rollups_period",
+                columnNames = {"userId", "resolution", "periodStart"}),
+        indexes = @Index(name = "idx_portfolio_history_rollups_close", columnList = "userId, resolution, closeDate"))
+@Getter
+@Setter
+@NoArgsConstructor
+public class PortfolioHistoryRollup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String userId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private HistoryResolution resolution;
+
+    @Column(nullable = false)
+    private LocalDate periodStart;
+
+    @Column(nullable = false)
+    private LocalDate closeDate;
+
+    @Column(nullable = false)
+    private BigDecimal totalValue;
+
+    private Boolean priceStale;
+
+    @Embedded
+    private AssetClassBreakdown breakdown;
+}
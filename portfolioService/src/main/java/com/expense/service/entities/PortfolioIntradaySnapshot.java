@@ -0,0 +1,43 @@
+package com.expense.service.entities;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Intraday portfolio value of one user, captured every few minutes during market hours.
+ * Kept apart from {@link PortfolioHistory} so the high-frequency rows never enter the daily
+ * table's range scans; older days are compacted into it and then deleted.
+ * {@code capturedAt} is local time in the market's zone ({@code portfolio.zone}).
+ */
+@Entity
+@Table(name = "portfolio_intraday_snapshots",
+        uniqueConstraints = @UniqueConstraint(name = "uk_portfolio_intraday_user_captured", columnNames = {"userId", "capturedAt"}),
+        indexes = @Index(name = "idx_portfolio_intraday_captured_at", columnList = "capturedAt"))
+@Getter
+@Setter
+@NoArgsConstructor
+public class PortfolioIntradaySnapshot {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String userId;
+
+    @Column(nullable = false)
+    private LocalDateTime capturedAt;
+
+    @Column(nullable = false)
+    private BigDecimal totalValue;
+
+    private Boolean priceStale;
+
+    @Embedded
+    private AssetClassBreakdown breakdown;
+}
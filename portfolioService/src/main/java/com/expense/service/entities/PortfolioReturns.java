@@ -0,0 +1,56 @@
+package com.expense.service.entities;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+
+/**
+ * Precomputed returns for one user, as fractions (0.12 is 12%). The time-weighted ({@code twr})
+ * and Modified Dietz money-weighted ({@code mwr}) figures are recomputed from the running
+ * fields of {@link PortfolioHistory} whenever a newer daily point lands, as of {@code asOf}.
+ * Windows longer than the recorded series fall back to since-inception figures, and both
+ * kinds are measured from the first tracked point: gains made before tracking started count
+ * towards neither.
+ *
+ * {@code xirr} is the annualised return of the current lots against their value, with the
+ * sold parts of earlier lots against their sale proceeds, refreshed both with each daily point
+ * and whenever a holding is added, removed or sold.
+ */
+@Entity
+@Table(name = "portfolio_returns")
+@Getter
+@Setter
+@NoArgsConstructor
+public class PortfolioReturns {
+
+    @Id
+    private String userId;
+
+    private LocalDate asOf;
+
+    // First day of the series the figures are measured over, and its value and invested amount
+    private LocalDate inceptionDate;
+    private BigDecimal inceptionValue;
+    private BigDecimal inceptionInvested;
+
+    private Double twr1m;
+    private Double twr6m;
+    private Double twr1y;
+    private Double twrAll;
+
+    private Double mwr1m;
+    private Double mwr6m;
+    private Double mwr1y;
+    private Double mwrAll;
+
+    private Double xirr;
+
+    private LocalDate xirrAsOf;
+
+    private Instant updatedAt;
+}
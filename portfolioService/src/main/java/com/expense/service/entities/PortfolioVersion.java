@@ -0,0 +1,34 @@
+package com.expense.service.entities;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * Change counters for one user's portfolio, used as HTTP validators. {@code holdingsVersion}
+ * moves whenever a holding is added, imported or deleted; {@code historyVersion} whenever a
+ * snapshot is written for the user. Users without a row are at version 0 for both.
+ */
+@Entity
+@Table(name = "portfolio_versions")
+@Getter
+@Setter
+@NoArgsConstructor
+public class PortfolioVersion {
+
+    @Id
+    private String userId;
+
+    @Column(nullable = false)
+    private long holdingsVersion;
+
+    private Instant holdingsModifiedAt;
+
+    @Column(nullable = false)
+    private long historyVersion;
+
+    private Instant historyModifiedAt;
+}
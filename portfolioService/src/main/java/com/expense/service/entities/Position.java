@@ -0,0 +1,61 @@
+package com.expense.service.entities;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * One user's aggregate position in one market-priced instrument, maintained from its lots so
+ * reads never re-sum them. {@code externalId} is the lowest external id among its lots (not
+ * necessarily the oldest lot), which the dashboard uses as the row id. A position whose lots
+ * have all been sold stays at zero quantity so its FIFO {@code realizedPnl} is kept.
+ */
+@Entity
+@Table(name = "positions",
+        uniqueConstraints = @UniqueConstraint(name = "uk_positions_user_instrument",
+                columnNames = {"userId", "holdingType", "instrumentId"}))
+@Getter
+@Setter
+@NoArgsConstructor
+public class Position {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String userId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private HoldingType holdingType;
+
+    @Column(nullable = false)
+    private String instrumentId;
+
+    // Stock exchange or crypto symbol, as on the lots
+    private String detail;
+
+    private String externalId;
+
+    @Column(nullable = false, precision = 19, scale = 8)
+    private BigDecimal quantity;
+
+    @Column(nullable = false, precision = 19, scale = 4)
+    private BigDecimal costBasis;
+
+    @Column(precision = 19, scale = 8)
+    private BigDecimal averagePrice;
+
+    @Column(nullable = false)
+    private int lotCount;
+
+    @Column(nullable = false, precision = 19, scale = 4)
+    private BigDecimal realizedPnl;
+
+    private Instant updatedAt;
+}
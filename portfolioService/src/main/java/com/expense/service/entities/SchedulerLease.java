@@ -0,0 +1,29 @@
+package com.expense.service.entities;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * Which instance runs a cluster-wide background job, and until when. The holder renews the
+ * lease while it keeps running the job; once it stops, another instance takes the job over
+ * after the lease expires.
+ */
+@Entity
+@Table(name = "scheduler_leases")
+@Getter
+@Setter
+@NoArgsConstructor
+public class SchedulerLease {
+
+    @Id
+    @Column(length = 64)
+    private String name;
+
+    private String ownerId;
+
+    private Instant leaseExpiresAt;
+}
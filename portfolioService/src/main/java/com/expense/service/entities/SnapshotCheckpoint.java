@@ -0,0 +1,53 @@
+package com.expense.service.entities;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+/**
+ * Progress of the daily snapshot run for one date. User ids are processed in ascending
+ * order, so {@code lastUserId} is enough to resume a run that stopped part way through.
+ *
+ * The row also records which instance runs the day (local mode) or coordinates it (distributed
+ * mode) and until when its lease holds; in distributed mode {@code lastUserId} is the last user
+ * handed to the work topic. Users that failed are kept as {@link SnapshotFailure}s, and the day
+ * is only COMPLETED once a run has got through every user without any left (in distributed
+ * mode, also without any {@link SnapshotPendingItem}s).
+ */
+@Entity
+@Table(name = "snapshot_checkpoints")
+@Getter
+@Setter
+@NoArgsConstructor
+public class SnapshotCheckpoint {
+
+    public enum Status { RUNNING, COMPLETED }
+
+    @Id
+    private LocalDate snapshotDate;
+
+    @Column(nullable = false)
+    private String lastUserId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Status status;
+
+    private String coordinatorId;
+
+    private Instant leaseExpiresAt;
+
+    @UpdateTimestamp
+    private Instant updatedAt;
+
+    public SnapshotCheckpoint(LocalDate snapshotDate) {
+        this.snapshotDate = snapshotDate;
+        this.lastUserId = "";
+        this.status = Status.RUNNING;
+    }
+}
@@ -0,0 +1,36 @@
+package com.expense.service.entities;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+/**
+ * A user whose daily snapshot could not be valued or written. The run's checkpoint moves past
+ * failed users so one bad portfolio cannot hold the rest back; they are retried from here until
+ * they succeed, and the day is only marked completed once none are left.
+ */
+@Entity
+@Table(name = "snapshot_failures",
+        uniqueConstraints = @UniqueConstraint(name = "uk_snapshot_failures_date_user",
+                columnNames = {"snapshotDate", "userId"}))
+@Getter
+@Setter
+@NoArgsConstructor
+public class SnapshotFailure {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private LocalDate snapshotDate;
+
+    @Column(nullable = false)
+    private String userId;
+
+    private Instant failedAt;
+}
@@ -0,0 +1,37 @@
+package com.expense.service.entities;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+/**
+ * A distributed snapshot work item that has been published but not yet finished by a worker,
+ * identified by its first user id. Workers delete the row once every user in the item is
+ * written or recorded as a {@link SnapshotFailure}, so the coordinator only marks the day
+ * completed when none are left.
+ */
+@Entity
+@Table(name = "snapshot_pending_items",
+        uniqueConstraints = @UniqueConstraint(name = "uk_snapshot_pending_items_date_user",
+                columnNames = {"snapshotDate", "firstUserId"}))
+@Getter
+@Setter
+@NoArgsConstructor
+public class SnapshotPendingItem {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private LocalDate snapshotDate;
+
+    @Column(nullable = false)
+    private String firstUserId;
+
+    private Instant publishedAt;
+}
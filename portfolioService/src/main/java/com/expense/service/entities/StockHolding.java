@@ -11,7 +11,7 @@ import java.time.Instant;
 import java.util.Date;
 import java.util.UUID;
 @Entity
-@Table(name = "stock_holdings")
+@Table(name = "stock_holdings", indexes = @Index(name = "idx_stock_holdings_user_external", columnList = "userId, externalId"))
 @Getter
 @Setter
 @NoArgsConstructor
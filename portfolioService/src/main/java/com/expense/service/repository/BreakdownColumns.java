@@ -0,0 +1,82 @@
+package com.expense.service.repository;
+
+import com.expense.service.entities.AssetClassBreakdown;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+
+/**
+ * SQL fragments for the {@link AssetClassBreakdown} columns shared by the daily, rollup and
+ * intraday tables, so every upsert writes the same column list.
+ */
+final class BreakdownColumns {
+
+    private static final List<String> FIELDS = List.of(
+            "stockValue", "stockInvested", "mutualFundValue", "mutualFundInvested",
+            "cryptoValue", "cryptoInvested", "manualValue", "manualInvested",
+            "stockRealized", "mutualFundRealized", "cryptoRealized");
+
+    private static final List<String> COLUMN_NAMES = List.of(
+            "stock_value", "stock_invested", "mutual_fund_value", "mutual_fund_invested",
+            "crypto_value", "crypto_invested", "manual_value", "manual_invested",
+            "stock_realized", "mutual_fund_realized", "crypto_realized");
+
+    /** {@code stock_value, stock_invested, ...} */
+    static final String COLUMNS = String.join(", ", COLUMN_NAMES);
+
+    /** {@code :stockValue, :stockInvested, ...} */
+    static final String PARAMS = FIELDS.stream().map(field -> ":" + field).collect(Collectors.joining(", "));
+
+    private BreakdownColumns() {
+    }
+
+    /**
+     * {@code ON DUPLICATE KEY UPDATE} assignments, one per column, built from the column name.
+     */
+    static String assignments(UnaryOperator<String> valueOf) {
+        return COLUMN_NAMES.stream()
+                .map(column -> column + " = " + valueOf.apply(column))
+                .collect(Collectors.joining(", "));
+    }
+
+    /** {@code prefix.stock_value, prefix.stock_invested, ...} */
+    static String qualified(String prefix) {
+        return COLUMN_NAMES.stream().map(column -> prefix + "." + column).collect(Collectors.joining(", "));
+    }
+
+    static MapSqlParameterSource addParams(MapSqlParameterSource params, AssetClassBreakdown breakdown) {
+        AssetClassBreakdown values = breakdown != null ? breakdown : new AssetClassBreakdown();
+        return params
+                .addValue("stockValue", values.getStockValue())
+                .addValue("stockInvested", values.getStockInvested())
+                .addValue("mutualFundValue", values.getMutualFundValue())
+                .addValue("mutualFundInvested", values.getMutualFundInvested())
+                .addValue("cryptoValue", values.getCryptoValue())
+                .addValue("cryptoInvested", values.getCryptoInvested())
+                .addValue("manualValue", values.getManualValue())
+                .addValue("manualInvested", values.getManualInvested())
+                .addValue("stockRealized", values.getStockRealized())
+                .addValue("mutualFundRealized", values.getMutualFundRealized())
+                .addValue("cryptoRealized", values.getCryptoRealized());
+    }
+
+    static AssetClassBreakdown read(ResultSet rs) throws SQLException {
+        AssetClassBreakdown breakdown = new AssetClassBreakdown();
+        breakdown.setStockValue(rs.getBigDecimal("stock_value"));
+        breakdown.setStockInvested(rs.getBigDecimal("stock_invested"));
+        breakdown.setMutualFundValue(rs.getBigDecimal("mutual_fund_value"));
+        breakdown.setMutualFundInvested(rs.getBigDecimal("mutual_fund_invested"));
+        breakdown.setCryptoValue(rs.getBigDecimal("crypto_value"));
+        breakdown.setCryptoInvested(rs.getBigDecimal("crypto_invested"));
+        breakdown.setManualValue(rs.getBigDecimal("manual_value"));
+        breakdown.setManualInvested(rs.getBigDecimal("manual_invested"));
+        breakdown.setStockRealized(rs.getBigDecimal("stock_realized"));
+        breakdown.setMutualFundRealized(rs.getBigDecimal("mutual_fund_realized"));
+        breakdown.setCryptoRealized(rs.getBigDecimal("crypto_realized"));
+        return breakdown;
+    }
+}
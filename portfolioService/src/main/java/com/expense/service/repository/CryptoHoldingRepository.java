@@ -1,12 +1,39 @@
 package com.expense.service.repository;
 
+import com.expense.service.dto.CryptoHoldingDto;
 import com.expense.service.entities.CryptoHolding;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface CryptoHoldingRepository extends CrudRepository<CryptoHolding, Long> {
     List<CryptoHolding> findByUserId(String userId);
+
+    // Keyset page over the (userId, externalId) index; pass "" as afterExternalId for the first page
+    @Query("SELECT new com.expense.service.dto.CryptoHoldingDto(c.externalId, c.coinId, c.symbol, c.quantity, c.purchasePrice, c.purchaseDate, c.createdAt) " +
+            "FROM CryptoHolding c WHERE c.userId = :userId AND c.externalId > :afterExternalId ORDER BY c.externalId")
+    List<CryptoHoldingDto> findPageByUserId(@Param("userId") String userId,
+                                            @Param("afterExternalId") String afterExternalId,
+                                            Pageable pageable);
+
+    @Query("SELECT DISTINCT c.coinId FROM CryptoHolding c")
+    List<String> findDistinctCoinIds();
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM CryptoHolding c WHERE c.userId = :userId AND c.externalId = :externalId")
+    int deleteByUserIdAndExternalId(@Param("userId") String userId, @Param("externalId") String externalId);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM CryptoHolding c WHERE c.userId = :userId AND c.externalId IN :externalIds")
+    int deleteByUserIdAndExternalIdIn(@Param("userId") String userId, @Param("externalIds") Collection<String> externalIds);
 }
@@ -0,0 +1,84 @@
+package com.expense.service.repository;
+
+import com.expense.service.dto.HoldingImportRowDto;
+import com.expense.service.entities.HoldingType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Batched inserts for bulk holding imports. Rows are written through JDBC batches rather
+ * than {@code save()}, so a batch costs one round trip (multi-row INSERT with
+ * {@code rewriteBatchedStatements=true}) instead of one per holding.
+ */
+@Repository
+public class HoldingImportJdbcRepository {
+
+    private static final Map<HoldingType, String> INSERTS = new EnumMap<>(Map.of(
+            HoldingType.STOCK, """
+                    INSERT INTO stock_holdings (external_id, user_id, symbol, exchange, quantity, purchase_price,
+                                                purchase_date, created_at, updated_at)
+                    VALUES (:externalId, :userId, :symbol, :exchange, :quantity, :purchasePrice,
+                            :purchaseDate, :now, :now)
+                    """,
+            HoldingType.MUTUAL_FUND, """
+                    INSERT INTO mf_holdings (external_id, user_id, scheme_code, quantity, purchase_price,
+                                             purchase_date, created_at, updated_at)
+                    VALUES (:externalId, :userId, :schemeCode, :quantity, :purchasePrice,
+                            :purchaseDate, :now, :now)
+                    """,
+            HoldingType.CRYPTO, """
+                    INSERT INTO crypto_holdings (external_id, user_id, coin_id, symbol, quantity, purchase_price,
+                                                 purchase_date, created_at, updated_at)
+                    VALUES (:externalId, :userId, :coinId, :symbol, :quantity, :purchasePrice,
+                            :purchaseDate, :now, :now)
+                    """,
+            HoldingType.MANUAL, """
+                    INSERT INTO manual_holdings (external_id, user_id, asset_name, asset_type, invested_value,
+                                                 current_value, purchase_date, maturity_date, created_at, updated_at)
+                    VALUES (:externalId, :userId, :assetName, :assetType, :investedValue,
+                            :currentValue, :purchaseDate, :maturityDate, :now, :now)
+                    """));
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public HoldingImportJdbcRepository(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public int batchInsert(HoldingType type, String userId, List<HoldingImportRowDto> rows) {
+        Timestamp now = Timestamp.from(Instant.now());
+        SqlParameterSource[] batch = new SqlParameterSource[rows.size()];
+        for (int i = 0; i < rows.size(); i++) {
+            HoldingImportRowDto row = rows.get(i);
+            batch[i] = new MapSqlParameterSource()
+                    .addValue("externalId", UUID.randomUUID().toString())
+                    .addValue("userId", userId)
+                    .addValue("symbol", row.getSymbol())
+                    .addValue("exchange", row.getExchange())
+                    .addValue("schemeCode", row.getSchemeCode())
+                    .addValue("coinId", row.getCoinId())
+                    .addValue("assetName", row.getAssetName())
+                    .addValue("assetType", row.getAssetType())
+                    .addValue("quantity", row.getQuantity())
+                    .addValue("purchasePrice", row.getPurchasePrice())
+                    .addValue("investedValue", row.getInvestedValue())
+                    .addValue("currentValue", row.getCurrentValue())
+                    .addValue("purchaseDate", row.getPurchaseDate())
+                    .addValue("maturityDate", row.getMaturityDate())
+                    .addValue("now", now);
+        }
+        jdbcTemplate.batchUpdate(INSERTS.get(type), batch);
+        return rows.size();
+    }
+}
@@ -0,0 +1,167 @@
+package com.expense.service.repository;
+
+import com.expense.service.dto.HoldingRowDto;
+import com.expense.service.dto.RealizedPnlDto;
+import com.expense.service.entities.HoldingType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Read-only queries that span all four holding tables. These are plain SQL rather than
+ * Spring Data methods because no single entity owns the result.
+ */
+@Repository
+public class HoldingQueryRepository {
+
+    // Each branch walks its table's user_id index from the cursor and stops after :limit distinct
+    // ids, so the union holds at most four pages and the outer ORDER BY/LIMIT merges them. A page
+    // therefore costs the same however many users come after it.
+    private static final String DISTINCT_USER_IDS_AFTER = """
+            SELECT u.user_id FROM (
+                (SELECT DISTINCT user_id FROM stock_holdings WHERE user_id > :afterUserId
+                 ORDER BY user_id LIMIT :limit)
+                UNION
+                (SELECT DISTINCT user_id FROM mf_holdings WHERE user_id > :afterUserId
+                 ORDER BY user_id LIMIT :limit)
+                UNION
+                (SELECT DISTINCT user_id FROM crypto_holdings WHERE user_id > :afterUserId
+                 ORDER BY user_id LIMIT :limit)
+                UNION
+                (SELECT DISTINCT user_id FROM manual_holdings WHERE user_id > :afterUserId
+                 ORDER BY user_id LIMIT :limit)
+            ) u
+            ORDER BY u.user_id
+            LIMIT :limit
+            """;
+
+    private static final String HOLDINGS_FOR_USERS = """
+            SELECT 'STOCK' AS holding_type, external_id, user_id, symbol AS instrument_id, exchange AS detail,
+                   quantity, purchase_price, quantity * purchase_price AS invested_value, NULL AS current_value,
+                   purchase_date, NULL AS maturity_date
+            FROM stock_holdings WHERE user_id IN (:userIds)
+            UNION ALL
+            SELECT 'MUTUAL_FUND', external_id, user_id, scheme_code, NULL,
+                   quantity, purchase_price, quantity * purchase_price, NULL,
+                   purchase_date, NULL
+            FROM mf_holdings WHERE user_id IN (:userIds)
+            UNION ALL
+            SELECT 'CRYPTO', external_id, user_id, coin_id, symbol,
+                   quantity, purchase_price, quantity * purchase_price, NULL,
+                   purchase_date, NULL
+            FROM crypto_holdings WHERE user_id IN (:userIds)
+            UNION ALL
+            SELECT 'MANUAL', external_id, user_id, asset_name, asset_type,
+                   NULL, NULL, invested_value, current_value,
+                   purchase_date, maturity_date
+            FROM manual_holdings WHERE user_id IN (:userIds)
+            """;
+
+    // One row per open position instead of per lot; manual holdings have no positions and are read as they are
+    private static final String POSITIONS_FOR_USERS = """
+            SELECT holding_type, external_id, user_id, instrument_id, detail,
+                   quantity, average_price AS purchase_price, cost_basis AS invested_value, NULL AS current_value,
+                   NULL AS purchase_date, NULL AS maturity_date
+            FROM positions WHERE user_id IN (:userIds) AND lot_count > 0
+            UNION ALL
+            SELECT 'MANUAL', external_id, user_id, asset_name, asset_type,
+                   NULL, NULL, invested_value, current_value,
+                   purchase_date, maturity_date
+            FROM manual_holdings WHERE user_id IN (:userIds)
+            """;
+
+    // Closed positions are included, since they keep the PnL of what was sold
+    private static final String REALIZED_FOR_USERS = """
+            SELECT user_id, holding_type, SUM(realized_pnl) AS realized_pnl
+            FROM positions WHERE user_id IN (:userIds) AND realized_pnl <> 0
+            GROUP BY user_id, holding_type
+            """;
+
+    private static final RowMapper<HoldingRowDto> HOLDING_ROW_MAPPER = (rs, rowNum) -> new HoldingRowDto(
+            HoldingType.valueOf(rs.getString("holding_type")),
+            rs.getString("external_id"),
+            rs.getString("user_id"),
+            rs.getString("instrument_id"),
+            rs.getString("detail"),
+            rs.getBigDecimal("quantity"),
+            rs.getBigDecimal("purchase_price"),
+            rs.getBigDecimal("invested_value"),
+            rs.getBigDecimal("current_value"),
+            toLocalDate(rs.getDate("purchase_date")),
+            toLocalDate(rs.getDate("maturity_date")));
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public HoldingQueryRepository(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Returns up to {@code limit} distinct user ids that own at least one holding, in ascending
+     * order, starting strictly after {@code afterUserId}. Pass an empty string for the first page.
+     */
+    public List<String> findUserIdsAfter(String afterUserId, int limit) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("afterUserId", afterUserId)
+                .addValue("limit", limit);
+        return jdbcTemplate.queryForList(DISTINCT_USER_IDS_AFTER, params, String.class);
+    }
+
+    /**
+     * All holdings of one user, across the four tables, in a single round trip.
+     */
+    public List<HoldingRowDto> findByUserId(String userId) {
+        return findByUserIds(List.of(userId));
+    }
+
+    /**
+     * All holdings of a batch of users in a single round trip. Callers should keep the batch
+     * to a few hundred ids so the IN lists stay small.
+     */
+    public List<HoldingRowDto> findByUserIds(Collection<String> userIds) {
+        if (userIds.isEmpty()) {
+            return List.of();
+        }
+        return jdbcTemplate.query(HOLDINGS_FOR_USERS, new MapSqlParameterSource("userIds", userIds), HOLDING_ROW_MAPPER);
+    }
+
+    /**
+     * Like {@link #findByUserIds}, but with the lots of each instrument already merged into
+     * its position: quantity and invested value are the totals, and the purchase price is the
+     * average. Purchase dates are not carried.
+     */
+    public List<HoldingRowDto> findPositionsByUserIds(Collection<String> userIds) {
+        if (userIds.isEmpty()) {
+            return List.of();
+        }
+        return jdbcTemplate.query(POSITIONS_FOR_USERS, new MapSqlParameterSource("userIds", userIds), HOLDING_ROW_MAPPER);
+    }
+
+    public List<HoldingRowDto> findPositionsByUserId(String userId) {
+        return findPositionsByUserIds(List.of(userId));
+    }
+
+    /**
+     * Realized PnL of a batch of users per holding type; types with none are left out.
+     */
+    public List<RealizedPnlDto> findRealizedByUserIds(Collection<String> userIds) {
+        if (userIds.isEmpty()) {
+            return List.of();
+        }
+        return jdbcTemplate.query(REALIZED_FOR_USERS, new MapSqlParameterSource("userIds", userIds),
+                (rs, rowNum) -> new RealizedPnlDto(rs.getString("user_id"),
+                        HoldingType.valueOf(rs.getString("holding_type")), rs.getBigDecimal("realized_pnl")));
+    }
+
+    private static LocalDate toLocalDate(Date date) {
+        return date == null ? null : date.toLocalDate();
+    }
+}
@@ -0,0 +1,48 @@
+package com.expense.service.repository;
+
+import com.expense.service.entities.AssetClass;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Batched upserts into {@code instrument_prices}, keyed on (asset_class, instrument_id).
+ */
+@Repository
+public class InstrumentPriceJdbcRepository {
+
+    private static final String UPSERT_PRICE = """
+            INSERT INTO instrument_prices (asset_class, instrument_id, price, currency, as_of)
+            VALUES (:assetClass, :instrumentId, :price, :currency, :asOf)
+            ON DUPLICATE KEY UPDATE price = VALUES(price), currency = VALUES(currency), as_of = VALUES(as_of)
+            """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public InstrumentPriceJdbcRepository(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public int batchUpsert(AssetClass assetClass, Map<String, BigDecimal> prices, Instant asOf) {
+        SqlParameterSource[] batch = prices.entrySet().stream()
+                .map(price -> new MapSqlParameterSource()
+                        .addValue("assetClass", assetClass.name())
+                        .addValue("instrumentId", price.getKey())
+                        .addValue("price", price.getValue())
+                        .addValue("currency", assetClass.getQuoteCurrency())
+                        .addValue("asOf", Timestamp.from(asOf)))
+                .toArray(SqlParameterSource[]::new);
+        if (batch.length > 0) {
+            jdbcTemplate.batchUpdate(UPSERT_PRICE, batch);
+        }
+        return batch.length;
+    }
+}
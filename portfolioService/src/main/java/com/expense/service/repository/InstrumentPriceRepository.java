@@ -0,0 +1,17 @@
+package com.expense.service.repository;
+
+import com.expense.service.entities.AssetClass;
+import com.expense.service.entities.InstrumentPrice;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface InstrumentPriceRepository extends CrudRepository<InstrumentPrice, Long> {
+    List<InstrumentPrice> findByAssetClassAndInstrumentIdIn(AssetClass assetClass, Collection<String> instrumentIds);
+
+    List<InstrumentPrice> findByAsOfAfter(Instant since);
+}
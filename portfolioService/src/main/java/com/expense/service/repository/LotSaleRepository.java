@@ -0,0 +1,13 @@
+package com.expense.service.repository;
+
+import com.expense.service.entities.LotSale;
+import org.springframework.data.repository.CrudRepository;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface LotSaleRepository extends CrudRepository<LotSale, Long> {
+    List<LotSale> findByUserId(String userId);
+
+    List<LotSale> findByUserIdIn(Collection<String> userIds);
+}
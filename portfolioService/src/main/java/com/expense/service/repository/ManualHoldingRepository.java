@@ -1,12 +1,36 @@
 package com.expense.service.repository;
 
+import com.expense.service.dto.ManualHoldingDto;
 import com.expense.service.entities.ManualHolding;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface ManualHoldingRepository extends CrudRepository<ManualHolding, Long> {
     List<ManualHolding> findByUserId(String userId);
+
+    // Keyset page over the (userId, externalId) index; pass "" as afterExternalId for the first page
+    @Query("SELECT new com.expense.service.dto.ManualHoldingDto(m.externalId, m.assetName, m.assetType, m.investedValue, m.currentValue, m.purchaseDate, m.maturityDate, m.createdAt) " +
+            "FROM ManualHolding m WHERE m.userId = :userId AND m.externalId > :afterExternalId ORDER BY m.externalId")
+    List<ManualHoldingDto> findPageByUserId(@Param("userId") String userId,
+                                            @Param("afterExternalId") String afterExternalId,
+                                            Pageable pageable);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM ManualHolding m WHERE m.userId = :userId AND m.externalId = :externalId")
+    int deleteByUserIdAndExternalId(@Param("userId") String userId, @Param("externalId") String externalId);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM ManualHolding m WHERE m.userId = :userId AND m.externalId IN :externalIds")
+    int deleteByUserIdAndExternalIdIn(@Param("userId") String userId, @Param("externalIds") Collection<String> externalIds);
 }
@@ -1,12 +1,39 @@
 package com.expense.service.repository;
 
+import com.expense.service.dto.MutualFundHoldingDto;
 import com.expense.service.entities.MutualFundHolding;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface MutualFundHoldingRepository extends CrudRepository<MutualFundHolding, Long> {
     List<MutualFundHolding> findByUserId(String userId);
+
+    // Keyset page over the (userId, externalId) index; pass "" as afterExternalId for the first page
+    @Query("SELECT new com.expense.service.dto.MutualFundHoldingDto(m.externalId, m.schemeCode, m.quantity, m.purchasePrice, m.purchaseDate, m.createdAt) " +
+            "FROM MutualFundHolding m WHERE m.userId = :userId AND m.externalId > :afterExternalId ORDER BY m.externalId")
+    List<MutualFundHoldingDto> findPageByUserId(@Param("userId") String userId,
+                                                @Param("afterExternalId") String afterExternalId,
+                                                Pageable pageable);
+
+    @Query("SELECT DISTINCT m.schemeCode FROM MutualFundHolding m")
+    List<String> findDistinctSchemeCodes();
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM MutualFundHolding m WHERE m.userId = :userId AND m.externalId = :externalId")
+    int deleteByUserIdAndExternalId(@Param("userId") String userId, @Param("externalId") String externalId);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM MutualFundHolding m WHERE m.userId = :userId AND m.externalId IN :externalIds")
+    int deleteByUserIdAndExternalIdIn(@Param("userId") String userId, @Param("externalIds") Collection<String> externalIds);
 }
@@ -0,0 +1,198 @@
+package com.expense.service.repository;
+
+import com.expense.service.entities.HistoryResolution;
+import com.expense.service.entities.PortfolioHistory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bulk writes for {@link PortfolioHistory}. Inserts go through a JDBC batch and let the
+ * database assign the IDENTITY id, so no per-row generated-key round trip is needed; with
+ * {@code rewriteBatchedStatements=true} the MySQL driver sends each batch as multi-row INSERTs.
+ * Rows are upserted on the (user_id, snapshot_date) unique key, so re-running a day replaces
+ * that day's value instead of adding a second point.
+ *
+ * Every daily batch also upserts the weekly and monthly rollups the rows fall into, so the
+ * rollups are never behind the daily series. The per-type breakdown travels with the total
+ * into both; the running return fields are only kept on the daily rows.
+ */
+@Repository
+public class PortfolioHistoryJdbcRepository {
+
+    private static final String UPSERT_SNAPSHOT = """
+            INSERT INTO portfolio_history (user_id, snapshot_date, total_value, price_stale,
+                                           net_invested, growth_index, flow_day_weight, %s)
+            VALUES (:userId, :snapshotDate, :totalValue, :priceStale, :netInvested, :growthIndex, :flowDayWeight, %s)
+            ON DUPLICATE KEY UPDATE total_value = VALUES(total_value), price_stale = VALUES(price_stale),
+                net_invested = VALUES(net_invested), growth_index = VALUES(growth_index),
+                flow_day_weight = VALUES(flow_day_weight), %s
+            """.formatted(BreakdownColumns.COLUMNS, BreakdownColumns.PARAMS,
+            BreakdownColumns.assignments(column -> "VALUES(" + column + ")"));
+
+    // A rollup holds the latest daily value in its period. MySQL applies the assignments left
+    // to right, so close_date has to be moved last for the comparisons above it to see the old value.
+    private static final String ROLLUP_ON_DUPLICATE = """
+            ON DUPLICATE KEY UPDATE
+                total_value = IF(VALUES(close_date) >= close_date, VALUES(total_value), total_value),
+                price_stale = IF(VALUES(close_date) >= close_date, VALUES(price_stale), price_stale),
+                %s,
+                close_date = GREATEST(close_date, VALUES(close_date))
+            """.formatted(BreakdownColumns.assignments(
+            column -> "IF(VALUES(close_date) >= close_date, VALUES(" + column + "), " + column + ")"));
+
+    private static final String UPSERT_ROLLUP = """
+            INSERT INTO portfolio_history_rollups (user_id, resolution, period_start, close_date, total_value, price_stale, %s)
+            VALUES (:userId, :resolution, :periodStart, :snapshotDate, :totalValue, :priceStale, %s)
+            """.formatted(BreakdownColumns.COLUMNS, BreakdownColumns.PARAMS) + ROLLUP_ON_DUPLICATE;
+
+    // Rebuilds one resolution from the daily rows: each period's row is the daily row on its last
+    // date. The remaining %s is the period start expression, filled in per resolution.
+    private static final String REBUILD_ROLLUPS = """
+            INSERT INTO portfolio_history_rollups (user_id, resolution, period_start, close_date, total_value, price_stale, %s)
+            SELECT h.user_id, :resolution, p.period_start, h.snapshot_date, h.total_value, h.price_stale, %s
+            FROM portfolio_history h
+            JOIN (
+                SELECT user_id, %%s AS period_start, MAX(snapshot_date) AS close_date
+                FROM portfolio_history
+                GROUP BY user_id, period_start
+            ) p ON p.user_id = h.user_id AND p.close_date = h.snapshot_date
+            """.formatted(BreakdownColumns.COLUMNS, BreakdownColumns.qualified("h")) + ROLLUP_ON_DUPLICATE;
+
+    // Each user's latest row before a date, with the running return fields
+    private static final String LATEST_BEFORE = """
+            SELECT h.user_id, h.snapshot_date, h.total_value, h.net_invested, h.growth_index, h.flow_day_weight
+            FROM portfolio_history h
+            JOIN (
+                SELECT user_id, MAX(snapshot_date) AS snapshot_date
+                FROM portfolio_history
+                WHERE user_id IN (:userIds) AND snapshot_date < :before
+                GROUP BY user_id
+            ) p ON p.user_id = h.user_id AND p.snapshot_date = h.snapshot_date
+            """;
+
+    private static final String SERIES_SINCE = """
+            SELECT user_id, snapshot_date, total_value, %s
+            FROM portfolio_history
+            WHERE user_id = :userId AND snapshot_date >= :since
+            ORDER BY snapshot_date
+            """.formatted(BreakdownColumns.COLUMNS);
+
+    private static final String WEEK_START = "DATE_SUB(snapshot_date, INTERVAL WEEKDAY(snapshot_date) DAY)";
+    private static final String MONTH_START = "DATE_SUB(snapshot_date, INTERVAL DAYOFMONTH(snapshot_date) - 1 DAY)";
+
+    private static final List<HistoryResolution> ROLLUP_RESOLUTIONS =
+            List.of(HistoryResolution.WEEKLY, HistoryResolution.MONTHLY);
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public PortfolioHistoryJdbcRepository(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public int batchUpsert(List<PortfolioHistory> snapshots) {
+        SqlParameterSource[] batch = new SqlParameterSource[snapshots.size()];
+        for (int i = 0; i < snapshots.size(); i++) {
+            batch[i] = toParams(snapshots.get(i));
+        }
+        jdbcTemplate.batchUpdate(UPSERT_SNAPSHOT, batch);
+
+        for (HistoryResolution resolution : ROLLUP_RESOLUTIONS) {
+            SqlParameterSource[] rollups = new SqlParameterSource[snapshots.size()];
+            for (int i = 0; i < snapshots.size(); i++) {
+                PortfolioHistory snapshot = snapshots.get(i);
+                rollups[i] = toParams(snapshot)
+                        .addValue("resolution", resolution.name())
+                        .addValue("periodStart", resolution.periodStart(snapshot.getSnapshotDate()));
+            }
+            jdbcTemplate.batchUpdate(UPSERT_ROLLUP, rollups);
+        }
+        return snapshots.size();
+    }
+
+    /**
+     * The latest row of each user strictly before {@code before}, carrying the value and the
+     * running return fields. Users without one are absent from the map.
+     */
+    public Map<String, PortfolioHistory> findLatestBefore(Collection<String> userIds, LocalDate before) {
+        Map<String, PortfolioHistory> latest = new HashMap<>();
+        if (userIds.isEmpty()) {
+            return latest;
+        }
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("userIds", userIds)
+                .addValue("before", before);
+        jdbcTemplate.query(LATEST_BEFORE, params, rs -> {
+            PortfolioHistory row = new PortfolioHistory(rs.getString("user_id"),
+                    rs.getObject("snapshot_date", LocalDate.class), rs.getBigDecimal("total_value"));
+            row.setNetInvested(rs.getBigDecimal("net_invested"));
+            double growthIndex = rs.getDouble("growth_index");
+            row.setGrowthIndex(rs.wasNull() ? null : growthIndex);
+            row.setFlowDayWeight(rs.getBigDecimal("flow_day_weight"));
+            latest.put(row.getUserId(), row);
+        });
+        return latest;
+    }
+
+    /**
+     * One user's daily values with their per-type breakdown, oldest first, from {@code since}.
+     */
+    public List<PortfolioHistory> findSeriesSince(String userId, LocalDate since) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("userId", userId)
+                .addValue("since", since);
+        return jdbcTemplate.query(SERIES_SINCE, params, (rs, rowNum) -> {
+            PortfolioHistory row = new PortfolioHistory(rs.getString("user_id"),
+                    rs.getObject("snapshot_date", LocalDate.class), rs.getBigDecimal("total_value"));
+            row.setBreakdown(BreakdownColumns.read(rs));
+            return row;
+        });
+    }
+
+    public boolean hasSnapshots() {
+        return !jdbcTemplate.getJdbcTemplate()
+                .queryForList("SELECT 1 FROM portfolio_history LIMIT 1", Integer.class).isEmpty();
+    }
+
+    public boolean hasRollups() {
+        return !jdbcTemplate.getJdbcTemplate()
+                .queryForList("SELECT 1 FROM portfolio_history_rollups LIMIT 1", Integer.class).isEmpty();
+    }
+
+    /**
+     * Recomputes the weekly and monthly rollups of every user from {@code portfolio_history}.
+     * Only needed once, for history recorded before rollups existed.
+     *
+     * @return rows inserted or updated
+     */
+    public int rebuildRollups() {
+        int rows = 0;
+        for (HistoryResolution resolution : ROLLUP_RESOLUTIONS) {
+            String periodStart = resolution == HistoryResolution.WEEKLY ? WEEK_START : MONTH_START;
+            rows += jdbcTemplate.update(REBUILD_ROLLUPS.formatted(periodStart),
+                    new MapSqlParameterSource("resolution", resolution.name()));
+        }
+        return rows;
+    }
+
+    private static MapSqlParameterSource toParams(PortfolioHistory snapshot) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("userId", snapshot.getUserId())
+                .addValue("snapshotDate", snapshot.getSnapshotDate())
+                .addValue("totalValue", snapshot.getTotalValue())
+                .addValue("priceStale", snapshot.getPriceStale())
+                .addValue("netInvested", snapshot.getNetInvested())
+                .addValue("growthIndex", snapshot.getGrowthIndex())
+                .addValue("flowDayWeight", snapshot.getFlowDayWeight());
+        return BreakdownColumns.addParams(params, snapshot.getBreakdown());
+    }
+}
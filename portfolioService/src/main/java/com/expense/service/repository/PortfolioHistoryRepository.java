@@ -1,11 +1,31 @@
 package com.expense.service.repository;
 
+import com.expense.service.dto.PortfolioBreakdownDto;
+import com.expense.service.dto.PortfolioHistoryDto;
 import com.expense.service.entities.PortfolioHistory;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDate;
 import java.util.List;
 
 public interface PortfolioHistoryRepository extends CrudRepository<PortfolioHistory, Long> {
-    List<PortfolioHistory> findByUserIdAndSnapshotDateAfter(String userId, LocalDate startDate);
+
+    // Keyset page over the (userId, snapshotDate) unique index, oldest first
+    @Query("SELECT new com.expense.service.dto.PortfolioHistoryDto(h.snapshotDate, h.totalValue, h.priceStale) " +
+            "FROM PortfolioHistory h WHERE h.userId = :userId AND h.snapshotDate > :afterDate ORDER BY h.snapshotDate")
+    List<PortfolioHistoryDto> findPageByUserId(@Param("userId") String userId,
+                                               @Param("afterDate") LocalDate afterDate,
+                                               Pageable pageable);
+
+    // Same keyset page as findPageByUserId, with the per-type breakdown columns
+    @Query("SELECT new com.expense.service.dto.PortfolioBreakdownDto(h.snapshotDate, h.totalValue, " +
+            "h.breakdown.stockValue, h.breakdown.stockInvested, h.breakdown.mutualFundValue, h.breakdown.mutualFundInvested, " +
+            "h.breakdown.cryptoValue, h.breakdown.cryptoInvested, h.breakdown.manualValue, h.breakdown.manualInvested) " +
+            "FROM PortfolioHistory h WHERE h.userId = :userId AND h.snapshotDate > :afterDate ORDER BY h.snapshotDate")
+    List<PortfolioBreakdownDto> findBreakdownPageByUserId(@Param("userId") String userId,
+                                                          @Param("afterDate") LocalDate afterDate,
+                                                          Pageable pageable);
 }
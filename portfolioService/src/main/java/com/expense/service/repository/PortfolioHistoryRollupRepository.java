@@ -0,0 +1,37 @@
+package com.expense.service.repository;
+
+import com.expense.service.dto.PortfolioBreakdownDto;
+import com.expense.service.dto.PortfolioHistoryDto;
+import com.expense.service.entities.HistoryResolution;
+import com.expense.service.entities.PortfolioHistoryRollup;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface PortfolioHistoryRollupRepository extends CrudRepository<PortfolioHistoryRollup, Long> {
+
+    // Keyset page over the (userId, resolution, closeDate) index. Filter and cursor are both the
+    // close date: the period containing the range start closes after it, so the first page keeps
+    // it, and close dates rise with the periods, so a page resumes right after the previous one.
+    @Query("SELECT new com.expense.service.dto.PortfolioHistoryDto(r.closeDate, r.totalValue, r.priceStale) " +
+            "FROM PortfolioHistoryRollup r WHERE r.userId = :userId AND r.resolution = :resolution " +
+            "AND r.closeDate > :afterDate ORDER BY r.closeDate")
+    List<PortfolioHistoryDto> findPageByUserId(@Param("userId") String userId,
+                                               @Param("resolution") HistoryResolution resolution,
+                                               @Param("afterDate") LocalDate afterDate,
+                                               Pageable pageable);
+
+    @Query("SELECT new com.expense.service.dto.PortfolioBreakdownDto(r.closeDate, r.totalValue, " +
+            "r.breakdown.stockValue, r.breakdown.stockInvested, r.breakdown.mutualFundValue, r.breakdown.mutualFundInvested, " +
+            "r.breakdown.cryptoValue, r.breakdown.cryptoInvested, r.breakdown.manualValue, r.breakdown.manualInvested) " +
+            "FROM PortfolioHistoryRollup r WHERE r.userId = :userId AND r.resolution = :resolution " +
+            "AND r.closeDate > :afterDate ORDER BY r.closeDate")
+    List<PortfolioBreakdownDto> findBreakdownPageByUserId(@Param("userId") String userId,
+                                                          @Param("resolution") HistoryResolution resolution,
+                                                          @Param("afterDate") LocalDate afterDate,
+                                                          Pageable pageable);
+}
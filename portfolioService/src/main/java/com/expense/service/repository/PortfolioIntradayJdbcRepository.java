@@ -0,0 +1,111 @@
+package com.expense.service.repository;
+
+import com.expense.service.entities.PortfolioHistory;
+import com.expense.service.entities.PortfolioIntradaySnapshot;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Bulk writes and compaction queries for {@link PortfolioIntradaySnapshot}.
+ */
+@Repository
+public class PortfolioIntradayJdbcRepository {
+
+    private static final String UPSERT_INTRADAY = """
+            INSERT INTO portfolio_intraday_snapshots (user_id, captured_at, total_value, price_stale, %s)
+            VALUES (:userId, :capturedAt, :totalValue, :priceStale, %s)
+            ON DUPLICATE KEY UPDATE total_value = VALUES(total_value), price_stale = VALUES(price_stale), %s
+            """.formatted(BreakdownColumns.COLUMNS, BreakdownColumns.PARAMS,
+            BreakdownColumns.assignments(column -> "VALUES(" + column + ")"));
+
+    private static final String OLDEST_BEFORE = """
+            SELECT MIN(captured_at) FROM portfolio_intraday_snapshots WHERE captured_at < :before
+            """;
+
+    // Last intraday value of each user on one day, for users that have no daily row for it yet
+    private static final String DAY_CLOSE_MISSING_FROM_DAILY = """
+            SELECT i.user_id, i.total_value, i.price_stale, %s
+            FROM portfolio_intraday_snapshots i
+            JOIN (
+                SELECT user_id, MAX(captured_at) AS captured_at
+                FROM portfolio_intraday_snapshots
+                WHERE captured_at >= :dayStart AND captured_at < :dayEnd
+                GROUP BY user_id
+            ) last ON last.user_id = i.user_id AND last.captured_at = i.captured_at
+            WHERE NOT EXISTS (
+                SELECT 1 FROM portfolio_history h WHERE h.user_id = i.user_id AND h.snapshot_date = :day
+            )
+            """.formatted(BreakdownColumns.qualified("i"));
+
+    private static final String DELETE_RANGE = """
+            DELETE FROM portfolio_intraday_snapshots
+            WHERE captured_at >= :from AND captured_at < :to
+            LIMIT :limit
+            """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public PortfolioIntradayJdbcRepository(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public int batchUpsert(LocalDateTime capturedAt, List<PortfolioHistory> values) {
+        SqlParameterSource[] batch = new SqlParameterSource[values.size()];
+        for (int i = 0; i < values.size(); i++) {
+            PortfolioHistory value = values.get(i);
+            batch[i] = BreakdownColumns.addParams(new MapSqlParameterSource()
+                    .addValue("userId", value.getUserId())
+                    .addValue("capturedAt", capturedAt)
+                    .addValue("totalValue", value.getTotalValue())
+                    .addValue("priceStale", value.getPriceStale()), value.getBreakdown());
+        }
+        jdbcTemplate.batchUpdate(UPSERT_INTRADAY, batch);
+        return values.size();
+    }
+
+    /**
+     * Date of the oldest intraday row captured before {@code before}, or null if there is none.
+     */
+    public LocalDate findOldestDayBefore(LocalDateTime before) {
+        LocalDateTime oldest = jdbcTemplate.queryForObject(OLDEST_BEFORE,
+                new MapSqlParameterSource("before", before), LocalDateTime.class);
+        return oldest == null ? null : oldest.toLocalDate();
+    }
+
+    /**
+     * Closing intraday values of {@code day} as daily snapshots, for users whose daily job
+     * did not record that day.
+     */
+    public List<PortfolioHistory> findDayCloseMissingFromDaily(LocalDate day) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("day", day)
+                .addValue("dayStart", day.atStartOfDay())
+                .addValue("dayEnd", day.plusDays(1).atStartOfDay());
+        return jdbcTemplate.query(DAY_CLOSE_MISSING_FROM_DAILY, params, (rs, rowNum) -> {
+            PortfolioHistory snapshot = new PortfolioHistory(rs.getString("user_id"), day, rs.getBigDecimal("total_value"));
+            snapshot.setPriceStale(rs.getObject("price_stale", Boolean.class));
+            snapshot.setBreakdown(BreakdownColumns.read(rs));
+            return snapshot;
+        });
+    }
+
+    /**
+     * Deletes up to {@code limit} rows of {@code day}; callers repeat until it returns less
+     * than {@code limit}, which keeps each statement's lock footprint small.
+     */
+    public int deleteDay(LocalDate day, int limit) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("from", day.atStartOfDay())
+                .addValue("to", day.plusDays(1).atStartOfDay())
+                .addValue("limit", limit);
+        return jdbcTemplate.update(DELETE_RANGE, params);
+    }
+}
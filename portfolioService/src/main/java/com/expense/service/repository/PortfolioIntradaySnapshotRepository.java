@@ -0,0 +1,21 @@
+package com.expense.service.repository;
+
+import com.expense.service.dto.IntradayValueDto;
+import com.expense.service.entities.PortfolioIntradaySnapshot;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface PortfolioIntradaySnapshotRepository extends CrudRepository<PortfolioIntradaySnapshot, Long> {
+
+    // Keyset page over the (userId, capturedAt) unique index, oldest first
+    @Query("SELECT new com.expense.service.dto.IntradayValueDto(i.capturedAt, i.totalValue, i.priceStale) " +
+            "FROM PortfolioIntradaySnapshot i WHERE i.userId = :userId AND i.capturedAt > :after ORDER BY i.capturedAt")
+    List<IntradayValueDto> findPageByUserId(@Param("userId") String userId,
+                                            @Param("after") LocalDateTime after,
+                                            Pageable pageable);
+}
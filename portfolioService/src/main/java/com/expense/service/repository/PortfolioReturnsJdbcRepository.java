@@ -0,0 +1,92 @@
+package com.expense.service.repository;
+
+import com.expense.service.entities.PortfolioReturns;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Upserts of {@link PortfolioReturns}. Writes are guarded by their as-of date, so a late or
+ * re-run older point never replaces figures computed from a newer one. The window figures and
+ * {@code xirr} have separate dates because holding changes refresh {@code xirr} on its own.
+ */
+@Repository
+public class PortfolioReturnsJdbcRepository {
+
+    private static final List<String> WINDOW_COLUMNS = List.of(
+            "inception_date", "inception_value", "inception_invested", "twr1m", "twr6m", "twr1y", "twr_all", "mwr1m", "mwr6m", "mwr1y", "mwr_all");
+
+    // MySQL applies the assignments left to right, so the dates are moved last for the
+    // comparisons above them to see the old values.
+    private static final String UPSERT = """
+            INSERT INTO portfolio_returns (user_id, as_of, inception_date, inception_value, inception_invested,
+                                           twr1m, twr6m, twr1y, twr_all,
+                                           mwr1m, mwr6m, mwr1y, mwr_all, xirr, xirr_as_of, updated_at)
+            VALUES (:userId, :asOf, :inceptionDate, :inceptionValue, :inceptionInvested, :twr1m, :twr6m, :twr1y, :twrAll,
+                    :mwr1m, :mwr6m, :mwr1y, :mwrAll, :xirr, :xirrAsOf, :now)
+            ON DUPLICATE KEY UPDATE
+                %s,
+                xirr = IF(xirr_as_of IS NULL OR VALUES(xirr_as_of) >= xirr_as_of, VALUES(xirr), xirr),
+                as_of = GREATEST(COALESCE(as_of, VALUES(as_of)), VALUES(as_of)),
+                xirr_as_of = GREATEST(COALESCE(xirr_as_of, VALUES(xirr_as_of)), VALUES(xirr_as_of)),
+                updated_at = VALUES(updated_at)
+            """.formatted(WINDOW_COLUMNS.stream()
+            .map(column -> column + " = IF(as_of IS NULL OR VALUES(as_of) >= as_of, VALUES(" + column + "), " + column + ")")
+            .collect(Collectors.joining(",\n    ")));
+
+    private static final String UPSERT_XIRR = """
+            INSERT INTO portfolio_returns (user_id, xirr, xirr_as_of, updated_at)
+            VALUES (:userId, :xirr, :xirrAsOf, :now)
+            ON DUPLICATE KEY UPDATE
+                xirr = IF(xirr_as_of IS NULL OR VALUES(xirr_as_of) >= xirr_as_of, VALUES(xirr), xirr),
+                xirr_as_of = GREATEST(COALESCE(xirr_as_of, VALUES(xirr_as_of)), VALUES(xirr_as_of)),
+                updated_at = VALUES(updated_at)
+            """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public PortfolioReturnsJdbcRepository(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public int batchUpsert(List<PortfolioReturns> returns) {
+        Timestamp now = Timestamp.from(Instant.now());
+        jdbcTemplate.batchUpdate(UPSERT, returns.stream()
+                .map(row -> new MapSqlParameterSource()
+                        .addValue("userId", row.getUserId())
+                        .addValue("asOf", row.getAsOf())
+                        .addValue("inceptionDate", row.getInceptionDate())
+                        .addValue("inceptionValue", row.getInceptionValue())
+                        .addValue("inceptionInvested", row.getInceptionInvested())
+                        .addValue("twr1m", row.getTwr1m())
+                        .addValue("twr6m", row.getTwr6m())
+                        .addValue("twr1y", row.getTwr1y())
+                        .addValue("twrAll", row.getTwrAll())
+                        .addValue("mwr1m", row.getMwr1m())
+                        .addValue("mwr6m", row.getMwr6m())
+                        .addValue("mwr1y", row.getMwr1y())
+                        .addValue("mwrAll", row.getMwrAll())
+                        .addValue("xirr", row.getXirr())
+                        .addValue("xirrAsOf", row.getXirrAsOf())
+                        .addValue("now", now))
+                .toArray(SqlParameterSource[]::new));
+        return returns.size();
+    }
+
+    public void upsertXirr(String userId, Double xirr, LocalDate asOf) {
+        jdbcTemplate.update(UPSERT_XIRR, new MapSqlParameterSource()
+                .addValue("userId", userId)
+                .addValue("xirr", xirr)
+                .addValue("xirrAsOf", asOf)
+                .addValue("now", Timestamp.from(Instant.now())));
+    }
+}
@@ -0,0 +1,7 @@
+package com.expense.service.repository;
+
+import com.expense.service.entities.PortfolioReturns;
+import org.springframework.data.repository.CrudRepository;
+
+public interface PortfolioReturnsRepository extends CrudRepository<PortfolioReturns, String> {
+}
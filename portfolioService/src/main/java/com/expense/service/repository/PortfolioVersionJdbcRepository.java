@@ -0,0 +1,63 @@
+package com.expense.service.repository;
+
+import com.expense.service.entities.PortfolioVersion;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Collection;
+
+/**
+ * Atomic increments of {@link PortfolioVersion} counters. Each bump is a single upsert, so
+ * concurrent writers never lose an increment and no read is needed first.
+ */
+@Repository
+public class PortfolioVersionJdbcRepository {
+
+    private static final String BUMP_HOLDINGS = """
+            INSERT INTO portfolio_versions (user_id, holdings_version, holdings_modified_at, history_version)
+            VALUES (:userId, 1, :now, 0)
+            ON DUPLICATE KEY UPDATE holdings_version = holdings_version + 1, holdings_modified_at = VALUES(holdings_modified_at)
+            """;
+
+    private static final String BUMP_HISTORY = """
+            INSERT INTO portfolio_versions (user_id, holdings_version, history_version, history_modified_at)
+            VALUES (:userId, 0, 1, :now)
+            ON DUPLICATE KEY UPDATE history_version = history_version + 1, history_modified_at = VALUES(history_modified_at)
+            """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public PortfolioVersionJdbcRepository(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Runs in a transaction of its own, since it is called after the change it records has
+     * committed, while that transaction's connection may still be bound.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void bumpHoldings(String userId) {
+        jdbcTemplate.update(BUMP_HOLDINGS, params(userId, Timestamp.from(Instant.now())));
+    }
+
+    public void bumpHistory(Collection<String> userIds) {
+        Timestamp now = Timestamp.from(Instant.now());
+        jdbcTemplate.batchUpdate(BUMP_HISTORY, userIds.stream()
+                .map(userId -> params(userId, now))
+                .toArray(SqlParameterSource[]::new));
+    }
+
+    private static MapSqlParameterSource params(String userId, Timestamp now) {
+        return new MapSqlParameterSource()
+                .addValue("userId", userId)
+                .addValue("now", now);
+    }
+}
@@ -0,0 +1,7 @@
+package com.expense.service.repository;
+
+import com.expense.service.entities.PortfolioVersion;
+import org.springframework.data.repository.CrudRepository;
+
+public interface PortfolioVersionRepository extends CrudRepository<PortfolioVersion, String> {
+}
@@ -0,0 +1,183 @@
+package com.expense.service.repository;
+
+import com.expense.service.dto.HoldingRowDto;
+import com.expense.service.entities.HoldingType;
+import com.expense.service.entities.Position;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Maintains {@link Position} rows from the lot tables. A user's positions are re-aggregated
+ * in the database with one grouped upsert whenever their lots change, so no lot is ever read
+ * into the service to do it. Realized PnL is not derived from lots (sold lots are gone) and
+ * is only ever added to, never overwritten by a rebuild.
+ */
+@Repository
+public class PositionJdbcRepository {
+
+    // The remaining %s is an optional user filter applied inside every branch
+    private static final String UPSERT_FROM_LOTS = """
+            INSERT INTO positions (user_id, holding_type, instrument_id, detail, external_id, quantity,
+                                   cost_basis, average_price, lot_count, realized_pnl, updated_at)
+            SELECT l.user_id, l.holding_type, l.instrument_id, MAX(l.detail), MIN(l.external_id), SUM(l.quantity),
+                   SUM(l.quantity * l.purchase_price), SUM(l.quantity * l.purchase_price) / NULLIF(SUM(l.quantity), 0),
+                   COUNT(*), 0, :now
+            FROM (
+                SELECT 'STOCK' AS holding_type, user_id, symbol AS instrument_id, exchange AS detail, external_id,
+                       quantity, purchase_price
+                FROM stock_holdings %1$s
+                UNION ALL
+                SELECT 'MUTUAL_FUND', user_id, scheme_code, NULL, external_id, quantity, purchase_price
+                FROM mf_holdings %1$s
+                UNION ALL
+                SELECT 'CRYPTO', user_id, coin_id, symbol, external_id, quantity, purchase_price
+                FROM crypto_holdings %1$s
+            ) l
+            GROUP BY l.user_id, l.holding_type, l.instrument_id
+            ON DUPLICATE KEY UPDATE detail = VALUES(detail), external_id = VALUES(external_id),
+                quantity = VALUES(quantity), cost_basis = VALUES(cost_basis), average_price = VALUES(average_price),
+                lot_count = VALUES(lot_count), updated_at = VALUES(updated_at)
+            """;
+
+    // Positions left at zero by the upsert have no lots any more; %s is the optional user filter
+    private static final String CLOSE = """
+            UPDATE positions
+            SET quantity = 0, cost_basis = 0, average_price = NULL, lot_count = 0, updated_at = :now
+            %s
+            """;
+
+    private static final String DELETE_EMPTY = """
+            DELETE FROM positions WHERE lot_count = 0 AND realized_pnl = 0 %s
+            """;
+
+    // Inserts the position when a rebuild has not created it yet, so realized PnL is never lost
+    private static final String ADD_REALIZED = """
+            INSERT INTO positions (user_id, holding_type, instrument_id, external_id, quantity, cost_basis,
+                                   lot_count, realized_pnl, updated_at)
+            VALUES (:userId, :holdingType, :instrumentId, :externalId, 0, 0, 0, :amount, :now)
+            ON DUPLICATE KEY UPDATE realized_pnl = realized_pnl + VALUES(realized_pnl), updated_at = VALUES(updated_at)
+            """;
+
+    // Undated lots sort first and are treated as the oldest. The lots stay locked until the
+    // sale commits, so a concurrent sale of the same instrument waits and then sees what is left.
+    private static final String LOTS_FIFO = """
+            SELECT external_id, quantity, purchase_price, purchase_date
+            FROM %s WHERE user_id = :userId AND %s = :instrumentId
+            ORDER BY purchase_date, id
+            FOR UPDATE
+            """;
+
+    private static final String REDUCE_LOT = """
+            UPDATE %s SET quantity = :quantity, updated_at = :now WHERE user_id = :userId AND external_id = :externalId
+            """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public PositionJdbcRepository(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Re-aggregates every position of one user from their current lots. Positions whose lots
+     * are all gone are closed at zero, and dropped unless they carry realized PnL. Runs in its
+     * own transaction, since it is called once the lot change has already committed.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void rebuildUser(String userId) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("userId", userId)
+                .addValue("now", Timestamp.from(Instant.now()));
+        jdbcTemplate.update(CLOSE.formatted("WHERE user_id = :userId"), params);
+        jdbcTemplate.update(UPSERT_FROM_LOTS.formatted("WHERE user_id = :userId"), params);
+        jdbcTemplate.update(DELETE_EMPTY.formatted("AND user_id = :userId"), params);
+    }
+
+    /**
+     * Re-aggregates the positions of every user at once, closing and dropping them as
+     * {@link #rebuildUser} does. It is idempotent, so it is safe to run on every start.
+     *
+     * @return rows inserted or updated from lots
+     */
+    @Transactional
+    public int rebuildAll() {
+        MapSqlParameterSource params = new MapSqlParameterSource("now", Timestamp.from(Instant.now()));
+        jdbcTemplate.update(CLOSE.formatted(""), params);
+        int rows = jdbcTemplate.update(UPSERT_FROM_LOTS.formatted(""), params);
+        jdbcTemplate.update(DELETE_EMPTY.formatted(""), params);
+        return rows;
+    }
+
+    /**
+     * The lots of one instrument in the order a FIFO sale consumes them, locked for the rest of
+     * the calling transaction.
+     */
+    public List<HoldingRowDto> findLotsFifo(String userId, HoldingType type, String instrumentId) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("userId", userId)
+                .addValue("instrumentId", instrumentId);
+        return jdbcTemplate.query(LOTS_FIFO.formatted(lotTable(type), instrumentColumn(type)), params, (rs, rowNum) -> {
+            BigDecimal quantity = rs.getBigDecimal("quantity");
+            BigDecimal purchasePrice = rs.getBigDecimal("purchase_price");
+            Date purchaseDate = rs.getDate("purchase_date");
+            return new HoldingRowDto(type, rs.getString("external_id"), userId, instrumentId, null, quantity,
+                    purchasePrice, quantity.multiply(purchasePrice), null,
+                    purchaseDate != null ? purchaseDate.toLocalDate() : null, null);
+        });
+    }
+
+    public void reduceLot(String userId, HoldingType type, String externalId, BigDecimal quantity) {
+        jdbcTemplate.update(REDUCE_LOT.formatted(lotTable(type)), new MapSqlParameterSource()
+                .addValue("userId", userId)
+                .addValue("externalId", externalId)
+                .addValue("quantity", quantity)
+                .addValue("now", Timestamp.from(Instant.now())));
+    }
+
+    /**
+     * Adds realized PnL to a position, creating it at zero quantity if it is missing.
+     * {@code externalId} is only used for a created row.
+     *
+     * @throws IllegalStateException if no row was written
+     */
+    public void addRealized(String userId, HoldingType type, String instrumentId, String externalId, BigDecimal amount) {
+        int updated = jdbcTemplate.update(ADD_REALIZED, new MapSqlParameterSource()
+                .addValue("userId", userId)
+                .addValue("holdingType", type.name())
+                .addValue("instrumentId", instrumentId)
+                .addValue("externalId", externalId)
+                .addValue("amount", amount)
+                .addValue("now", Timestamp.from(Instant.now())));
+        if (updated == 0) {
+            throw new IllegalStateException("Realized PnL for " + type + " " + instrumentId + " was not recorded");
+        }
+    }
+
+    private static String lotTable(HoldingType type) {
+        return switch (type) {
+            case STOCK -> "stock_holdings";
+            case MUTUAL_FUND -> "mf_holdings";
+            case CRYPTO -> "crypto_holdings";
+            case MANUAL -> throw new IllegalArgumentException("Manual holdings have no positions");
+        };
+    }
+
+    private static String instrumentColumn(HoldingType type) {
+        return switch (type) {
+            case STOCK -> "symbol";
+            case MUTUAL_FUND -> "scheme_code";
+            case CRYPTO -> "coin_id";
+            case MANUAL -> throw new IllegalArgumentException("Manual holdings have no positions");
+        };
+    }
+}
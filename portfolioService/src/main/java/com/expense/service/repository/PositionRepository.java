@@ -0,0 +1,10 @@
+package com.expense.service.repository;
+
+import com.expense.service.entities.Position;
+import org.springframework.data.repository.CrudRepository;
+
+import java.util.List;
+
+public interface PositionRepository extends CrudRepository<Position, Long> {
+    List<Position> findByUserIdOrderByHoldingTypeAscInstrumentIdAsc(String userId);
+}
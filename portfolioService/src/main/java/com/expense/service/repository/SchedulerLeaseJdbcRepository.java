@@ -0,0 +1,52 @@
+package com.expense.service.repository;
+
+import com.expense.service.entities.SchedulerLease;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+
+/**
+ * Takes and renews {@link SchedulerLease}s. Like the snapshot checkpoint lease, every
+ * statement is a single conditional write; losing a race simply updates zero rows.
+ */
+@Repository
+public class SchedulerLeaseJdbcRepository {
+
+    private static final String CREATE_IF_MISSING = """
+            INSERT INTO scheduler_leases (name) VALUES (:name)
+            ON DUPLICATE KEY UPDATE name = name
+            """;
+
+    private static final String ACQUIRE = """
+            UPDATE scheduler_leases
+            SET owner_id = :instanceId, lease_expires_at = :leaseExpiresAt
+            WHERE name = :name
+              AND (owner_id IS NULL OR owner_id = :instanceId OR lease_expires_at < :now)
+            """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public SchedulerLeaseJdbcRepository(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Takes the lease on {@code name} if it is free or expired, or renews it if this instance
+     * already holds it.
+     *
+     * @return true if this instance now holds the lease
+     */
+    public boolean acquire(String name, String instanceId, Instant leaseExpiresAt) {
+        jdbcTemplate.update(CREATE_IF_MISSING, new MapSqlParameterSource("name", name));
+        return jdbcTemplate.update(ACQUIRE, new MapSqlParameterSource()
+                .addValue("name", name)
+                .addValue("instanceId", instanceId)
+                .addValue("leaseExpiresAt", Timestamp.from(leaseExpiresAt))
+                .addValue("now", Timestamp.from(Instant.now()))) == 1;
+    }
+}
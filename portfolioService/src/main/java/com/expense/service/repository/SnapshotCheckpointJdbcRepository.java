@@ -0,0 +1,92 @@
+package com.expense.service.repository;
+
+import com.expense.service.entities.SnapshotCheckpoint;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+
+/**
+ * Lease-based ownership of a {@link SnapshotCheckpoint}, so exactly one instance coordinates
+ * a distributed run and another can take over once the owner stops renewing its lease.
+ * Every statement is a single conditional write; losing a race simply updates zero rows.
+ */
+@Repository
+public class SnapshotCheckpointJdbcRepository {
+
+    private static final String CREATE_IF_MISSING = """
+            INSERT INTO snapshot_checkpoints (snapshot_date, last_user_id, status, updated_at)
+            VALUES (:snapshotDate, '', 'RUNNING', :now)
+            ON DUPLICATE KEY UPDATE snapshot_date = snapshot_date
+            """;
+
+    private static final String CLAIM = """
+            UPDATE snapshot_checkpoints
+            SET coordinator_id = :instanceId, lease_expires_at = :leaseExpiresAt, updated_at = :now
+            WHERE snapshot_date = :snapshotDate AND status = 'RUNNING'
+              AND (coordinator_id IS NULL OR coordinator_id = :instanceId OR lease_expires_at < :now)
+            """;
+
+    private static final String ADVANCE = """
+            UPDATE snapshot_checkpoints
+            SET last_user_id = :lastUserId, lease_expires_at = :leaseExpiresAt, updated_at = :now
+            WHERE snapshot_date = :snapshotDate AND status = 'RUNNING' AND coordinator_id = :instanceId
+            """;
+
+    private static final String COMPLETE = """
+            UPDATE snapshot_checkpoints
+            SET status = 'COMPLETED', lease_expires_at = NULL, updated_at = :now
+            WHERE snapshot_date = :snapshotDate AND status = 'RUNNING' AND coordinator_id = :instanceId
+            """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public SnapshotCheckpointJdbcRepository(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Takes or renews the coordinator lease for {@code snapshotDate}, creating the checkpoint
+     * when {@code create} is set and none exists yet.
+     *
+     * @return true if this instance now holds the lease
+     */
+    public boolean claim(LocalDate snapshotDate, String instanceId, Instant leaseExpiresAt, boolean create) {
+        Instant now = Instant.now();
+        if (create) {
+            jdbcTemplate.update(CREATE_IF_MISSING, new MapSqlParameterSource()
+                    .addValue("snapshotDate", Date.valueOf(snapshotDate))
+                    .addValue("now", Timestamp.from(now)));
+        }
+        return jdbcTemplate.update(CLAIM, params(snapshotDate, instanceId, now)
+                .addValue("leaseExpiresAt", Timestamp.from(leaseExpiresAt))) == 1;
+    }
+
+    /**
+     * Records that every user up to {@code lastUserId} has been handed out and renews the lease.
+     *
+     * @return false if the lease was lost to another instance
+     */
+    public boolean advance(LocalDate snapshotDate, String instanceId, String lastUserId, Instant leaseExpiresAt) {
+        return jdbcTemplate.update(ADVANCE, params(snapshotDate, instanceId, Instant.now())
+                .addValue("lastUserId", lastUserId)
+                .addValue("leaseExpiresAt", Timestamp.from(leaseExpiresAt))) == 1;
+    }
+
+    public boolean complete(LocalDate snapshotDate, String instanceId) {
+        return jdbcTemplate.update(COMPLETE, params(snapshotDate, instanceId, Instant.now())) == 1;
+    }
+
+    private static MapSqlParameterSource params(LocalDate snapshotDate, String instanceId, Instant now) {
+        return new MapSqlParameterSource()
+                .addValue("snapshotDate", Date.valueOf(snapshotDate))
+                .addValue("instanceId", instanceId)
+                .addValue("now", Timestamp.from(now));
+    }
+}
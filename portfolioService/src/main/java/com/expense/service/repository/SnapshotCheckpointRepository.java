@@ -0,0 +1,11 @@
+package com.expense.service.repository;
+
+import com.expense.service.entities.SnapshotCheckpoint;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+
+@Repository
+public interface SnapshotCheckpointRepository extends CrudRepository<SnapshotCheckpoint, LocalDate> {
+}
@@ -0,0 +1,87 @@
+package com.expense.service.repository;
+
+import com.expense.service.entities.SnapshotFailure;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Records and clears {@link SnapshotFailure}s. Recording a user that already failed that day
+ * only moves its timestamp, so a retry that fails again needs no read first.
+ */
+@Repository
+public class SnapshotFailureJdbcRepository {
+
+    private static final String RECORD = """
+            INSERT INTO snapshot_failures (snapshot_date, user_id, failed_at)
+            VALUES (:snapshotDate, :userId, :now)
+            ON DUPLICATE KEY UPDATE failed_at = VALUES(failed_at)
+            """;
+
+    private static final String USER_IDS = """
+            SELECT user_id FROM snapshot_failures WHERE snapshot_date = :snapshotDate ORDER BY user_id
+            """;
+
+    private static final String USER_IDS_FAILED_BEFORE = """
+            SELECT user_id FROM snapshot_failures
+            WHERE snapshot_date = :snapshotDate AND failed_at < :before
+            ORDER BY user_id
+            """;
+
+    private static final String DELETE = """
+            DELETE FROM snapshot_failures WHERE snapshot_date = :snapshotDate AND user_id IN (:userIds)
+            """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public SnapshotFailureJdbcRepository(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public void record(LocalDate snapshotDate, Collection<String> userIds) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.from(Instant.now());
+        jdbcTemplate.batchUpdate(RECORD, userIds.stream()
+                .map(userId -> new MapSqlParameterSource()
+                        .addValue("snapshotDate", Date.valueOf(snapshotDate))
+                        .addValue("userId", userId)
+                        .addValue("now", now))
+                .toArray(SqlParameterSource[]::new));
+    }
+
+    public List<String> findUserIds(LocalDate snapshotDate) {
+        return jdbcTemplate.queryForList(USER_IDS,
+                new MapSqlParameterSource("snapshotDate", Date.valueOf(snapshotDate)), String.class);
+    }
+
+    /**
+     * The users for {@code snapshotDate} whose latest failure is older than {@code before}, so
+     * a user that keeps failing is not retried more often than that.
+     */
+    public List<String> findUserIdsFailedBefore(LocalDate snapshotDate, Instant before) {
+        return jdbcTemplate.queryForList(USER_IDS_FAILED_BEFORE, new MapSqlParameterSource()
+                .addValue("snapshotDate", Date.valueOf(snapshotDate))
+                .addValue("before", Timestamp.from(before)), String.class);
+    }
+
+    public void delete(LocalDate snapshotDate, Collection<String> userIds) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.update(DELETE, new MapSqlParameterSource()
+                .addValue("snapshotDate", Date.valueOf(snapshotDate))
+                .addValue("userIds", userIds));
+    }
+}
@@ -0,0 +1,68 @@
+package com.expense.service.repository;
+
+import com.expense.service.entities.SnapshotPendingItem;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Collection;
+
+/**
+ * Tracks {@link SnapshotPendingItem}s. Publishing an item again only moves its timestamp and
+ * finishing one twice deletes nothing, so redelivered or republished items need no read first.
+ */
+@Repository
+public class SnapshotPendingItemJdbcRepository {
+
+    private static final String RECORD = """
+            INSERT INTO snapshot_pending_items (snapshot_date, first_user_id, published_at)
+            VALUES (:snapshotDate, :firstUserId, :now)
+            ON DUPLICATE KEY UPDATE published_at = VALUES(published_at)
+            """;
+
+    private static final String FINISH = """
+            DELETE FROM snapshot_pending_items WHERE snapshot_date = :snapshotDate AND first_user_id = :firstUserId
+            """;
+
+    private static final String COUNT = """
+            SELECT COUNT(*) FROM snapshot_pending_items WHERE snapshot_date = :snapshotDate
+            """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public SnapshotPendingItemJdbcRepository(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public void record(LocalDate snapshotDate, Collection<String> firstUserIds) {
+        if (firstUserIds.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.from(Instant.now());
+        jdbcTemplate.batchUpdate(RECORD, firstUserIds.stream()
+                .map(firstUserId -> new MapSqlParameterSource()
+                        .addValue("snapshotDate", Date.valueOf(snapshotDate))
+                        .addValue("firstUserId", firstUserId)
+                        .addValue("now", now))
+                .toArray(SqlParameterSource[]::new));
+    }
+
+    public void finish(LocalDate snapshotDate, String firstUserId) {
+        jdbcTemplate.update(FINISH, new MapSqlParameterSource()
+                .addValue("snapshotDate", Date.valueOf(snapshotDate))
+                .addValue("firstUserId", firstUserId));
+    }
+
+    public long count(LocalDate snapshotDate) {
+        Long count = jdbcTemplate.queryForObject(COUNT,
+                new MapSqlParameterSource("snapshotDate", Date.valueOf(snapshotDate)), Long.class);
+        return count == null ? 0 : count;
+    }
+}
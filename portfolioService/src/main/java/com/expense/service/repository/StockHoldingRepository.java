@@ -1,12 +1,39 @@
 package com.expense.service.repository;
 
+import com.expense.service.dto.StockHoldingDto;
 import com.expense.service.entities.StockHolding;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface StockHoldingRepository extends CrudRepository<StockHolding, Long> {
     List<StockHolding> findByUserId(String userId);
+
+    // Keyset page over the (userId, externalId) index; pass "" as afterExternalId for the first page
+    @Query("SELECT new com.expense.service.dto.StockHoldingDto(s.externalId, s.symbol, s.exchange, s.quantity, s.purchasePrice, s.purchaseDate, s.createdAt) " +
+            "FROM StockHolding s WHERE s.userId = :userId AND s.externalId > :afterExternalId ORDER BY s.externalId")
+    List<StockHoldingDto> findPageByUserId(@Param("userId") String userId,
+                                           @Param("afterExternalId") String afterExternalId,
+                                           Pageable pageable);
+
+    @Query("SELECT DISTINCT s.symbol FROM StockHolding s")
+    List<String> findDistinctSymbols();
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM StockHolding s WHERE s.userId = :userId AND s.externalId = :externalId")
+    int deleteByUserIdAndExternalId(@Param("userId") String userId, @Param("externalId") String externalId);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM StockHolding s WHERE s.userId = :userId AND s.externalId IN :externalIds")
+    int deleteByUserIdAndExternalIdIn(@Param("userId") String userId, @Param("externalIds") Collection<String> externalIds);
 }
@@ -0,0 +1,97 @@
+package com.expense.service.service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads RFC 4180 style CSV one record at a time: comma separated, fields optionally wrapped
+ * in double quotes, a doubled quote inside a quoted field is a literal quote, and quoted
+ * fields may span lines. Lines may end in LF or CRLF, and a leading byte order mark is
+ * skipped. Only the current record is held in memory.
+ */
+class CsvRecordReader {
+
+    // Guards against an unterminated quote swallowing the rest of a large file into one field
+    private static final int MAX_RECORD_LENGTH = 64 * 1024;
+
+    private final Reader reader;
+    private int peeked = -2;
+    private boolean started;
+
+    CsvRecordReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Returns the fields of the next non-blank record, or {@code null} at end of input.
+     */
+    List<String> next() throws IOException {
+        while (true) {
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean inQuotes = false;
+            int length = 0;
+            int c = read();
+            if (c == -1) {
+                return null;
+            }
+            for (; c != -1; c = read()) {
+                if (++length > MAX_RECORD_LENGTH) {
+                    throw new IOException("Record longer than " + MAX_RECORD_LENGTH + " characters; check for an unclosed quote");
+                }
+                if (inQuotes) {
+                    if (c == '"') {
+                        if (peek() == '"') {
+                            field.append('"');
+                            read();
+                        } else {
+                            inQuotes = false;
+                        }
+                    } else {
+                        field.append((char) c);
+                    }
+                } else if (c == '"') {
+                    inQuotes = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else if (c == '\n') {
+                    break;
+                } else if (c != '\r') {
+                    field.append((char) c);
+                }
+            }
+            if (inQuotes) {
+                throw new IOException("Unclosed quote at end of input");
+            }
+            fields.add(field.toString());
+            if (fields.size() > 1 || !fields.get(0).isBlank()) {
+                return fields;
+            }
+        }
+    }
+
+    private int read() throws IOException {
+        if (!started) {
+            // Spreadsheet exports often start with a byte order mark
+            started = true;
+            int c = reader.read();
+            return c == '\uFEFF' ? reader.read() : c;
+        }
+        if (peeked != -2) {
+            int c = peeked;
+            peeked = -2;
+            return c;
+        }
+        return reader.read();
+    }
+
+    private int peek() throws IOException {
+        if (peeked == -2) {
+            peeked = reader.read();
+        }
+        return peeked;
+    }
+}
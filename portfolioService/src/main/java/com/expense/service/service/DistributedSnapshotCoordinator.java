@@ -0,0 +1,214 @@
+package com.expense.service.service;
+
+import com.expense.service.config.InstanceIdentity;
+import com.expense.service.entities.SnapshotCheckpoint;
+import com.expense.service.repository.HoldingQueryRepository;
+import com.expense.service.repository.SnapshotCheckpointJdbcRepository;
+import com.expense.service.repository.SnapshotCheckpointRepository;
+import com.expense.service.repository.SnapshotFailureJdbcRepository;
+import com.expense.service.repository.SnapshotPendingItemJdbcRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Coordinates the daily snapshot in distributed mode. Every instance runs the same triggers,
+ * but only the one holding the checkpoint lease pages through user ids and publishes them as
+ * {@link SnapshotWorkItem}s to the partitioned work topic; the valuing itself is done by the
+ * snapshot workers of every instance, each consuming its share of the partitions.
+ *
+ * The checkpoint only moves once a page of items is acknowledged by Kafka, and the lease is
+ * renewed with it. If the coordinator dies, another instance claims the expired lease and
+ * carries on publishing from the checkpoint.
+ *
+ * Each item is recorded as pending before it is sent, and workers clear it once its users are
+ * written or recorded as failed. After the last page the coordinator keeps the lease and checks
+ * back on every resume: while items are pending it waits, failed users are republished once
+ * they have waited out the resume interval, and the day is only completed when neither is left.
+ */
+@Service
+@Slf4j
+@ConditionalOnProperty(name = "portfolio.snapshot.mode", havingValue = "distributed")
+public class DistributedSnapshotCoordinator {
+
+    private final HoldingQueryRepository holdingQueryRepository;
+    private final SnapshotCheckpointRepository snapshotCheckpointRepository;
+    private final SnapshotCheckpointJdbcRepository snapshotCheckpointJdbcRepository;
+    private final SnapshotPendingItemJdbcRepository snapshotPendingItemJdbcRepository;
+    private final SnapshotFailureJdbcRepository snapshotFailureJdbcRepository;
+    private final KafkaTemplate<String, SnapshotWorkItem> kafkaTemplate;
+    private final String instanceId;
+    // The lease check would let this instance's own resume trigger re-enter a run it is publishing
+    private final AtomicBoolean publishing = new AtomicBoolean();
+
+    @Value("${portfolio.snapshot.distributed.topic:portfolio_snapshot_work}")
+    private String topic;
+
+    @Value("${portfolio.snapshot.lease:PT2M}")
+    private Duration lease;
+
+    @Value("${portfolio.snapshot.resume-interval:PT30M}")
+    private Duration retryInterval;
+
+    @Value("${portfolio.zone:Asia/Kolkata}")
+    private String zone;
+
+    @Value("${portfolio.snapshot.user-page-size:1000}")
+    private int userPageSize;
+
+    @Value("${portfolio.snapshot.holdings-batch-size:200}")
+    private int holdingsBatchSize;
+
+    @Autowired
+    public DistributedSnapshotCoordinator(HoldingQueryRepository holdingQueryRepository,
+                                          SnapshotCheckpointRepository snapshotCheckpointRepository,
+                                          SnapshotCheckpointJdbcRepository snapshotCheckpointJdbcRepository,
+                                          SnapshotPendingItemJdbcRepository snapshotPendingItemJdbcRepository,
+                                          SnapshotFailureJdbcRepository snapshotFailureJdbcRepository,
+                                          KafkaTemplate<String, SnapshotWorkItem> kafkaTemplate,
+                                          InstanceIdentity instanceIdentity) {
+        this.holdingQueryRepository = holdingQueryRepository;
+        this.snapshotCheckpointRepository = snapshotCheckpointRepository;
+        this.snapshotCheckpointJdbcRepository = snapshotCheckpointJdbcRepository;
+        this.snapshotPendingItemJdbcRepository = snapshotPendingItemJdbcRepository;
+        this.snapshotFailureJdbcRepository = snapshotFailureJdbcRepository;
+        this.kafkaTemplate = kafkaTemplate;
+        this.instanceId = instanceIdentity.getId();
+    }
+
+    @Scheduled(cron = "0 0 1 * * ?", zone = "${portfolio.zone:Asia/Kolkata}") // Same trigger as the local daily job
+    public void startDailyRun() {
+        coordinate(true);
+    }
+
+    /**
+     * Takes over today's run when its coordinator stopped renewing the lease, including after
+     * a restart of the whole deployment.
+     */
+    @Scheduled(fixedDelayString = "${portfolio.snapshot.lease:PT2M}")
+    public void resumeAbandonedRun() {
+        coordinate(false);
+    }
+
+    private void coordinate(boolean start) {
+        if (!publishing.compareAndSet(false, true)) {
+            return;
+        }
+        LocalDate snapshotDate = LocalDate.now(ZoneId.of(zone));
+        try {
+            if (!snapshotCheckpointJdbcRepository.claim(snapshotDate, instanceId, leaseExpiry(), start)) {
+                return;
+            }
+            String afterUserId = snapshotCheckpointRepository.findById(snapshotDate)
+                    .map(SnapshotCheckpoint::getLastUserId)
+                    .orElse("");
+            log.debug("Coordinating distributed portfolio snapshot for {} as {}, starting after user '{}'",
+                    snapshotDate, instanceId, afterUserId);
+            if (publish(snapshotDate, afterUserId)) {
+                finish(snapshotDate);
+            }
+        } catch (Exception e) {
+            // The lease runs out and this or another instance picks the run up from the checkpoint
+            log.error("Distributed snapshot coordination for {} failed", snapshotDate, e);
+        } finally {
+            publishing.set(false);
+        }
+    }
+
+    /**
+     * Publishes every user after {@code afterUserId}, moving the checkpoint page by page.
+     *
+     * @return false if the lease was lost part way through
+     */
+    private boolean publish(LocalDate snapshotDate, String afterUserId) {
+        long startedAt = System.nanoTime();
+        int users = 0;
+        int items = 0;
+        List<String> page;
+        do {
+            page = holdingQueryRepository.findUserIdsAfter(afterUserId, userPageSize);
+            if (page.isEmpty()) {
+                break;
+            }
+            items += send(snapshotDate, page);
+            users += page.size();
+            afterUserId = page.get(page.size() - 1);
+
+            if (!snapshotCheckpointJdbcRepository.advance(snapshotDate, instanceId, afterUserId, leaseExpiry())) {
+                log.warn("Lost the snapshot coordinator lease for {} after user {}; stopping", snapshotDate, afterUserId);
+                return false;
+            }
+        } while (page.size() == userPageSize);
+
+        if (users > 0) {
+            log.info("Published {} users in {} work items for the {} snapshot in {}ms",
+                    users, items, snapshotDate, (System.nanoTime() - startedAt) / 1_000_000);
+        }
+        return true;
+    }
+
+    /**
+     * Completes the day once workers have finished every item and no users are left failing,
+     * republishing failed users that are due for another attempt.
+     */
+    private void finish(LocalDate snapshotDate) {
+        long pending = snapshotPendingItemJdbcRepository.count(snapshotDate);
+        if (pending > 0) {
+            log.debug("Waiting for {} snapshot work items for {}", pending, snapshotDate);
+            return;
+        }
+        List<String> failed = snapshotFailureJdbcRepository.findUserIds(snapshotDate);
+        if (failed.isEmpty()) {
+            snapshotCheckpointJdbcRepository.complete(snapshotDate, instanceId);
+            log.info("Distributed portfolio snapshot for {} completed", snapshotDate);
+            return;
+        }
+        List<String> due = snapshotFailureJdbcRepository.findUserIdsFailedBefore(snapshotDate,
+                Instant.now().minus(retryInterval));
+        if (!due.isEmpty()) {
+            int items = send(snapshotDate, due);
+            log.info("Republished {} of {} failed users in {} work items for the {} snapshot",
+                    due.size(), failed.size(), items, snapshotDate);
+        }
+    }
+
+    /**
+     * Sends {@code userIds} as work items, marked pending first so a worker can never finish
+     * one before it is recorded.
+     *
+     * @return number of items sent
+     */
+    private int send(LocalDate snapshotDate, List<String> userIds) {
+        List<List<String>> chunks = new ArrayList<>();
+        for (int from = 0; from < userIds.size(); from += holdingsBatchSize) {
+            chunks.add(List.copyOf(userIds.subList(from, Math.min(from + holdingsBatchSize, userIds.size()))));
+        }
+        snapshotPendingItemJdbcRepository.record(snapshotDate, chunks.stream().map(chunk -> chunk.get(0)).toList());
+        List<CompletableFuture<SendResult<String, SnapshotWorkItem>>> sends = new ArrayList<>();
+        for (List<String> chunk : chunks) {
+            // Keyed by the first user id so consecutive chunks spread over every partition
+            sends.add(kafkaTemplate.send(topic, chunk.get(0), new SnapshotWorkItem(snapshotDate, chunk)));
+        }
+        // Wait for the broker before moving the checkpoint, so a crash never skips users
+        CompletableFuture.allOf(sends.toArray(CompletableFuture[]::new)).join();
+        return sends.size();
+    }
+
+    private Instant leaseExpiry() {
+        return Instant.now().plus(lease);
+    }
+}
@@ -0,0 +1,305 @@
+package com.expense.service.service;
+
+import com.expense.service.dto.HoldingImportErrorDto;
+import com.expense.service.dto.HoldingImportResultDto;
+import com.expense.service.dto.HoldingImportRowDto;
+import com.expense.service.entities.HoldingType;
+import com.expense.service.repository.HoldingImportJdbcRepository;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Imports holdings statements of any size. The file is parsed one row at a time, valid rows
+ * are buffered per holding table and written in batched transactions, and invalid rows are
+ * reported with their row number instead of failing the whole import.
+ */
+@Service
+@Slf4j
+public class HoldingImportService {
+
+    // Bounds the size of the report; the failed count still covers every rejected row
+    private static final int MAX_REPORTED_ERRORS = 1000;
+    private static final int MAX_TEXT_LENGTH = 255;
+
+    // CSV headers are matched to these fields case-insensitively; other columns are ignored
+    private static final Map<String, String> CSV_FIELDS = new HashMap<>();
+
+    static {
+        for (String field : List.of("type", "symbol", "exchange", "schemeCode", "coinId", "assetName", "assetType",
+                "quantity", "purchasePrice", "investedValue", "currentValue", "purchaseDate", "maturityDate")) {
+            CSV_FIELDS.put(field.toLowerCase(Locale.ROOT), field);
+        }
+    }
+
+    private final HoldingImportJdbcRepository holdingImportJdbcRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${portfolio.import.batch-size:500}")
+    private int batchSize;
+
+    @Autowired
+    public HoldingImportService(HoldingImportJdbcRepository holdingImportJdbcRepository,
+                                ObjectMapper objectMapper,
+                                PlatformTransactionManager transactionManager,
+                                ApplicationEventPublisher eventPublisher) {
+        this.holdingImportJdbcRepository = holdingImportJdbcRepository;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * Imports a CSV file whose first record is a header naming the {@link HoldingImportRowDto} fields.
+     */
+    public HoldingImportResultDto importCsv(InputStream body, String userId) throws IOException {
+        Import run = new Import(userId);
+        CsvRecordReader reader = new CsvRecordReader(
+                new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8)));
+        try {
+            List<String> header = reader.next();
+            if (header == null) {
+                return run.finish("The file is empty");
+            }
+            List<String> fields = new ArrayList<>(header.size());
+            for (String column : header) {
+                String name = column.trim().toLowerCase(Locale.ROOT);
+                fields.add(CSV_FIELDS.get(name));
+            }
+            if (!fields.contains("type")) {
+                return run.finish("The header row must include a 'type' column");
+            }
+
+            List<String> record;
+            while ((record = reader.next()) != null) {
+                long rowNumber = run.nextRow();
+                if (record.size() > fields.size()) {
+                    run.reject(rowNumber, "Row has " + record.size() + " columns but the header has " + fields.size());
+                    continue;
+                }
+                Map<String, String> values = new HashMap<>();
+                for (int i = 0; i < record.size(); i++) {
+                    String value = record.get(i).trim();
+                    if (fields.get(i) != null && !value.isEmpty()) {
+                        values.put(fields.get(i), value);
+                    }
+                }
+                values.computeIfPresent("type", (k, type) -> type.toUpperCase(Locale.ROOT));
+                try {
+                    run.accept(rowNumber, objectMapper.convertValue(values, HoldingImportRowDto.class));
+                } catch (IllegalArgumentException e) {
+                    run.reject(rowNumber, firstLine(e.getMessage()));
+                }
+            }
+        } catch (IOException e) {
+            return run.finish(e.getMessage());
+        }
+        return run.finish(null);
+    }
+
+    /**
+     * Imports a JSON array of {@link HoldingImportRowDto} objects. Only one element is held
+     * in memory at a time.
+     */
+    public HoldingImportResultDto importJson(InputStream body, String userId) throws IOException {
+        Import run = new Import(userId);
+        try (JsonParser parser = objectMapper.getFactory().createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                return run.finish("The body must be a JSON array of holdings");
+            }
+            JsonToken token;
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                if (token == null) {
+                    return run.finish("Unexpected end of input inside the array");
+                }
+                long rowNumber = run.nextRow();
+                if (token != JsonToken.START_OBJECT) {
+                    parser.skipChildren();
+                    run.reject(rowNumber, "Expected a holding object");
+                    continue;
+                }
+                JsonNode node = objectMapper.readTree(parser);
+                if (node.path("type").isTextual()) {
+                    ((ObjectNode) node).put("type", node.get("type").asText().trim().toUpperCase(Locale.ROOT));
+                }
+                try {
+                    run.accept(rowNumber, objectMapper.treeToValue(node, HoldingImportRowDto.class));
+                } catch (JsonProcessingException e) {
+                    run.reject(rowNumber, firstLine(e.getOriginalMessage()));
+                }
+            }
+        } catch (JsonProcessingException e) {
+            return run.finish("Malformed JSON: " + firstLine(e.getOriginalMessage()));
+        }
+        return run.finish(null);
+    }
+
+    private static String validate(HoldingImportRowDto row) {
+        if (row.getType() == null) {
+            return "type is required (STOCK, MUTUAL_FUND, CRYPTO or MANUAL)";
+        }
+        String error = switch (row.getType()) {
+            case STOCK -> firstError(
+                    required("symbol", row.getSymbol()),
+                    text("exchange", row.getExchange()),
+                    lot(row));
+            case MUTUAL_FUND -> firstError(
+                    required("schemeCode", row.getSchemeCode()),
+                    lot(row));
+            case CRYPTO -> firstError(
+                    required("coinId", row.getCoinId()),
+                    required("symbol", row.getSymbol()),
+                    lot(row));
+            case MANUAL -> firstError(
+                    required("assetName", row.getAssetName()),
+                    required("assetType", row.getAssetType()),
+                    positive("investedValue", row.getInvestedValue()),
+                    row.getCurrentValue() != null && row.getCurrentValue().signum() < 0
+                            ? "currentValue must not be negative" : null);
+        };
+        if (error == null && row.getPurchaseDate() != null && row.getMaturityDate() != null
+                && row.getMaturityDate().isBefore(row.getPurchaseDate())) {
+            return "maturityDate is before purchaseDate";
+        }
+        return error;
+    }
+
+    private static String lot(HoldingImportRowDto row) {
+        return firstError(positive("quantity", row.getQuantity()), positive("purchasePrice", row.getPurchasePrice()));
+    }
+
+    private static String required(String field, String value) {
+        if (value == null || value.isBlank()) {
+            return field + " is required";
+        }
+        return text(field, value);
+    }
+
+    private static String text(String field, String value) {
+        return value != null && value.length() > MAX_TEXT_LENGTH
+                ? field + " is longer than " + MAX_TEXT_LENGTH + " characters" : null;
+    }
+
+    private static String positive(String field, BigDecimal value) {
+        if (value == null) {
+            return field + " is required";
+        }
+        return value.signum() > 0 ? null : field + " must be greater than zero";
+    }
+
+    private static String firstError(String... errors) {
+        for (String error : errors) {
+            if (error != null) {
+                return error;
+            }
+        }
+        return null;
+    }
+
+    private static String firstLine(String message) {
+        if (message == null) {
+            return "Invalid row";
+        }
+        int newline = message.indexOf('\n');
+        return newline < 0 ? message : message.substring(0, newline);
+    }
+
+    private record PendingRow(long rowNumber, HoldingImportRowDto row) {
+    }
+
+    /**
+     * State of one import: the per-table buffers and the running report.
+     */
+    private class Import {
+
+        private final String userId;
+        private final Map<HoldingType, List<PendingRow>> buffers = new EnumMap<>(HoldingType.class);
+        private final List<HoldingImportErrorDto> errors = new ArrayList<>();
+        private final long startedAt = System.nanoTime();
+        private long rowsRead;
+        private long imported;
+        private long failed;
+
+        Import(String userId) {
+            this.userId = userId;
+        }
+
+        long nextRow() {
+            return ++rowsRead;
+        }
+
+        void accept(long rowNumber, HoldingImportRowDto row) {
+            String error = validate(row);
+            if (error != null) {
+                reject(rowNumber, error);
+                return;
+            }
+            List<PendingRow> buffer = buffers.computeIfAbsent(row.getType(), type -> new ArrayList<>(batchSize));
+            buffer.add(new PendingRow(rowNumber, row));
+            if (buffer.size() >= batchSize) {
+                write(row.getType(), buffer);
+            }
+        }
+
+        void reject(long rowNumber, String message) {
+            failed++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new HoldingImportErrorDto(rowNumber, message));
+            }
+        }
+
+        HoldingImportResultDto finish(String abortedReason) {
+            buffers.forEach(this::write);
+            if (imported > 0) {
+                eventPublisher.publishEvent(new HoldingsChangedEvent(userId));
+            }
+            log.info("Imported {} of {} holdings rows for user {} in {}ms ({} failed{})",
+                    imported, rowsRead, userId, (System.nanoTime() - startedAt) / 1_000_000, failed,
+                    abortedReason != null ? ", aborted: " + abortedReason : "");
+            return new HoldingImportResultDto(rowsRead, imported, failed, errors, failed > errors.size(), abortedReason);
+        }
+
+        private void write(HoldingType type, List<PendingRow> buffer) {
+            if (buffer.isEmpty()) {
+                return;
+            }
+            List<HoldingImportRowDto> rows = buffer.stream().map(PendingRow::row).toList();
+            try {
+                transactionTemplate.executeWithoutResult(status ->
+                        holdingImportJdbcRepository.batchInsert(type, userId, rows));
+                imported += rows.size();
+            } catch (Exception e) {
+                log.error("Failed to write import batch of {} {} holdings for user {}", rows.size(), type, userId, e);
+                for (PendingRow pending : buffer) {
+                    reject(pending.rowNumber(), "Could not be saved: " + firstLine(e.getMessage()));
+                }
+            }
+            buffer.clear();
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.expense.service.service;
+
+/**
+ * Published after a user's holdings were added, imported, deleted or sold. Listeners run once
+ * the change has committed, and each handles its own failures so one cannot stop the others.
+ */
+public record HoldingsChangedEvent(String userId) {
+}
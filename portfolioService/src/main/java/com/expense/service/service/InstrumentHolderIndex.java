@@ -0,0 +1,215 @@
+package com.expense.service.service;
+
+import com.expense.service.dto.HoldingRowDto;
+import com.expense.service.entities.AssetClass;
+import com.expense.service.entities.HoldingType;
+import com.expense.service.repository.HoldingQueryRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory index from each market-priced instrument to the users holding it, so a price
+ * change can be turned into the exact set of portfolios it affects. Built from the holding
+ * tables at startup and kept current by re-reading a user's holdings whenever a
+ * {@link HoldingsChangedEvent} is published for them on this instance. Changes made through
+ * other instances only reach the tables, so the whole index is rebuilt from them periodically.
+ */
+@Service
+@Slf4j
+public class InstrumentHolderIndex {
+
+    private final HoldingQueryRepository holdingQueryRepository;
+
+    private final Map<String, Set<String>> holdersByInstrument = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> instrumentsByUser = new ConcurrentHashMap<>();
+
+    // Users changed while a build was running; re-read once it finishes
+    private final Set<String> changedDuringBuild = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean building = new AtomicBoolean();
+    private volatile boolean ready;
+    private volatile Instant lastBuilt = Instant.MIN;
+
+    @Value("${portfolio.holder-index.rebuild-interval:PT10M}")
+    private Duration rebuildInterval;
+
+    @Value("${portfolio.snapshot.user-page-size:1000}")
+    private int userPageSize;
+
+    @Value("${portfolio.snapshot.holdings-batch-size:200}")
+    private int holdingsBatchSize;
+
+    @Autowired
+    public InstrumentHolderIndex(HoldingQueryRepository holdingQueryRepository) {
+        this.holdingQueryRepository = holdingQueryRepository;
+    }
+
+    /**
+     * Builds the index on a scheduler thread, so startup is not held up by a full holdings
+     * scan, then rebuilds it every rebuild interval. Until a build has succeeded it is retried
+     * on every check.
+     */
+    @Scheduled(initialDelayString = "PT0S", fixedDelayString = "${portfolio.holder-index.retry-interval:PT30S}")
+    public void rebuildIfDue() {
+        if (ready && lastBuilt.plus(rebuildInterval).isAfter(Instant.now())) {
+            return;
+        }
+        build();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onHoldingsChanged(HoldingsChangedEvent event) {
+        if (building.get()) {
+            changedDuringBuild.add(event.userId());
+        }
+        reindexUser(event.userId());
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Users holding at least one of the given instruments, in ascending id order.
+     */
+    public List<String> holdersOf(Map<AssetClass, ? extends Collection<String>> instruments) {
+        Set<String> holders = new TreeSet<>();
+        instruments.forEach((assetClass, instrumentIds) -> {
+            for (String instrumentId : instrumentIds) {
+                Set<String> users = holdersByInstrument.get(key(assetClass, instrumentId));
+                if (users != null) {
+                    holders.addAll(users);
+                }
+            }
+        });
+        return new ArrayList<>(holders);
+    }
+
+    /**
+     * Whether {@code userId} holds any of {@code instrumentIds}. Cheap enough to call for
+     * every connected user on each price update.
+     */
+    public boolean holdsAny(String userId, AssetClass assetClass, Collection<String> instrumentIds) {
+        Set<String> keys = instrumentsByUser.get(userId);
+        if (keys == null) {
+            return false;
+        }
+        String prefix = assetClass.name() + ":";
+        for (String key : keys) {
+            if (key.startsWith(prefix) && instrumentIds.contains(key.substring(prefix.length()))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public int instrumentCount() {
+        return holdersByInstrument.size();
+    }
+
+    void build() {
+        if (!building.compareAndSet(false, true)) {
+            return;
+        }
+        long startedAt = System.nanoTime();
+        try {
+            Set<String> seen = new HashSet<>();
+            String afterUserId = "";
+            List<String> page;
+            do {
+                page = holdingQueryRepository.findUserIdsAfter(afterUserId, userPageSize);
+                for (int from = 0; from < page.size(); from += holdingsBatchSize) {
+                    List<String> chunk = page.subList(from, Math.min(from + holdingsBatchSize, page.size()));
+                    Map<String, List<HoldingRowDto>> holdingsByUser = holdingQueryRepository.findByUserIds(chunk).stream()
+                            .collect(Collectors.groupingBy(HoldingRowDto::userId));
+                    for (String userId : chunk) {
+                        replace(userId, instrumentKeys(holdingsByUser.getOrDefault(userId, List.of())));
+                        seen.add(userId);
+                    }
+                }
+                if (!page.isEmpty()) {
+                    afterUserId = page.get(page.size() - 1);
+                }
+            } while (page.size() == userPageSize);
+
+            // Users left out of the scan no longer hold anything
+            for (String userId : new ArrayList<>(instrumentsByUser.keySet())) {
+                if (!seen.contains(userId) && !changedDuringBuild.contains(userId)) {
+                    replace(userId, Set.of());
+                }
+            }
+            ready = true;
+            lastBuilt = Instant.now();
+            log.info("Built instrument holder index: {} instruments across {} users in {}ms",
+                    holdersByInstrument.size(), instrumentsByUser.size(), (System.nanoTime() - startedAt) / 1_000_000);
+        } catch (Exception e) {
+            log.error("Failed to build instrument holder index", e);
+        } finally {
+            building.set(false);
+            // A page read before a change may have been applied after it; read those users again
+            for (String userId : changedDuringBuild) {
+                changedDuringBuild.remove(userId);
+                reindexUser(userId);
+            }
+        }
+    }
+
+    private void reindexUser(String userId) {
+        try {
+            replace(userId, instrumentKeys(holdingQueryRepository.findByUserId(userId)));
+        } catch (Exception e) {
+            log.error("Failed to update instrument holder index for user {}", userId, e);
+        }
+    }
+
+    private static Set<String> instrumentKeys(List<HoldingRowDto> holdings) {
+        Set<String> keys = new HashSet<>();
+        for (HoldingRowDto holding : holdings) {
+            if (holding.type() != HoldingType.MANUAL) {
+                keys.add(key(holding.type().getAssetClass(), holding.instrumentId()));
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * Swaps a user's instruments for {@code keys}, moving them between holder sets as needed.
+     */
+    private synchronized void replace(String userId, Set<String> keys) {
+        Set<String> previous = keys.isEmpty() ? instrumentsByUser.remove(userId) : instrumentsByUser.put(userId, keys);
+        if (previous != null) {
+            for (String key : previous) {
+                if (!keys.contains(key)) {
+                    holdersByInstrument.computeIfPresent(key, (k, users) -> {
+                        users.remove(userId);
+                        return users.isEmpty() ? null : users;
+                    });
+                }
+            }
+        }
+        for (String key : keys) {
+            holdersByInstrument.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(userId);
+        }
+    }
+
+    private static String key(AssetClass assetClass, String instrumentId) {
+        return assetClass.name() + ":" + instrumentId;
+    }
+}
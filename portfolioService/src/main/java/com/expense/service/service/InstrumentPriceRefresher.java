@@ -0,0 +1,188 @@
+package com.expense.service.service;
+
+import com.expense.service.config.InstanceIdentity;
+import com.expense.service.entities.AssetClass;
+import com.expense.service.entities.InstrumentPrice;
+import com.expense.service.repository.CryptoHoldingRepository;
+import com.expense.service.repository.InstrumentPriceRepository;
+import com.expense.service.repository.MutualFundHoldingRepository;
+import com.expense.service.repository.SchedulerLeaseJdbcRepository;
+import com.expense.service.repository.StockHoldingRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps {@code instrument_prices} current for every instrument held by any user, so the
+ * snapshot jobs and the dashboard can value portfolios from one bulk read instead of calling
+ * marketdataservice per instrument. Each asset class is refreshed on its own interval,
+ * matching how often its prices actually move; stocks only while the exchange is open, plus
+ * once after the close for the closing prices.
+ *
+ * Only the instance holding the refresher's {@link SchedulerLeaseJdbcRepository lease} calls
+ * marketdataservice. The others pick up the prices it stores and publish the same refresh
+ * events locally, so live streams connected to any instance keep updating.
+ */
+@Service
+@Slf4j
+public class InstrumentPriceRefresher {
+
+    // Instruments fetched and written per round, so a large universe never sits in memory at once
+    private static final int REFRESH_CHUNK = 500;
+    static final String LEASE = "instrument-price-refresher";
+
+    private final MarketPriceService marketPriceService;
+    private final StockHoldingRepository stockHoldingRepository;
+    private final MutualFundHoldingRepository mutualFundHoldingRepository;
+    private final CryptoHoldingRepository cryptoHoldingRepository;
+    private final InstrumentPriceRepository instrumentPriceRepository;
+    private final SchedulerLeaseJdbcRepository schedulerLeaseJdbcRepository;
+    private final String instanceId;
+    private final ApplicationEventPublisher eventPublisher;
+    private final MarketCalendar marketCalendar;
+    private final Map<AssetClass, Duration> intervals = new EnumMap<>(AssetClass.class);
+    private final Map<AssetClass, Instant> lastRefreshed = new EnumMap<>(AssetClass.class);
+    // Stored price times already published on this instance while following the lease holder
+    private final Map<String, Instant> followed = new HashMap<>();
+    private Instant followedSince = Instant.now();
+
+    @Value("${portfolio.instrument-prices.refresh.enabled:true}")
+    private boolean enabled;
+
+    @Value("${portfolio.instrument-prices.refresh.lease:PT2M}")
+    private Duration lease;
+
+    @Value("${portfolio.instrument-prices.refresh.follow-lookback:PT5M}")
+    private Duration followLookback;
+
+    @Autowired
+    public InstrumentPriceRefresher(MarketPriceService marketPriceService,
+                                    StockHoldingRepository stockHoldingRepository,
+                                    MutualFundHoldingRepository mutualFundHoldingRepository,
+                                    CryptoHoldingRepository cryptoHoldingRepository,
+                                    InstrumentPriceRepository instrumentPriceRepository,
+                                    SchedulerLeaseJdbcRepository schedulerLeaseJdbcRepository,
+                                    InstanceIdentity instanceIdentity,
+                                    ApplicationEventPublisher eventPublisher,
+                                    MarketCalendar marketCalendar,
+                                    @Value("${portfolio.instrument-prices.refresh.interval.stock:1m}") Duration stockInterval,
+                                    @Value("${portfolio.instrument-prices.refresh.interval.crypto:1m}") Duration cryptoInterval,
+                                    @Value("${portfolio.instrument-prices.refresh.interval.mutual-fund:6h}") Duration mutualFundInterval) {
+        this.marketPriceService = marketPriceService;
+        this.stockHoldingRepository = stockHoldingRepository;
+        this.mutualFundHoldingRepository = mutualFundHoldingRepository;
+        this.cryptoHoldingRepository = cryptoHoldingRepository;
+        this.instrumentPriceRepository = instrumentPriceRepository;
+        this.schedulerLeaseJdbcRepository = schedulerLeaseJdbcRepository;
+        this.instanceId = instanceIdentity.getId();
+        this.eventPublisher = eventPublisher;
+        this.marketCalendar = marketCalendar;
+        intervals.put(AssetClass.STOCK, stockInterval);
+        intervals.put(AssetClass.CRYPTO, cryptoInterval);
+        intervals.put(AssetClass.MUTUAL_FUND, mutualFundInterval);
+    }
+
+    /**
+     * Runs on a short tick. The lease holder refreshes whichever asset classes are due; a class
+     * whose refresh fails, or fetched fewer than half of its prices, is retried on the next
+     * tick. Every other instance follows the prices the holder stores.
+     */
+    @Scheduled(fixedDelayString = "${portfolio.instrument-prices.refresh.tick:PT30S}",
+            initialDelayString = "${portfolio.instrument-prices.refresh.tick:PT30S}")
+    public void refreshDue() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            if (!schedulerLeaseJdbcRepository.acquire(LEASE, instanceId, Instant.now().plus(lease))) {
+                followRefreshes();
+                return;
+            }
+        } catch (Exception e) {
+            log.warn("Skipping instrument price refresh: {}", e.getMessage());
+            return;
+        }
+        Instant now = Instant.now();
+        followedSince = now;
+        intervals.forEach((assetClass, interval) -> {
+            if (!isDue(assetClass, interval, now)) {
+                return;
+            }
+            try {
+                if (refresh(assetClass)) {
+                    lastRefreshed.put(assetClass, now);
+                }
+            } catch (Exception e) {
+                log.error("Failed to refresh {} instrument prices", assetClass, e);
+            }
+        });
+    }
+
+    private boolean isDue(AssetClass assetClass, Duration interval, Instant now) {
+        Instant last = lastRefreshed.get(assetClass);
+        if (assetClass == AssetClass.STOCK && !marketCalendar.isOpen(now)) {
+            // Closed: only the first refresh after the latest close is still worth making
+            return last == null || last.isBefore(marketCalendar.lastClose(now));
+        }
+        return last == null || !last.plus(interval).isAfter(now);
+    }
+
+    /**
+     * Publishes refresh events for prices stored since the last tick by whichever instance
+     * holds the lease.
+     */
+    private void followRefreshes() {
+        Instant now = Instant.now();
+        // A round stamps its prices with the time it started, so rows can land well after their as-of time
+        Instant since = followedSince.minus(followLookback);
+        Map<AssetClass, List<String>> changed = new EnumMap<>(AssetClass.class);
+        for (InstrumentPrice price : instrumentPriceRepository.findByAsOfAfter(since)) {
+            Instant previous = followed.put(price.getAssetClass() + ":" + price.getInstrumentId(), price.getAsOf());
+            if (!price.getAsOf().equals(previous)) {
+                changed.computeIfAbsent(price.getAssetClass(), k -> new ArrayList<>()).add(price.getInstrumentId());
+            }
+        }
+        followed.values().removeIf(asOf -> !asOf.isAfter(since));
+        followedSince = now;
+        changed.forEach((assetClass, instrumentIds) ->
+                eventPublisher.publishEvent(new InstrumentPricesRefreshedEvent(assetClass, instrumentIds)));
+    }
+
+    /**
+     * @return false if fewer than half of the held instruments could be priced
+     */
+    private boolean refresh(AssetClass assetClass) {
+        long start = System.currentTimeMillis();
+        List<String> held = heldInstruments(assetClass);
+        int refreshed = 0;
+        for (int from = 0; from < held.size(); from += REFRESH_CHUNK) {
+            List<String> chunk = held.subList(from, Math.min(from + REFRESH_CHUNK, held.size()));
+            refreshed += marketPriceService.refresh(assetClass, chunk);
+            eventPublisher.publishEvent(new InstrumentPricesRefreshedEvent(assetClass, List.copyOf(chunk)));
+        }
+        log.info("Refreshed {} of {} held {} prices in {}ms",
+                refreshed, held.size(), assetClass, System.currentTimeMillis() - start);
+        return refreshed * 2 >= held.size();
+    }
+
+    private List<String> heldInstruments(AssetClass assetClass) {
+        return switch (assetClass) {
+            case STOCK -> stockHoldingRepository.findDistinctSymbols();
+            case CRYPTO -> cryptoHoldingRepository.findDistinctCoinIds();
+            case MUTUAL_FUND -> mutualFundHoldingRepository.findDistinctSchemeCodes();
+            // No holding type is priced as NPS or metal yet
+            case NPS, METAL -> List.of();
+        };
+    }
+}
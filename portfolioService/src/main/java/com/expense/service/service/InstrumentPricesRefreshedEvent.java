@@ -0,0 +1,12 @@
+package com.expense.service.service;
+
+import com.expense.service.entities.AssetClass;
+
+import java.util.List;
+
+/**
+ * Published after a batch of stored instrument prices was updated: by the background refresher
+ * on the instance that runs it, and by every other instance once it sees the new prices.
+ */
+public record InstrumentPricesRefreshedEvent(AssetClass assetClass, List<String> instrumentIds) {
+}
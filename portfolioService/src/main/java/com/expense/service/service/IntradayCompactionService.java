@@ -0,0 +1,117 @@
+package com.expense.service.service;
+
+import com.expense.service.config.InstanceIdentity;
+import com.expense.service.entities.PortfolioHistory;
+import com.expense.service.repository.PortfolioIntradayJdbcRepository;
+import com.expense.service.repository.SchedulerLeaseJdbcRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.List;
+
+/**
+ * Folds intraday snapshots older than the retention window into daily history and deletes
+ * them, one day at a time. The daily job's own value for a day always wins; a day's last
+ * intraday value is only used for users the daily job missed. Only the instance that takes the
+ * job's {@link SchedulerLeaseJdbcRepository lease} compacts; the lease is renewed per day.
+ */
+@Service
+@Slf4j
+public class IntradayCompactionService {
+
+    static final String LEASE = "intraday-compaction";
+
+    private final PortfolioIntradayJdbcRepository portfolioIntradayJdbcRepository;
+    private final PortfolioReturnsService portfolioReturnsService;
+    private final PortfolioVersionService portfolioVersionService;
+    private final SchedulerLeaseJdbcRepository schedulerLeaseJdbcRepository;
+    private final String instanceId;
+
+    @Value("${portfolio.intraday.retention-days:7}")
+    private int retentionDays;
+
+    @Value("${portfolio.zone:Asia/Kolkata}")
+    private String zone;
+
+    @Value("${portfolio.intraday.compaction.delete-batch-size:5000}")
+    private int deleteBatchSize;
+
+    @Value("${portfolio.snapshot.write-batch-size:500}")
+    private int writeBatchSize;
+
+    @Value("${portfolio.intraday.compaction.lease:PT30M}")
+    private Duration lease;
+
+    @Autowired
+    public IntradayCompactionService(PortfolioIntradayJdbcRepository portfolioIntradayJdbcRepository,
+                                     PortfolioReturnsService portfolioReturnsService,
+                                     PortfolioVersionService portfolioVersionService,
+                                     SchedulerLeaseJdbcRepository schedulerLeaseJdbcRepository,
+                                     InstanceIdentity instanceIdentity) {
+        this.portfolioIntradayJdbcRepository = portfolioIntradayJdbcRepository;
+        this.portfolioReturnsService = portfolioReturnsService;
+        this.portfolioVersionService = portfolioVersionService;
+        this.schedulerLeaseJdbcRepository = schedulerLeaseJdbcRepository;
+        this.instanceId = instanceIdentity.getId();
+    }
+
+    @Scheduled(cron = "${portfolio.intraday.compaction.cron:0 30 2 * * ?}", zone = "${portfolio.zone:Asia/Kolkata}")
+    public void compact() {
+        LocalDate cutoff = LocalDate.now(ZoneId.of(zone)).minusDays(retentionDays);
+        LocalDate day;
+        while (holdsLease()
+                && (day = portfolioIntradayJdbcRepository.findOldestDayBefore(cutoff.atStartOfDay())) != null) {
+            if (!compactDay(day)) {
+                return;
+            }
+        }
+    }
+
+    private boolean holdsLease() {
+        try {
+            return schedulerLeaseJdbcRepository.acquire(LEASE, instanceId, Instant.now().plus(lease));
+        } catch (Exception e) {
+            log.warn("Skipping intraday compaction: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    private boolean compactDay(LocalDate day) {
+        try {
+            List<PortfolioHistory> missing = portfolioIntradayJdbcRepository.findDayCloseMissingFromDaily(day);
+            try (SnapshotBatchWriter writer = new SnapshotBatchWriter("Intraday compaction", rows -> {
+                portfolioReturnsService.writeHistory(rows);
+                portfolioVersionService.recordHistoryWritten(rows);
+            }, writeBatchSize)) {
+                missing.forEach(writer::add);
+                writer.flush();
+                if (writer.getRowsFailed() > 0) {
+                    // Keep the intraday rows so the next run can retry the day
+                    log.error("Stopping intraday compaction: {} daily rows for {} could not be written",
+                            writer.getRowsFailed(), day);
+                    return false;
+                }
+            }
+
+            long deleted = 0;
+            int batch;
+            do {
+                batch = portfolioIntradayJdbcRepository.deleteDay(day, deleteBatchSize);
+                deleted += batch;
+            } while (batch == deleteBatchSize);
+            log.info("Compacted intraday snapshots for {}: {} daily rows filled, {} intraday rows deleted",
+                    day, missing.size(), deleted);
+            return true;
+        } catch (Exception e) {
+            log.error("Failed to compact intraday snapshots for {}", day, e);
+            return false;
+        }
+    }
+}
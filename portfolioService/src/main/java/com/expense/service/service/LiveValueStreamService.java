@@ -0,0 +1,381 @@
+package com.expense.service.service;
+
+import com.expense.service.dto.AggregatedAssetDto;
+import com.expense.service.dto.LiveAssetValueDto;
+import com.expense.service.dto.LiveValueDto;
+import com.expense.service.dto.PortfolioDashboardDto;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Pushes live portfolio values to connected clients over Server-Sent Events.
+ *
+ * Connections are async servlet requests, so an open stream holds no thread. All of a user's
+ * tabs share one subscription: a price refresh that touches the user's instruments marks it
+ * dirty, and a small recompute pool recomputes the value once and offers the result to every
+ * tab. Marks arriving while a recompute is queued are conflated into it. Each tab has a single
+ * pending slot; a slow client that is still receiving has newer updates merged into that
+ * slot, so it only ever falls behind by one message and never buffers a backlog.
+ *
+ * Servlet writes block, so they run on a send pool of their own and a stalled client can never
+ * hold up recomputes. A tab whose write has not finished within the send timeout is dropped
+ * from its subscription and closed once the write returns.
+ */
+@Service
+@Slf4j
+public class LiveValueStreamService {
+
+    private final PortfolioDashboardService portfolioDashboardService;
+    private final InstrumentHolderIndex instrumentHolderIndex;
+    private final Map<String, Subscription> subscriptions = new ConcurrentHashMap<>();
+    private final AtomicInteger connectionCount = new AtomicInteger();
+    private final ExecutorService recomputePool;
+    private final ExecutorService sendPool;
+
+    @Value("${portfolio.live.connection-timeout:30m}")
+    private Duration connectionTimeout;
+
+    @Value("${portfolio.live.max-connections-per-user:8}")
+    private int maxConnectionsPerUser;
+
+    @Value("${portfolio.live.send-timeout:PT10S}")
+    private Duration sendTimeout;
+
+    @Autowired
+    public LiveValueStreamService(PortfolioDashboardService portfolioDashboardService,
+                                  InstrumentHolderIndex instrumentHolderIndex,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${portfolio.live.recompute-threads:4}") int recomputeThreads,
+                                  @Value("${portfolio.live.send-threads:8}") int sendThreads) {
+        this.portfolioDashboardService = portfolioDashboardService;
+        this.instrumentHolderIndex = instrumentHolderIndex;
+        this.recomputePool = newPool("live-recompute-", recomputeThreads);
+        this.sendPool = newPool("live-send-", sendThreads);
+        Gauge.builder("portfolio.live.connections", connectionCount, AtomicInteger::get).register(meterRegistry);
+    }
+
+    private static ExecutorService newPool(String namePrefix, int threads) {
+        AtomicInteger threadCount = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, namePrefix + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        recomputePool.shutdownNow();
+        sendPool.shutdownNow();
+    }
+
+    /**
+     * Opens a stream for one tab. The tab first receives a full update, then deltas.
+     */
+    public SseEmitter connect(String userId) {
+        SseEmitter emitter = new SseEmitter(connectionTimeout.toMillis());
+        Connection connection = new Connection(userId, emitter);
+        List<Connection> evicted = new ArrayList<>();
+        Subscription subscription = subscriptions.compute(userId, (id, existing) -> {
+            Subscription current = existing != null ? existing : new Subscription(id);
+            current.connections.add(connection);
+            // The oldest tabs make way once a user has too many open
+            while (current.connections.size() > maxConnectionsPerUser) {
+                evicted.add(current.connections.remove(0));
+            }
+            return current;
+        });
+        connectionCount.incrementAndGet();
+        emitter.onCompletion(() -> disconnect(connection));
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(error -> disconnect(connection));
+        evicted.forEach(old -> old.emitter.complete());
+
+        LiveValueDto latest = subscription.latest;
+        if (latest != null) {
+            connection.offer(latest);
+        } else {
+            markDirty(subscription, true);
+        }
+        return emitter;
+    }
+
+    @EventListener
+    public void onPricesRefreshed(InstrumentPricesRefreshedEvent event) {
+        if (subscriptions.isEmpty()) {
+            return;
+        }
+        Set<String> instrumentIds = new HashSet<>(event.instrumentIds());
+        for (Subscription subscription : subscriptions.values()) {
+            // Until the index is built every connected user is treated as affected
+            if (!instrumentHolderIndex.isReady()
+                    || instrumentHolderIndex.holdsAny(subscription.userId, event.assetClass(), instrumentIds)) {
+                markDirty(subscription, false);
+            }
+        }
+    }
+
+    @EventListener
+    public void onPortfolioRevalued(PortfolioRevaluedEvent event) {
+        Subscription subscription = subscriptions.get(event.userId());
+        if (subscription != null) {
+            markDirty(subscription, false);
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onHoldingsChanged(HoldingsChangedEvent event) {
+        Subscription subscription = subscriptions.get(event.userId());
+        if (subscription != null) {
+            // Assets may have been removed, so clients replace their state rather than merge into it
+            markDirty(subscription, true);
+        }
+    }
+
+    /**
+     * Keeps idle streams open through proxies and detects clients that went away silently.
+     */
+    @Scheduled(fixedDelayString = "${portfolio.live.heartbeat-interval:PT20S}")
+    public void sendHeartbeats() {
+        for (Subscription subscription : subscriptions.values()) {
+            subscription.connections.forEach(Connection::heartbeat);
+        }
+    }
+
+    /**
+     * Drops tabs whose current write has been blocked for longer than the send timeout, so
+     * they stop being fed updates.
+     */
+    @Scheduled(fixedDelayString = "${portfolio.live.send-timeout:PT10S}")
+    public void dropStalledConnections() {
+        long now = System.nanoTime();
+        for (Subscription subscription : subscriptions.values()) {
+            for (Connection connection : subscription.connections) {
+                long startedAt = connection.sendStartedAt;
+                if (startedAt != 0 && now - startedAt > sendTimeout.toNanos()) {
+                    log.debug("Dropping live value stream for user {}: write blocked for over {}",
+                            connection.userId, sendTimeout);
+                    disconnect(connection);
+                }
+            }
+        }
+    }
+
+    private void disconnect(Connection connection) {
+        if (!connection.closed.compareAndSet(false, true)) {
+            return;
+        }
+        connectionCount.decrementAndGet();
+        subscriptions.computeIfPresent(connection.userId, (id, subscription) -> {
+            subscription.connections.remove(connection);
+            return subscription.connections.isEmpty() ? null : subscription;
+        });
+    }
+
+    private void markDirty(Subscription subscription, boolean full) {
+        if (full) {
+            subscription.fullNext.set(true);
+        }
+        if (subscription.queued.compareAndSet(false, true)) {
+            recomputePool.execute(() -> {
+                // Cleared before recomputing so a mark that lands during the recompute queues another
+                subscription.queued.set(false);
+                recompute(subscription);
+            });
+        }
+    }
+
+    private void recompute(Subscription subscription) {
+        synchronized (subscription) {
+            if (subscription.connections.isEmpty()) {
+                return;
+            }
+            PortfolioDashboardDto dashboard;
+            try {
+                dashboard = portfolioDashboardService.getDashboard(subscription.userId);
+            } catch (Exception e) {
+                log.warn("Failed to recompute live value for user {}: {}", subscription.userId, e.getMessage());
+                return;
+            }
+
+            Map<String, LiveAssetValueDto> assets = new LinkedHashMap<>();
+            for (AggregatedAssetDto asset : dashboard.getAssets()) {
+                assets.put(asset.getExternalId(), new LiveAssetValueDto(asset.getExternalId(), asset.getType(),
+                        asset.getName(), asset.getCurrentPrice(), asset.getCurrentValue(), asset.getPnl()));
+            }
+            boolean full = subscription.fullNext.getAndSet(false) || subscription.latest == null;
+            List<LiveAssetValueDto> moved = new ArrayList<>();
+            for (LiveAssetValueDto asset : assets.values()) {
+                LiveAssetValueDto previous = subscription.assets.get(asset.externalId());
+                if (previous == null || previous.currentValue().compareTo(asset.currentValue()) != 0) {
+                    moved.add(asset);
+                }
+            }
+            if (!full && moved.isEmpty()) {
+                return;
+            }
+
+            Instant asOf = Instant.now();
+            LiveValueDto snapshot = new LiveValueDto(true, dashboard.getTotalCurrentValue(),
+                    dashboard.getTotalInvested(), null, List.copyOf(assets.values()), asOf);
+            subscription.assets = assets;
+            subscription.latest = snapshot;
+            LiveValueDto update = full ? snapshot
+                    : new LiveValueDto(false, snapshot.totalValue(), snapshot.totalInvested(), null, moved, asOf);
+            subscription.connections.forEach(connection -> connection.offer(update));
+        }
+    }
+
+    /**
+     * Folds {@code next} into an update the client has not received yet. A full update
+     * replaces everything; deltas are merged per asset with the newer value winning.
+     */
+    private static LiveValueDto merge(LiveValueDto pending, LiveValueDto next) {
+        if (pending == null || next.full()) {
+            return next;
+        }
+        Map<String, LiveAssetValueDto> assets = new LinkedHashMap<>();
+        pending.assets().forEach(asset -> assets.put(asset.externalId(), asset));
+        next.assets().forEach(asset -> assets.put(asset.externalId(), asset));
+        return new LiveValueDto(pending.full(), next.totalValue(), next.totalInvested(), null,
+                List.copyOf(assets.values()), next.asOf());
+    }
+
+    /**
+     * Every open tab of one user, and the last value computed for them.
+     */
+    private static final class Subscription {
+        final String userId;
+        final List<Connection> connections = new CopyOnWriteArrayList<>();
+        final AtomicBoolean queued = new AtomicBoolean();
+        final AtomicBoolean fullNext = new AtomicBoolean();
+        // Guarded by the subscription's monitor; latest is also read on connect
+        Map<String, LiveAssetValueDto> assets = Map.of();
+        volatile LiveValueDto latest;
+
+        Subscription(String userId) {
+            this.userId = userId;
+        }
+    }
+
+    /**
+     * One open tab. At most one push for it runs at a time, and everything it has not been
+     * sent yet lives in a single merged slot.
+     */
+    private final class Connection {
+        final String userId;
+        final SseEmitter emitter;
+        final AtomicReference<LiveValueDto> pending = new AtomicReference<>();
+        final AtomicBoolean sending = new AtomicBoolean();
+        final AtomicBoolean closed = new AtomicBoolean();
+        // Only touched by the thread that holds the sending flag
+        BigDecimal lastSentTotal;
+        // System.nanoTime() when the write in progress started, 0 while none is
+        volatile long sendStartedAt;
+
+        Connection(String userId, SseEmitter emitter) {
+            this.userId = userId;
+            this.emitter = emitter;
+        }
+
+        void offer(LiveValueDto update) {
+            pending.accumulateAndGet(update, LiveValueStreamService::merge);
+            drain();
+        }
+
+        void heartbeat() {
+            // A tab that is mid-send is evidently alive
+            if (!closed.get() && sending.compareAndSet(false, true)) {
+                sendPool.execute(() -> {
+                    try {
+                        send(SseEmitter.event().comment("heartbeat"));
+                    } catch (Exception e) {
+                        fail(e);
+                    } finally {
+                        sending.set(false);
+                    }
+                    drainIfPending();
+                });
+            }
+        }
+
+        private void drain() {
+            if (!closed.get() && sending.compareAndSet(false, true)) {
+                sendPool.execute(this::sendPending);
+            }
+        }
+
+        private void drainIfPending() {
+            if (pending.get() != null) {
+                drain();
+            }
+        }
+
+        private void sendPending() {
+            try {
+                LiveValueDto update;
+                while (!closed.get() && (update = pending.getAndSet(null)) != null) {
+                    BigDecimal change = lastSentTotal == null ? BigDecimal.ZERO : update.totalValue().subtract(lastSentTotal);
+                    send(SseEmitter.event()
+                            .name("value")
+                            .data(new LiveValueDto(update.full(), update.totalValue(), update.totalInvested(), change,
+                                    update.assets(), update.asOf())));
+                    lastSentTotal = update.totalValue();
+                }
+            } catch (Exception e) {
+                fail(e);
+            } finally {
+                sending.set(false);
+            }
+            // An offer may have landed after the loop saw an empty slot but before the flag was cleared
+            drainIfPending();
+        }
+
+        private void send(SseEmitter.SseEventBuilder event) throws IOException {
+            sendStartedAt = System.nanoTime();
+            try {
+                emitter.send(event);
+            } finally {
+                sendStartedAt = 0;
+            }
+            if (closed.get()) {
+                // Dropped for a stalled write while it was blocked; end the response now it has returned
+                emitter.complete();
+            }
+        }
+
+        private void fail(Exception e) {
+            log.debug("Closing live value stream for user {}: {}", userId, e.getMessage());
+            emitter.completeWithError(e);
+            disconnect(this);
+        }
+    }
+}
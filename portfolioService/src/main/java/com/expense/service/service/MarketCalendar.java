@@ -0,0 +1,63 @@
+package com.expense.service.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+
+/**
+ * Stock exchange trading hours in {@code portfolio.zone}. Stock prices only move while the
+ * market is open, so both how often they are refreshed and how long a stored one stays
+ * current follow these hours.
+ */
+@Component
+public class MarketCalendar {
+
+    private final ZoneId zone;
+    private final LocalTime marketOpen;
+    private final LocalTime marketClose;
+
+    @Autowired
+    public MarketCalendar(@Value("${portfolio.zone:Asia/Kolkata}") String zone,
+                          @Value("${portfolio.instrument-prices.refresh.market-open:09:15}") String marketOpen,
+                          @Value("${portfolio.instrument-prices.refresh.market-close:15:45}") String marketClose) {
+        this.zone = ZoneId.of(zone);
+        this.marketOpen = LocalTime.parse(marketOpen);
+        this.marketClose = LocalTime.parse(marketClose);
+    }
+
+    public boolean isOpen(Instant time) {
+        return isOpen(time.atZone(zone));
+    }
+
+    boolean isOpen(ZonedDateTime time) {
+        LocalTime clock = time.toLocalTime();
+        return isTradingDay(time.toLocalDate()) && !clock.isBefore(marketOpen) && clock.isBefore(marketClose);
+    }
+
+    public Instant lastClose(Instant time) {
+        return lastClose(time.atZone(zone));
+    }
+
+    /**
+     * The most recent market close at or before {@code time}. Exchange holidays are not
+     * known here, so they are treated as trading days.
+     */
+    Instant lastClose(ZonedDateTime time) {
+        LocalDate day = time.toLocalDate();
+        while (!isTradingDay(day) || day.atTime(marketClose).atZone(zone).isAfter(time)) {
+            day = day.minusDays(1);
+        }
+        return day.atTime(marketClose).atZone(zone).toInstant();
+    }
+
+    private static boolean isTradingDay(LocalDate day) {
+        return day.getDayOfWeek() != DayOfWeek.SATURDAY && day.getDayOfWeek() != DayOfWeek.SUNDAY;
+    }
+}
@@ -0,0 +1,115 @@
+package com.expense.service.service;
+
+import com.expense.service.entities.AssetClass;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded, in-process cache of market prices. Each asset class has its own TTL because
+ * their sources refresh at very different rates (mutual fund NAVs once a day, crypto
+ * continuously). When full, the least recently used entry is evicted.
+ */
+@Component
+public class MarketPriceCache {
+
+    private record Entry(BigDecimal price, long expiresAtNanos) {
+    }
+
+    private final int maxEntries;
+    private final Map<AssetClass, Duration> ttls = new EnumMap<>(AssetClass.class);
+    private final LinkedHashMap<String, Entry> entries;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong expirations = new AtomicLong();
+
+    @Autowired
+    public MarketPriceCache(
+            @Value("${portfolio.price-cache.max-entries:10000}") int maxEntries,
+            @Value("${portfolio.price-cache.ttl.stock:1m}") Duration stockTtl,
+            @Value("${portfolio.price-cache.ttl.crypto:30s}") Duration cryptoTtl,
+            @Value("${portfolio.price-cache.ttl.mutual-fund:6h}") Duration mutualFundTtl,
+            @Value("${portfolio.price-cache.ttl.nps:6h}") Duration npsTtl,
+            @Value("${portfolio.price-cache.ttl.metal:15m}") Duration metalTtl,
+            MeterRegistry meterRegistry) {
+        this.maxEntries = maxEntries;
+        ttls.put(AssetClass.STOCK, stockTtl);
+        ttls.put(AssetClass.CRYPTO, cryptoTtl);
+        ttls.put(AssetClass.MUTUAL_FUND, mutualFundTtl);
+        ttls.put(AssetClass.NPS, npsTtl);
+        ttls.put(AssetClass.METAL, metalTtl);
+
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() > MarketPriceCache.this.maxEntries) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+
+        FunctionCounter.builder("portfolio.price.cache.hits", hits, AtomicLong::get).register(meterRegistry);
+        FunctionCounter.builder("portfolio.price.cache.misses", misses, AtomicLong::get).register(meterRegistry);
+        FunctionCounter.builder("portfolio.price.cache.evictions", evictions, AtomicLong::get).register(meterRegistry);
+        FunctionCounter.builder("portfolio.price.cache.expirations", expirations, AtomicLong::get).register(meterRegistry);
+        Gauge.builder("portfolio.price.cache.size", this, MarketPriceCache::size).register(meterRegistry);
+    }
+
+    /**
+     * Returns the cached price, or {@code null} when it is absent or older than its asset class TTL.
+     */
+    public BigDecimal get(AssetClass assetClass, String instrumentId) {
+        String key = key(assetClass, instrumentId);
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry == null) {
+                misses.incrementAndGet();
+                return null;
+            }
+            if (System.nanoTime() - entry.expiresAtNanos() > 0) {
+                entries.remove(key);
+                expirations.incrementAndGet();
+                misses.incrementAndGet();
+                return null;
+            }
+            hits.incrementAndGet();
+            return entry.price();
+        }
+    }
+
+    public void put(AssetClass assetClass, String instrumentId, BigDecimal price) {
+        long expiresAt = System.nanoTime() + ttls.get(assetClass).toNanos();
+        synchronized (entries) {
+            entries.put(key(assetClass, instrumentId), new Entry(price, expiresAt));
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public String stats() {
+        return String.format("size=%d hits=%d misses=%d evictions=%d expirations=%d",
+                size(), hits.get(), misses.get(), evictions.get(), expirations.get());
+    }
+
+    private static String key(AssetClass assetClass, String instrumentId) {
+        return assetClass.name() + ":" + instrumentId;
+    }
+}
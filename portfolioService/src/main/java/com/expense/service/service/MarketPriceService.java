@@ -0,0 +1,275 @@
+package com.expense.service.service;
+
+import com.expense.service.client.MarketDataClient;
+import com.expense.service.entities.AssetClass;
+import com.expense.service.entities.InstrumentPrice;
+import com.expense.service.repository.InstrumentPriceJdbcRepository;
+import com.expense.service.repository.InstrumentPriceRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Single entry point for current market prices. Every lookup goes through
+ * {@link MarketPriceCache} before calling marketdataservice, and concurrent misses for the
+ * same instrument share one in-flight request (single flight) along with its result or failure.
+ *
+ * Successful live prices are recorded in {@code instrument_prices}, which
+ * {@link InstrumentPriceRefresher} keeps current for every held instrument. {@link #resolveQuotes}
+ * reads recent stored prices in bulk instead of calling out, and falls back to older stored
+ * values, flagged as stale, when a live lookup fails.
+ *
+ * Instrument ids are the identifiers stored on holdings: stock symbol, crypto coin id,
+ * mutual fund scheme code, NPS scheme id, and {@code metal:grade} for metals
+ * (e.g. {@code gold:24K}, {@code silver:1 G}).
+ */
+@Service
+@Slf4j
+public class MarketPriceService {
+
+    private static final int STORED_LOOKUP_CHUNK = 1000;
+
+    private final MarketDataClient marketDataClient;
+    private final MarketPriceCache priceCache;
+    private final InstrumentPriceRepository instrumentPriceRepository;
+    private final InstrumentPriceJdbcRepository instrumentPriceJdbcRepository;
+    private final MarketCalendar marketCalendar;
+
+    private final ConcurrentHashMap<String, CompletableFuture<BigDecimal>> inFlight = new ConcurrentHashMap<>();
+    private final Counter coalescedRequests;
+    private final Map<AssetClass, Duration> storedMaxAges = new EnumMap<>(AssetClass.class);
+
+    @Autowired
+    public MarketPriceService(MarketDataClient marketDataClient,
+                              MarketPriceCache priceCache,
+                              InstrumentPriceRepository instrumentPriceRepository,
+                              InstrumentPriceJdbcRepository instrumentPriceJdbcRepository,
+                              MeterRegistry meterRegistry,
+                              MarketCalendar marketCalendar,
+                              @Value("${portfolio.instrument-prices.max-age.stock:5m}") Duration stockMaxAge,
+                              @Value("${portfolio.instrument-prices.max-age.crypto:5m}") Duration cryptoMaxAge,
+                              @Value("${portfolio.instrument-prices.max-age.mutual-fund:1d}") Duration mutualFundMaxAge,
+                              @Value("${portfolio.instrument-prices.max-age.nps:1d}") Duration npsMaxAge,
+                              @Value("${portfolio.instrument-prices.max-age.metal:1h}") Duration metalMaxAge) {
+        this.marketDataClient = marketDataClient;
+        this.priceCache = priceCache;
+        this.instrumentPriceRepository = instrumentPriceRepository;
+        this.instrumentPriceJdbcRepository = instrumentPriceJdbcRepository;
+        this.marketCalendar = marketCalendar;
+        this.coalescedRequests = Counter.builder("portfolio.price.requests.coalesced").register(meterRegistry);
+        storedMaxAges.put(AssetClass.STOCK, stockMaxAge);
+        storedMaxAges.put(AssetClass.CRYPTO, cryptoMaxAge);
+        storedMaxAges.put(AssetClass.MUTUAL_FUND, mutualFundMaxAge);
+        storedMaxAges.put(AssetClass.NPS, npsMaxAge);
+        storedMaxAges.put(AssetClass.METAL, metalMaxAge);
+    }
+
+    /**
+     * Returns the current price without blocking. The future completes with {@code null} if
+     * marketdataservice has no price for the instrument, and exceptionally if the call failed.
+     */
+    public CompletableFuture<BigDecimal> getPriceAsync(AssetClass assetClass, String instrumentId) {
+        BigDecimal cached = priceCache.get(assetClass, instrumentId);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        return fetchShared(assetClass, instrumentId, true);
+    }
+
+    private CompletableFuture<BigDecimal> fetchShared(AssetClass assetClass, String instrumentId, boolean allowCached) {
+        String key = assetClass.name() + ":" + instrumentId;
+        CompletableFuture<BigDecimal> call = new CompletableFuture<>();
+        CompletableFuture<BigDecimal> existing = inFlight.putIfAbsent(key, call);
+        if (existing != null) {
+            coalescedRequests.increment();
+            return existing;
+        }
+
+        // The previous leader may have filled the cache between our miss and putIfAbsent
+        BigDecimal raced = allowCached ? priceCache.get(assetClass, instrumentId) : null;
+        if (raced != null) {
+            inFlight.remove(key, call);
+            call.complete(raced);
+            return call;
+        }
+
+        marketDataClient.fetchPrice(assetClass, instrumentId).whenComplete((price, error) -> {
+            if (error == null && price != null) {
+                priceCache.put(assetClass, instrumentId, price);
+            }
+            inFlight.remove(key, call);
+            if (error != null) {
+                call.completeExceptionally(error);
+            } else {
+                call.complete(price);
+            }
+        });
+        return call;
+    }
+
+    /**
+     * Stored prices as of this time or later are used as they are. Stock prices stop moving at
+     * the close, so outside market hours one stored after the latest close stays current until
+     * the next open, however old it is.
+     */
+    private Instant freshAfter(AssetClass assetClass, Instant now) {
+        Instant freshAfter = now.minus(storedMaxAges.get(assetClass));
+        if (assetClass == AssetClass.STOCK && !marketCalendar.isOpen(now)) {
+            Instant lastClose = marketCalendar.lastClose(now);
+            return lastClose.isBefore(freshAfter) ? lastClose : freshAfter;
+        }
+        return freshAfter;
+    }
+
+    /**
+     * Blocking variant of {@link #getPriceAsync}. Returns {@code null} if no price could be
+     * obtained; the client's timeouts bound how long this can wait.
+     */
+    public BigDecimal getPrice(AssetClass assetClass, String instrumentId) {
+        return await(getPriceAsync(assetClass, instrumentId), assetClass, instrumentId);
+    }
+
+    private BigDecimal await(CompletableFuture<BigDecimal> price, AssetClass assetClass, String instrumentId) {
+        try {
+            return price.get();
+        } catch (ExecutionException e) {
+            log.warn("Failed to fetch {} price for {}: {}", assetClass, instrumentId, e.getCause().getMessage());
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    /**
+     * Resolves prices for many instruments at once. Cache hits are used directly, then prices
+     * that {@link InstrumentPriceRefresher} keeps current in {@code instrument_prices} are read
+     * in bulk, and only instruments without a recent stored price are looked up live, all
+     * issued before any is awaited. Freshly fetched prices are saved as the new stored values;
+     * instruments whose lookup failed get their older stored price marked stale, and
+     * instruments with neither are left out of the book.
+     */
+    public PriceBook resolveQuotes(Map<AssetClass, ? extends Collection<String>> instruments) {
+        PriceBook priceBook = new PriceBook();
+        Instant now = Instant.now();
+        Map<AssetClass, Map<String, CompletableFuture<BigDecimal>>> pending = new EnumMap<>(AssetClass.class);
+        Map<AssetClass, Map<String, InstrumentPrice>> outdated = new EnumMap<>(AssetClass.class);
+        instruments.forEach((assetClass, instrumentIds) -> {
+            Set<String> uncached = new LinkedHashSet<>();
+            for (String instrumentId : instrumentIds) {
+                BigDecimal cached = priceCache.get(assetClass, instrumentId);
+                if (cached != null) {
+                    priceBook.put(assetClass, instrumentId, PriceQuote.live(cached, now));
+                } else {
+                    uncached.add(instrumentId);
+                }
+            }
+
+            Instant freshAfter = freshAfter(assetClass, now);
+            Map<String, InstrumentPrice> olderStored = new HashMap<>();
+            for (InstrumentPrice stored : findStored(assetClass, uncached)) {
+                if (stored.getAsOf().isBefore(freshAfter)) {
+                    olderStored.put(stored.getInstrumentId(), stored);
+                } else {
+                    priceBook.put(assetClass, stored.getInstrumentId(), PriceQuote.live(stored.getPrice(), stored.getAsOf()));
+                    uncached.remove(stored.getInstrumentId());
+                }
+            }
+            outdated.put(assetClass, olderStored);
+
+            Map<String, CompletableFuture<BigDecimal>> byInstrument = new HashMap<>();
+            for (String instrumentId : uncached) {
+                byInstrument.put(instrumentId, fetchShared(assetClass, instrumentId, true));
+            }
+            pending.put(assetClass, byInstrument);
+        });
+
+        pending.forEach((assetClass, byInstrument) -> {
+            Map<String, BigDecimal> live = new HashMap<>();
+            int lastKnown = 0;
+            for (Map.Entry<String, CompletableFuture<BigDecimal>> call : byInstrument.entrySet()) {
+                BigDecimal resolved = await(call.getValue(), assetClass, call.getKey());
+                InstrumentPrice stored = outdated.get(assetClass).get(call.getKey());
+                if (resolved != null) {
+                    live.put(call.getKey(), resolved);
+                    priceBook.put(assetClass, call.getKey(), PriceQuote.live(resolved, now));
+                } else if (stored != null) {
+                    lastKnown++;
+                    priceBook.put(assetClass, call.getKey(), PriceQuote.lastKnown(stored.getPrice(), stored.getAsOf()));
+                }
+            }
+            store(assetClass, live, now);
+
+            int missing = byInstrument.size() - live.size();
+            if (missing > 0) {
+                log.warn("{} of {} {} prices unavailable; {} served from last known good values",
+                        missing, byInstrument.size(), assetClass, lastKnown);
+            }
+        });
+        return priceBook;
+    }
+
+    /**
+     * Fetches live prices for {@code instrumentIds}, bypassing the cache, and stores them in
+     * the cache and {@code instrument_prices}. Used by the background refresher.
+     *
+     * @return number of instruments refreshed
+     */
+    public int refresh(AssetClass assetClass, Collection<String> instrumentIds) {
+        Instant now = Instant.now();
+        Map<String, CompletableFuture<BigDecimal>> calls = new HashMap<>();
+        for (String instrumentId : instrumentIds) {
+            calls.put(instrumentId, fetchShared(assetClass, instrumentId, false));
+        }
+        Map<String, BigDecimal> live = new HashMap<>();
+        calls.forEach((instrumentId, call) -> {
+            BigDecimal price = await(call, assetClass, instrumentId);
+            if (price != null) {
+                live.put(instrumentId, price);
+            }
+        });
+        store(assetClass, live, now);
+        return live.size();
+    }
+
+    private List<InstrumentPrice> findStored(AssetClass assetClass, Collection<String> instrumentIds) {
+        List<String> ids = new ArrayList<>(instrumentIds);
+        List<InstrumentPrice> stored = new ArrayList<>(ids.size());
+        // Chunked so the IN lists stay a reasonable size for very large books
+        for (int from = 0; from < ids.size(); from += STORED_LOOKUP_CHUNK) {
+            stored.addAll(instrumentPriceRepository.findByAssetClassAndInstrumentIdIn(
+                    assetClass, ids.subList(from, Math.min(from + STORED_LOOKUP_CHUNK, ids.size()))));
+        }
+        return stored;
+    }
+
+    private void store(AssetClass assetClass, Map<String, BigDecimal> live, Instant asOf) {
+        try {
+            instrumentPriceJdbcRepository.batchUpsert(assetClass, live, asOf);
+        } catch (Exception e) {
+            log.warn("Failed to record last known {} prices: {}", assetClass, e.getMessage());
+        }
+    }
+
+    public String cacheStats() {
+        return priceCache.stats();
+    }
+}
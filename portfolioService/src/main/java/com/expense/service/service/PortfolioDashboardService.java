@@ -0,0 +1,87 @@
+package com.expense.service.service;
+
+import com.expense.service.dto.AggregatedAssetDto;
+import com.expense.service.dto.HoldingRowDto;
+import com.expense.service.dto.PortfolioDashboardDto;
+import com.expense.service.entities.AssetClass;
+import com.expense.service.entities.HoldingType;
+import com.expense.service.repository.HoldingQueryRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Builds the whole dashboard for one user server side: holdings of every type, their
+ * current prices and the aggregated totals, in a single response.
+ */
+@Service
+public class PortfolioDashboardService {
+
+    private final HoldingQueryRepository holdingQueryRepository;
+    private final MarketPriceService marketPriceService;
+
+    @Autowired
+    public PortfolioDashboardService(HoldingQueryRepository holdingQueryRepository,
+                                     MarketPriceService marketPriceService) {
+        this.holdingQueryRepository = holdingQueryRepository;
+        this.marketPriceService = marketPriceService;
+    }
+
+    public PortfolioDashboardDto getDashboard(String userId) {
+        List<HoldingRowDto> holdings = holdingQueryRepository.findPositionsByUserId(userId);
+
+        // Resolve every distinct instrument in one pass; lookups run concurrently in the market data client
+        Map<AssetClass, Set<String>> instruments = new EnumMap<>(AssetClass.class);
+        for (HoldingRowDto holding : holdings) {
+            if (holding.type() != HoldingType.MANUAL) {
+                instruments.computeIfAbsent(holding.type().getAssetClass(), k -> new LinkedHashSet<>())
+                        .add(holding.instrumentId());
+            }
+        }
+        PriceBook prices = marketPriceService.resolveQuotes(instruments);
+
+        // Positions already merge the lots of each instrument; manual holdings are listed as they are
+        List<AggregatedAssetDto> positions = new ArrayList<>();
+        List<AggregatedAssetDto> manuals = new ArrayList<>();
+        for (HoldingRowDto holding : holdings) {
+            if (holding.type() == HoldingType.MANUAL) {
+                BigDecimal currentValue = holding.manualValue();
+                manuals.add(new AggregatedAssetDto(holding.externalId(), holding.detail(), holding.instrumentId(),
+                        null, holding.investedValue(), null, currentValue,
+                        currentValue.subtract(holding.investedValue())));
+            } else {
+                positions.add(new AggregatedAssetDto(holding.externalId(), holding.type().name(), holding.instrumentId(),
+                        holding.quantity(), holding.investedValue(), null, null, null));
+            }
+        }
+
+        List<AggregatedAssetDto> assets = new ArrayList<>(positions.size() + manuals.size());
+        for (AggregatedAssetDto asset : positions) {
+            PriceQuote quote = prices.get(HoldingType.valueOf(asset.getType()).getAssetClass(), asset.getName());
+            // Without any known price the position is shown at cost rather than at zero
+            BigDecimal currentValue = quote != null
+                    ? asset.getQuantity().multiply(quote.price())
+                    : asset.getTotalInvested();
+            asset.setCurrentPrice(quote != null ? quote.price() : null);
+            asset.setCurrentValue(currentValue);
+            asset.setPnl(currentValue.subtract(asset.getTotalInvested()));
+            assets.add(asset);
+        }
+        assets.addAll(manuals);
+
+        BigDecimal totalInvested = BigDecimal.ZERO;
+        BigDecimal totalCurrentValue = BigDecimal.ZERO;
+        for (AggregatedAssetDto asset : assets) {
+            totalInvested = totalInvested.add(asset.getTotalInvested());
+            totalCurrentValue = totalCurrentValue.add(asset.getCurrentValue());
+        }
+        return new PortfolioDashboardDto(assets, totalInvested, totalCurrentValue, totalCurrentValue.subtract(totalInvested));
+    }
+}
@@ -0,0 +1,252 @@
+package com.expense.service.service;
+
+import com.expense.service.dto.PortfolioProjectionDto;
+import com.expense.service.dto.ProjectionBandDto;
+import com.expense.service.entities.AssetClassBreakdown;
+import com.expense.service.entities.PortfolioHistory;
+import com.expense.service.repository.PortfolioHistoryJdbcRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Projects where a portfolio may be in a number of years by resampling the daily growth of
+ * each holding type from the user's own history, starting from the latest snapshot's
+ * allocation (see {@link MonteCarloProjection}).
+ *
+ * Results only change when history does, so they are cached per user and tagged with the
+ * user's history version; the next snapshot written for the user, on any instance, makes the
+ * cached result stale without an explicit invalidation. Concurrent misses for the same
+ * projection wait for one simulation, and at most {@code max-concurrent} simulations run at
+ * once.
+ */
+@Service
+@Slf4j
+public class PortfolioProjectionService {
+
+    // Snapshots are taken every calendar day, so a year of history is 365 points
+    private static final int STEPS_PER_YEAR = 365;
+    // Daily growth outside this range is taken to be a valuation glitch rather than a market move
+    private static final double MIN_DAILY_GROWTH = 0.2;
+    private static final double MAX_DAILY_GROWTH = 3.0;
+
+    private record CachedProjection(String historyVersion, PortfolioProjectionDto projection) {
+    }
+
+    private final PortfolioHistoryJdbcRepository portfolioHistoryJdbcRepository;
+    private final PortfolioVersionService portfolioVersionService;
+    private final ForkJoinPool simulationPool;
+    private final int maxCacheEntries;
+    private final LinkedHashMap<String, CachedProjection> cache;
+    // Simulations in progress by cache key and history version
+    private final Map<String, CompletableFuture<PortfolioProjectionDto>> inFlight = new ConcurrentHashMap<>();
+    private final Semaphore simulations;
+    private final Duration queueTimeout;
+
+    @Value("${portfolio.projection.history-days:1095}")
+    private int historyDays;
+
+    @Value("${portfolio.projection.min-history-days:30}")
+    private int minHistoryDays;
+
+    @Autowired
+    public PortfolioProjectionService(PortfolioHistoryJdbcRepository portfolioHistoryJdbcRepository,
+                                      PortfolioVersionService portfolioVersionService,
+                                      @Value("${portfolio.projection.parallelism:0}") int parallelism,
+                                      @Value("${portfolio.projection.cache.max-entries:1000}") int maxCacheEntries,
+                                      @Value("${portfolio.projection.max-concurrent:2}") int maxConcurrent,
+                                      @Value("${portfolio.projection.queue-timeout:PT5S}") Duration queueTimeout) {
+        this.portfolioHistoryJdbcRepository = portfolioHistoryJdbcRepository;
+        this.portfolioVersionService = portfolioVersionService;
+        // A pool of its own so simulations never starve other users of the common pool
+        this.simulationPool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        this.maxCacheEntries = maxCacheEntries;
+        this.simulations = new Semaphore(maxConcurrent);
+        this.queueTimeout = queueTimeout;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedProjection> eldest) {
+                return size() > PortfolioProjectionService.this.maxCacheEntries;
+            }
+        };
+    }
+
+    /**
+     * Projection of the user's portfolio over {@code years} years from {@code paths} simulated
+     * paths, or null if there is not yet enough history to resample.
+     *
+     * @throws RejectedExecutionException if no simulation slot freed up within the queue timeout
+     */
+    public PortfolioProjectionDto project(String userId, int years, int paths) {
+        String key = userId + ":" + years + ":" + paths;
+        String historyVersion = portfolioVersionService.validator(userId, PortfolioVersionService.Scope.HISTORY).etag();
+        synchronized (cache) {
+            CachedProjection cached = cache.get(key);
+            if (cached != null && cached.historyVersion().equals(historyVersion)) {
+                return cached.projection();
+            }
+        }
+
+        String flightKey = key + "@" + historyVersion;
+        CompletableFuture<PortfolioProjectionDto> flight = new CompletableFuture<>();
+        CompletableFuture<PortfolioProjectionDto> running = inFlight.putIfAbsent(flightKey, flight);
+        if (running != null) {
+            try {
+                return running.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        }
+
+        try {
+            PortfolioProjectionDto projection = simulateWhenFree(userId, years, paths);
+            if (projection != null) {
+                synchronized (cache) {
+                    cache.put(key, new CachedProjection(historyVersion, projection));
+                }
+            }
+            flight.complete(projection);
+            return projection;
+        } catch (RuntimeException e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(flightKey, flight);
+        }
+    }
+
+    private PortfolioProjectionDto simulateWhenFree(String userId, int years, int paths) {
+        try {
+            if (!simulations.tryAcquire(queueTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                throw new RejectedExecutionException("Too many projections in progress");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Interrupted waiting for a projection slot", e);
+        }
+        try {
+            return simulate(userId, years, paths);
+        } finally {
+            simulations.release();
+        }
+    }
+
+    private PortfolioProjectionDto simulate(String userId, int years, int paths) {
+        List<PortfolioHistory> series = portfolioHistoryJdbcRepository.findSeriesSince(userId,
+                LocalDate.now().minusDays(historyDays));
+        PortfolioHistory latest = series.isEmpty() ? null : series.get(series.size() - 1);
+        if (latest == null || latest.getBreakdown() == null) {
+            return null;
+        }
+        double[] start = typeValues(latest.getBreakdown(), true);
+        double startValue = 0;
+        for (double value : start) {
+            startValue += value;
+        }
+        if (startValue <= 0) {
+            return null;
+        }
+
+        double[] growth = new double[(series.size() - 1) * start.length];
+        int days = 0;
+        for (int i = 1; i < series.size(); i++) {
+            AssetClassBreakdown previous = series.get(i - 1).getBreakdown();
+            AssetClassBreakdown current = series.get(i).getBreakdown();
+            // Days either side of a row recorded before breakdowns existed cannot be split by type
+            if (previous.getStockValue() == null || current.getStockValue() == null) {
+                continue;
+            }
+            addDailyGrowth(previous, current, growth, days * start.length);
+            days++;
+        }
+        if (days < minHistoryDays) {
+            return null;
+        }
+        if (days * start.length < growth.length) {
+            growth = Arrays.copyOf(growth, days * start.length);
+        }
+
+        long startedAt = System.nanoTime();
+        long seed = ((long) userId.hashCode() << 32) ^ latest.getSnapshotDate().toEpochDay();
+        double[][] bands = MonteCarloProjection.run(start, growth, years, STEPS_PER_YEAR, paths, seed, simulationPool);
+        log.debug("Projected {} paths over {} years for user {} from {} days in {}ms",
+                paths, years, userId, days, (System.nanoTime() - startedAt) / 1_000_000);
+
+        List<ProjectionBandDto> result = new ArrayList<>(years);
+        for (int year = 0; year < years; year++) {
+            double[] band = bands[year];
+            result.add(new ProjectionBandDto(year + 1, money(band[0]), money(band[1]), money(band[2]),
+                    money(band[3]), money(band[4])));
+        }
+        return new PortfolioProjectionDto(latest.getSnapshotDate(), money(startValue), days, paths, result);
+    }
+
+    /**
+     * Writes one day's growth factor per holding type, net of money added or withdrawn that day;
+     * a sale withdraws its proceeds.
+     */
+    private static void addDailyGrowth(AssetClassBreakdown previous, AssetClassBreakdown current,
+                                       double[] growth, int offset) {
+        double[] previousValues = typeValues(previous, true);
+        double[] currentValues = typeValues(current, true);
+        double[] previousInvested = typeContributions(previous);
+        double[] currentInvested = typeContributions(current);
+        for (int type = 0; type < previousValues.length; type++) {
+            double factor = 1;
+            if (previousValues[type] > 0) {
+                double flow = currentInvested[type] - previousInvested[type];
+                factor = (currentValues[type] - flow) / previousValues[type];
+                if (!(factor >= MIN_DAILY_GROWTH && factor <= MAX_DAILY_GROWTH)) {
+                    factor = 1;
+                }
+            }
+            growth[offset + type] = factor;
+        }
+    }
+
+    private static double[] typeValues(AssetClassBreakdown breakdown, boolean value) {
+        return new double[]{
+                amount(value ? breakdown.getStockValue() : breakdown.getStockInvested()),
+                amount(value ? breakdown.getMutualFundValue() : breakdown.getMutualFundInvested()),
+                amount(value ? breakdown.getCryptoValue() : breakdown.getCryptoInvested()),
+                amount(value ? breakdown.getManualValue() : breakdown.getManualInvested())
+        };
+    }
+
+    /**
+     * Invested amount less realized PnL per type, in {@link #typeValues} order.
+     */
+    private static double[] typeContributions(AssetClassBreakdown breakdown) {
+        double[] invested = typeValues(breakdown, false);
+        invested[0] -= amount(breakdown.getStockRealized());
+        invested[1] -= amount(breakdown.getMutualFundRealized());
+        invested[2] -= amount(breakdown.getCryptoRealized());
+        return invested;
+    }
+
+    private static double amount(BigDecimal amount) {
+        return amount != null ? amount.doubleValue() : 0;
+    }
+
+    private static BigDecimal money(double amount) {
+        return BigDecimal.valueOf(amount).setScale(2, RoundingMode.HALF_UP);
+    }
+}
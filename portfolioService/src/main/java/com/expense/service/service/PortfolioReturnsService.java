@@ -0,0 +1,232 @@
+package com.expense.service.service;
+
+import com.expense.service.dto.HoldingRowDto;
+import com.expense.service.entities.LotSale;
+import com.expense.service.entities.PortfolioHistory;
+import com.expense.service.entities.PortfolioReturns;
+import com.expense.service.repository.HoldingQueryRepository;
+import com.expense.service.repository.LotSaleRepository;
+import com.expense.service.repository.PortfolioHistoryJdbcRepository;
+import com.expense.service.repository.PortfolioReturnsJdbcRepository;
+import com.expense.service.repository.PortfolioReturnsRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps every user's {@link PortfolioReturns} current as data lands, so reading returns is a
+ * single primary-key lookup. Each daily point written through {@link #writeHistory} is chained
+ * onto the user's previous point, and the window figures are then recomputed from the new
+ * point and the points at the start of each window; holding adds, deletes and sales refresh
+ * the lot-based XIRR in the background.
+ *
+ * Series start at the first point written with return tracking; history recorded before that
+ * has no running fields and is not part of the figures. Since-inception and clipped windows are
+ * measured from that first point, so neither the time- nor the money-weighted figures include
+ * gains made before it.
+ */
+@Service
+@Slf4j
+public class PortfolioReturnsService {
+
+    private final PortfolioHistoryJdbcRepository portfolioHistoryJdbcRepository;
+    private final PortfolioReturnsRepository portfolioReturnsRepository;
+    private final PortfolioReturnsJdbcRepository portfolioReturnsJdbcRepository;
+    private final HoldingQueryRepository holdingQueryRepository;
+    private final LotSaleRepository lotSaleRepository;
+    private final PortfolioDashboardService portfolioDashboardService;
+    private final ExecutorService xirrUpdates;
+    // Users with a refresh queued; further changes before it runs are covered by it
+    private final Set<String> pendingXirr = ConcurrentHashMap.newKeySet();
+
+    @Value("${portfolio.zone:Asia/Kolkata}")
+    private String zone;
+
+    @Autowired
+    public PortfolioReturnsService(PortfolioHistoryJdbcRepository portfolioHistoryJdbcRepository,
+                                   PortfolioReturnsRepository portfolioReturnsRepository,
+                                   PortfolioReturnsJdbcRepository portfolioReturnsJdbcRepository,
+                                   HoldingQueryRepository holdingQueryRepository,
+                                   LotSaleRepository lotSaleRepository,
+                                   PortfolioDashboardService portfolioDashboardService,
+                                   @Value("${portfolio.returns.xirr-queue-capacity:1000}") int xirrQueueCapacity) {
+        this.portfolioHistoryJdbcRepository = portfolioHistoryJdbcRepository;
+        this.portfolioReturnsRepository = portfolioReturnsRepository;
+        this.portfolioReturnsJdbcRepository = portfolioReturnsJdbcRepository;
+        this.holdingQueryRepository = holdingQueryRepository;
+        this.lotSaleRepository = lotSaleRepository;
+        this.portfolioDashboardService = portfolioDashboardService;
+        this.xirrUpdates = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(xirrQueueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "returns-xirr");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        xirrUpdates.shutdownNow();
+    }
+
+    /**
+     * Writes a batch of daily snapshots with their running return fields filled in, then
+     * updates the returns of every user whose latest point is in the batch. Days are written
+     * in order, so a batch holding several days of one user chains them correctly.
+     */
+    public void writeHistory(List<PortfolioHistory> rows) {
+        Map<LocalDate, List<PortfolioHistory>> byDate = rows.stream()
+                .collect(Collectors.groupingBy(PortfolioHistory::getSnapshotDate, TreeMap::new, Collectors.toList()));
+        byDate.forEach((snapshotDate, dayRows) -> {
+            Set<String> userIds = dayRows.stream().map(PortfolioHistory::getUserId).collect(Collectors.toSet());
+            Map<String, PortfolioHistory> previous = portfolioHistoryJdbcRepository.findLatestBefore(userIds, snapshotDate);
+            Set<String> started = new HashSet<>();
+            for (PortfolioHistory row : dayRows) {
+                if (ReturnMath.chain(previous.get(row.getUserId()), row)) {
+                    started.add(row.getUserId());
+                }
+            }
+            portfolioHistoryJdbcRepository.batchUpsert(dayRows);
+            updateReturns(snapshotDate, dayRows, started);
+        });
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onHoldingsChanged(HoldingsChangedEvent event) {
+        // Valuing the portfolio needs prices, so keep it off the request that changed the holdings
+        String userId = event.userId();
+        if (!pendingXirr.add(userId)) {
+            return;
+        }
+        try {
+            xirrUpdates.execute(() -> {
+                pendingXirr.remove(userId);
+                refreshXirr(userId);
+            });
+        } catch (RejectedExecutionException e) {
+            // The next daily point refreshes it anyway
+            pendingXirr.remove(userId);
+            log.debug("XIRR refresh queue full, skipping user {}", userId);
+        }
+    }
+
+    public PortfolioReturns getReturns(String userId) {
+        return portfolioReturnsRepository.findById(userId).orElse(null);
+    }
+
+    private void updateReturns(LocalDate asOf, List<PortfolioHistory> rows, Set<String> started) {
+        Map<String, PortfolioReturns> existing = new HashMap<>();
+        portfolioReturnsRepository.findAllById(rows.stream().map(PortfolioHistory::getUserId).toList())
+                .forEach(returns -> existing.put(returns.getUserId(), returns));
+
+        // Back-filled older days keep their running fields but leave the current figures alone
+        List<PortfolioHistory> latest = rows.stream()
+                .filter(row -> {
+                    PortfolioReturns current = existing.get(row.getUserId());
+                    return current == null || current.getAsOf() == null || !asOf.isBefore(current.getAsOf());
+                })
+                .toList();
+        if (latest.isEmpty()) {
+            return;
+        }
+        List<String> userIds = latest.stream().map(PortfolioHistory::getUserId).toList();
+
+        Map<String, PortfolioHistory> monthStarts = portfolioHistoryJdbcRepository.findLatestBefore(userIds, windowStart(asOf, 1));
+        Map<String, PortfolioHistory> halfYearStarts = portfolioHistoryJdbcRepository.findLatestBefore(userIds, windowStart(asOf, 6));
+        Map<String, PortfolioHistory> yearStarts = portfolioHistoryJdbcRepository.findLatestBefore(userIds, windowStart(asOf, 12));
+        Map<String, List<HoldingRowDto>> lotsByUser = holdingQueryRepository.findByUserIds(userIds).stream()
+                .collect(Collectors.groupingBy(HoldingRowDto::userId));
+        Map<String, List<LotSale>> salesByUser = lotSaleRepository.findByUserIdIn(userIds).stream()
+                .collect(Collectors.groupingBy(LotSale::getUserId));
+
+        List<PortfolioReturns> updated = new ArrayList<>(latest.size());
+        for (PortfolioHistory row : latest) {
+            String userId = row.getUserId();
+            PortfolioReturns current = existing.get(userId);
+            boolean startsHere = started.contains(userId) || current == null || current.getInceptionDate() == null;
+            LocalDate inceptionDate = startsHere ? asOf : current.getInceptionDate();
+            BigDecimal inceptionValue = startsHere ? row.getTotalValue() : current.getInceptionValue();
+            BigDecimal inceptionInvested = startsHere ? row.getNetInvested() : current.getInceptionInvested();
+            PortfolioHistory inception = inceptionValue != null && inceptionInvested != null
+                    ? ReturnMath.seriesStart(userId, inceptionDate, inceptionValue, inceptionInvested)
+                    : ReturnMath.inception(userId, inceptionDate);
+
+            PortfolioReturns returns = new PortfolioReturns();
+            returns.setUserId(userId);
+            returns.setAsOf(asOf);
+            returns.setInceptionDate(inceptionDate);
+            returns.setInceptionValue(inceptionValue);
+            returns.setInceptionInvested(inceptionInvested);
+            returns.setTwrAll(ReturnMath.timeWeighted(inception, row));
+            returns.setMwrAll(ReturnMath.moneyWeighted(inception, row));
+            PortfolioHistory monthStart = startOf(monthStarts.get(userId), inception);
+            PortfolioHistory halfYearStart = startOf(halfYearStarts.get(userId), inception);
+            PortfolioHistory yearStart = startOf(yearStarts.get(userId), inception);
+            returns.setTwr1m(ReturnMath.timeWeighted(monthStart, row));
+            returns.setTwr6m(ReturnMath.timeWeighted(halfYearStart, row));
+            returns.setTwr1y(ReturnMath.timeWeighted(yearStart, row));
+            returns.setMwr1m(ReturnMath.moneyWeighted(monthStart, row));
+            returns.setMwr6m(ReturnMath.moneyWeighted(halfYearStart, row));
+            returns.setMwr1y(ReturnMath.moneyWeighted(yearStart, row));
+            returns.setXirr(ReturnMath.xirr(lotsByUser.getOrDefault(userId, List.of()),
+                    salesByUser.getOrDefault(userId, List.of()), row.getTotalValue(), asOf, inceptionDate));
+            returns.setXirrAsOf(asOf);
+            updated.add(returns);
+        }
+        portfolioReturnsJdbcRepository.batchUpsert(updated);
+    }
+
+    /**
+     * The day after the window start, since the lookup is for the latest point before a date.
+     */
+    private static LocalDate windowStart(LocalDate asOf, int months) {
+        return asOf.minusMonths(months).plusDays(1);
+    }
+
+    /**
+     * A window reaching back before the series, or onto untracked history, is measured from
+     * the start of the series.
+     */
+    private static PortfolioHistory startOf(PortfolioHistory start, PortfolioHistory inception) {
+        if (start == null || start.getGrowthIndex() == null || start.getSnapshotDate().isBefore(inception.getSnapshotDate())) {
+            return inception;
+        }
+        return start;
+    }
+
+    private void refreshXirr(String userId) {
+        try {
+            LocalDate today = LocalDate.now(ZoneId.of(zone));
+            PortfolioReturns current = portfolioReturnsRepository.findById(userId).orElse(null);
+            LocalDate undatedAs = current != null && current.getInceptionDate() != null ? current.getInceptionDate() : today;
+            Double xirr = ReturnMath.xirr(holdingQueryRepository.findByUserId(userId),
+                    lotSaleRepository.findByUserId(userId),
+                    portfolioDashboardService.getDashboard(userId).getTotalCurrentValue(), today, undatedAs);
+            portfolioReturnsJdbcRepository.upsertXirr(userId, xirr, today);
+        } catch (Exception e) {
+            log.warn("Failed to refresh XIRR for user {}: {}", userId, e.getMessage());
+        }
+    }
+}
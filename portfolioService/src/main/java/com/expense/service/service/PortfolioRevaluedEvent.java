@@ -0,0 +1,10 @@
+package com.expense.service.service;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * Published with a portfolio's new value after a change-driven revaluation.
+ */
+public record PortfolioRevaluedEvent(String userId, BigDecimal totalValue, boolean priceStale, Instant valuedAt) {
+}
@@ -1,20 +1,41 @@
 package com.expense.service.service;
 
+import com.expense.service.dto.CryptoHoldingDto;
 import com.expense.service.dto.CryptoHoldingRequestDto;
+import com.expense.service.dto.CursorPageDto;
+import com.expense.service.dto.HoldingRowDto;
+import com.expense.service.dto.ManualHoldingDto;
 import com.expense.service.dto.ManualHoldingRequestDto;
+import com.expense.service.dto.MutualFundHoldingDto;
 import com.expense.service.dto.MutualFundHoldingRequestDto;
+import com.expense.service.dto.SellRequestDto;
+import com.expense.service.dto.SellResultDto;
+import com.expense.service.dto.StockHoldingDto;
 import com.expense.service.dto.StockHoldingRequestDto;
 import com.expense.service.entities.CryptoHolding;
+import com.expense.service.entities.HoldingType;
+import com.expense.service.entities.LotSale;
 import com.expense.service.entities.ManualHolding;
 import com.expense.service.entities.MutualFundHolding;
 import com.expense.service.entities.StockHolding;
 import com.expense.service.repository.CryptoHoldingRepository;
+import com.expense.service.repository.LotSaleRepository;
 import com.expense.service.repository.ManualHoldingRepository;
 import com.expense.service.repository.MutualFundHoldingRepository;
+import com.expense.service.repository.PositionJdbcRepository;
 import com.expense.service.repository.StockHoldingRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 @Service
@@ -24,16 +45,28 @@ public class PortfolioService {
     private final MutualFundHoldingRepository mutualFundHoldingRepository;
     private final CryptoHoldingRepository cryptoHoldingRepository;
     private final ManualHoldingRepository manualHoldingRepository;
+    private final PositionJdbcRepository positionJdbcRepository;
+    private final LotSaleRepository lotSaleRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${portfolio.zone:Asia/Kolkata}")
+    private String zone;
 
     @Autowired
     public PortfolioService(StockHoldingRepository stockHoldingRepository,
                            MutualFundHoldingRepository mutualFundHoldingRepository,
                            CryptoHoldingRepository cryptoHoldingRepository,
-                           ManualHoldingRepository manualHoldingRepository) {
+                           ManualHoldingRepository manualHoldingRepository,
+                           PositionJdbcRepository positionJdbcRepository,
+                           LotSaleRepository lotSaleRepository,
+                           ApplicationEventPublisher eventPublisher) {
         this.stockHoldingRepository = stockHoldingRepository;
         this.mutualFundHoldingRepository = mutualFundHoldingRepository;
         this.cryptoHoldingRepository = cryptoHoldingRepository;
         this.manualHoldingRepository = manualHoldingRepository;
+        this.positionJdbcRepository = positionJdbcRepository;
+        this.lotSaleRepository = lotSaleRepository;
+        this.eventPublisher = eventPublisher;
     }
 
     // Stock Holding Methods
@@ -45,19 +78,22 @@ public class PortfolioService {
         newStock.setQuantity(dto.getQuantity());
         newStock.setPurchasePrice(dto.getPurchasePrice());
         newStock.setPurchaseDate(dto.getPurchaseDate());
-        return stockHoldingRepository.save(newStock);
+        newStock = stockHoldingRepository.save(newStock);
+        eventPublisher.publishEvent(new HoldingsChangedEvent(userId));
+        return newStock;
     }
 
-    public List<StockHolding> getStocksForUser(String userId) {
-        return stockHoldingRepository.findByUserId(userId);
+    public CursorPageDto<StockHoldingDto> getStocksForUser(String userId, String cursor, int limit) {
+        List<StockHoldingDto> rows = stockHoldingRepository.findPageByUserId(userId, afterKey(cursor), PageRequest.of(0, limit + 1));
+        return CursorPageDto.of(rows, limit, StockHoldingDto::externalId);
     }
 
-    public void deleteStock(String externalId, String userId) {
-        List<StockHolding> holdings = stockHoldingRepository.findByUserId(userId);
-        holdings.stream()
-                .filter(h -> h.getExternalId().equals(externalId))
-                .findFirst()
-                .ifPresent(stockHoldingRepository::delete);
+    public boolean deleteStock(String externalId, String userId) {
+        boolean deleted = stockHoldingRepository.deleteByUserIdAndExternalId(userId, externalId) > 0;
+        if (deleted) {
+            eventPublisher.publishEvent(new HoldingsChangedEvent(userId));
+        }
+        return deleted;
     }
 
     // Mutual Fund Holding Methods
@@ -68,19 +104,22 @@ public class PortfolioService {
         newMutualFund.setQuantity(dto.getQuantity());
         newMutualFund.setPurchasePrice(dto.getPurchasePrice());
         newMutualFund.setPurchaseDate(dto.getPurchaseDate());
-        return mutualFundHoldingRepository.save(newMutualFund);
+        newMutualFund = mutualFundHoldingRepository.save(newMutualFund);
+        eventPublisher.publishEvent(new HoldingsChangedEvent(userId));
+        return newMutualFund;
     }
 
-    public List<MutualFundHolding> getMutualFundsForUser(String userId) {
-        return mutualFundHoldingRepository.findByUserId(userId);
+    public CursorPageDto<MutualFundHoldingDto> getMutualFundsForUser(String userId, String cursor, int limit) {
+        List<MutualFundHoldingDto> rows = mutualFundHoldingRepository.findPageByUserId(userId, afterKey(cursor), PageRequest.of(0, limit + 1));
+        return CursorPageDto.of(rows, limit, MutualFundHoldingDto::externalId);
     }
 
-    public void deleteMutualFund(String externalId, String userId) {
-        List<MutualFundHolding> holdings = mutualFundHoldingRepository.findByUserId(userId);
-        holdings.stream()
-                .filter(h -> h.getExternalId().equals(externalId))
-                .findFirst()
-                .ifPresent(mutualFundHoldingRepository::delete);
+    public boolean deleteMutualFund(String externalId, String userId) {
+        boolean deleted = mutualFundHoldingRepository.deleteByUserIdAndExternalId(userId, externalId) > 0;
+        if (deleted) {
+            eventPublisher.publishEvent(new HoldingsChangedEvent(userId));
+        }
+        return deleted;
     }
 
     // Crypto Holding Methods
@@ -92,19 +131,22 @@ public class PortfolioService {
         newCrypto.setQuantity(dto.getQuantity());
         newCrypto.setPurchasePrice(dto.getPurchasePrice());
         newCrypto.setPurchaseDate(dto.getPurchaseDate());
-        return cryptoHoldingRepository.save(newCrypto);
+        newCrypto = cryptoHoldingRepository.save(newCrypto);
+        eventPublisher.publishEvent(new HoldingsChangedEvent(userId));
+        return newCrypto;
     }
 
-    public List<CryptoHolding> getCryptoForUser(String userId) {
-        return cryptoHoldingRepository.findByUserId(userId);
+    public CursorPageDto<CryptoHoldingDto> getCryptoForUser(String userId, String cursor, int limit) {
+        List<CryptoHoldingDto> rows = cryptoHoldingRepository.findPageByUserId(userId, afterKey(cursor), PageRequest.of(0, limit + 1));
+        return CursorPageDto.of(rows, limit, CryptoHoldingDto::externalId);
     }
 
-    public void deleteCrypto(String externalId, String userId) {
-        List<CryptoHolding> holdings = cryptoHoldingRepository.findByUserId(userId);
-        holdings.stream()
-                .filter(h -> h.getExternalId().equals(externalId))
-                .findFirst()
-                .ifPresent(cryptoHoldingRepository::delete);
+    public boolean deleteCrypto(String externalId, String userId) {
+        boolean deleted = cryptoHoldingRepository.deleteByUserIdAndExternalId(userId, externalId) > 0;
+        if (deleted) {
+            eventPublisher.publishEvent(new HoldingsChangedEvent(userId));
+        }
+        return deleted;
     }
 
     // Manual Holding Methods
@@ -117,18 +159,129 @@ public class PortfolioService {
         newManualHolding.setCurrentValue(dto.getCurrentValue());
         newManualHolding.setPurchaseDate(dto.getPurchaseDate());
         newManualHolding.setMaturityDate(dto.getMaturityDate());
-        return manualHoldingRepository.save(newManualHolding);
+        newManualHolding = manualHoldingRepository.save(newManualHolding);
+        eventPublisher.publishEvent(new HoldingsChangedEvent(userId));
+        return newManualHolding;
+    }
+
+    public CursorPageDto<ManualHoldingDto> getManualHoldingsForUser(String userId, String cursor, int limit) {
+        List<ManualHoldingDto> rows = manualHoldingRepository.findPageByUserId(userId, afterKey(cursor), PageRequest.of(0, limit + 1));
+        return CursorPageDto.of(rows, limit, ManualHoldingDto::externalId);
+    }
+
+    public boolean deleteManualHolding(String externalId, String userId) {
+        boolean deleted = manualHoldingRepository.deleteByUserIdAndExternalId(userId, externalId) > 0;
+        if (deleted) {
+            eventPublisher.publishEvent(new HoldingsChangedEvent(userId));
+        }
+        return deleted;
+    }
+
+    // Bulk Delete
+    /**
+     * Deletes the user's holdings with the given external ids, whatever their type, in one
+     * statement per holding table. Ids that do not exist or belong to another user are ignored.
+     *
+     * @return the number of holdings deleted
+     */
+    @Transactional
+    public int deleteHoldings(Collection<String> externalIds, String userId) {
+        if (externalIds.isEmpty()) {
+            return 0;
+        }
+        int deleted = stockHoldingRepository.deleteByUserIdAndExternalIdIn(userId, externalIds)
+                + mutualFundHoldingRepository.deleteByUserIdAndExternalIdIn(userId, externalIds)
+                + cryptoHoldingRepository.deleteByUserIdAndExternalIdIn(userId, externalIds)
+                + manualHoldingRepository.deleteByUserIdAndExternalIdIn(userId, externalIds);
+        if (deleted > 0) {
+            eventPublisher.publishEvent(new HoldingsChangedEvent(userId));
+        }
+        return deleted;
+    }
+
+    // Sales
+    /**
+     * Sells {@code quantity} of a position at {@code price}, consuming its lots oldest first
+     * (FIFO). Fully sold lots are deleted and the last one is reduced; the gain over each lot's
+     * purchase price is added to the position's realized PnL, and each lot's share of the sale
+     * is recorded as a {@link LotSale}. The lots are locked until the sale commits, so
+     * concurrent sales of the same instrument cannot sell more than is held, and the
+     * {@link HoldingsChangedEvent} only reaches its listeners after the commit.
+     *
+     * @throws IllegalArgumentException if the request is invalid or exceeds the quantity held
+     */
+    @Transactional
+    public SellResultDto sell(SellRequestDto dto, String userId) {
+        if (dto.getType() == null || dto.getType() == HoldingType.MANUAL || dto.getInstrumentId() == null
+                || dto.getQuantity() == null || dto.getQuantity().signum() <= 0
+                || dto.getPrice() == null || dto.getPrice().signum() < 0) {
+            throw new IllegalArgumentException("A market-priced instrument, a positive quantity and a price are required");
+        }
+        List<HoldingRowDto> lots = positionJdbcRepository.findLotsFifo(userId, dto.getType(), dto.getInstrumentId());
+        BigDecimal held = lots.stream().map(HoldingRowDto::quantity).reduce(BigDecimal.ZERO, BigDecimal::add);
+        if (held.compareTo(dto.getQuantity()) < 0) {
+            throw new IllegalArgumentException("Only " + held.toPlainString() + " of " + dto.getInstrumentId() + " is held");
+        }
+
+        LocalDate soldOn = LocalDate.now(ZoneId.of(zone));
+        BigDecimal remaining = dto.getQuantity();
+        BigDecimal cost = BigDecimal.ZERO;
+        List<LotSale> sales = new ArrayList<>();
+        for (HoldingRowDto lot : lots) {
+            if (remaining.signum() == 0) {
+                break;
+            }
+            BigDecimal taken = lot.quantity().min(remaining);
+            cost = cost.add(taken.multiply(lot.purchasePrice()));
+            remaining = remaining.subtract(taken);
+            sales.add(lotSale(userId, dto, lot, taken, soldOn));
+        }
+
+        // Recorded before the lots change, so a position that is not there yet is created with it
+        BigDecimal realized = dto.getQuantity().multiply(dto.getPrice()).subtract(cost);
+        positionJdbcRepository.addRealized(userId, dto.getType(), dto.getInstrumentId(), lots.get(0).externalId(), realized);
+
+        List<String> closed = new ArrayList<>();
+        for (int i = 0; i < sales.size(); i++) {
+            HoldingRowDto lot = lots.get(i);
+            BigDecimal left = lot.quantity().subtract(sales.get(i).getQuantity());
+            if (left.signum() == 0) {
+                closed.add(lot.externalId());
+            } else {
+                positionJdbcRepository.reduceLot(userId, dto.getType(), lot.externalId(), left);
+            }
+        }
+        if (!closed.isEmpty()) {
+            switch (dto.getType()) {
+                case STOCK -> stockHoldingRepository.deleteByUserIdAndExternalIdIn(userId, closed);
+                case MUTUAL_FUND -> mutualFundHoldingRepository.deleteByUserIdAndExternalIdIn(userId, closed);
+                case CRYPTO -> cryptoHoldingRepository.deleteByUserIdAndExternalIdIn(userId, closed);
+                case MANUAL -> { }
+            }
+        }
+
+        lotSaleRepository.saveAll(sales);
+        eventPublisher.publishEvent(new HoldingsChangedEvent(userId));
+        return new SellResultDto(dto.getQuantity(), cost, realized, closed.size());
     }
 
-    public List<ManualHolding> getManualHoldingsForUser(String userId) {
-        return manualHoldingRepository.findByUserId(userId);
+    private static LotSale lotSale(String userId, SellRequestDto dto, HoldingRowDto lot, BigDecimal quantity,
+                                   LocalDate soldOn) {
+        LotSale sale = new LotSale();
+        sale.setUserId(userId);
+        sale.setHoldingType(dto.getType());
+        sale.setInstrumentId(dto.getInstrumentId());
+        sale.setLotExternalId(lot.externalId());
+        sale.setPurchaseDate(lot.purchaseDate());
+        sale.setSoldOn(soldOn);
+        sale.setQuantity(quantity);
+        sale.setCost(quantity.multiply(lot.purchasePrice()));
+        sale.setProceeds(quantity.multiply(dto.getPrice()));
+        return sale;
     }
 
-    public void deleteManualHolding(String externalId, String userId) {
-        List<ManualHolding> holdings = manualHoldingRepository.findByUserId(userId);
-        holdings.stream()
-                .filter(h -> h.getExternalId().equals(externalId))
-                .findFirst()
-                .ifPresent(manualHoldingRepository::delete);
+    // Holding pages are keyed on externalId; an absent cursor starts before every id
+    private static String afterKey(String cursor) {
+        return cursor == null ? "" : cursor;
     }
 }
@@ -1,143 +1,651 @@
 package com.expense.service.service;
 
+import com.expense.service.config.InstanceIdentity;
+import com.expense.service.dto.HoldingRowDto;
+import com.expense.service.dto.RealizedPnlDto;
+import com.expense.service.dto.RevalueResultDto;
 import com.expense.service.entities.*;
 import com.expense.service.repository.*;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
 
 @Service
 @Slf4j
 public class PortfolioSnapshotService {
 
+    static final String INTRADAY_LEASE = "intraday-snapshot";
+
     private final StockHoldingRepository stockHoldingRepository;
     private final MutualFundHoldingRepository mutualFundHoldingRepository;
     private final CryptoHoldingRepository cryptoHoldingRepository;
-    private final ManualHoldingRepository manualHoldingRepository;
-    private final PortfolioHistoryRepository portfolioHistoryRepository;
-    private final RestTemplate restTemplate;
+    private final PortfolioHistoryJdbcRepository portfolioHistoryJdbcRepository;
+    private final PortfolioIntradayJdbcRepository portfolioIntradayJdbcRepository;
+    private final HoldingQueryRepository holdingQueryRepository;
+    private final SnapshotCheckpointRepository snapshotCheckpointRepository;
+    private final SnapshotCheckpointJdbcRepository snapshotCheckpointJdbcRepository;
+    private final SnapshotFailureJdbcRepository snapshotFailureJdbcRepository;
+    private final SchedulerLeaseJdbcRepository schedulerLeaseJdbcRepository;
+    private final InstanceIdentity instanceIdentity;
+    private final MarketPriceService marketPriceService;
+    private final PortfolioVersionService portfolioVersionService;
+    private final PortfolioReturnsService portfolioReturnsService;
+    private final InstrumentHolderIndex instrumentHolderIndex;
+    private final ApplicationEventPublisher eventPublisher;
+    // The lease lets this instance re-enter its own run, so its triggers are serialized here
+    private final AtomicBoolean running = new AtomicBoolean();
+    // Revaluations run one at a time off the request thread; excess requests are turned away
+    private final ExecutorService revalueExecutor;
+
+    @Value("${portfolio.snapshot.parallel.enabled:false}")
+    private boolean parallelEnabled;
+
+    @Value("${portfolio.snapshot.parallel.max-concurrency:4}")
+    private int maxConcurrency;
+
+    @Value("${portfolio.snapshot.user-page-size:1000}")
+    private int userPageSize;
+
+    @Value("${portfolio.snapshot.write-batch-size:500}")
+    private int writeBatchSize;
+
+    @Value("${portfolio.snapshot.holdings-batch-size:200}")
+    private int holdingsBatchSize;
+
+    @Value("${portfolio.snapshot.mode:local}")
+    private String snapshotMode;
+
+    @Value("${portfolio.snapshot.lease:PT2M}")
+    private Duration lease;
+
+    @Value("${portfolio.intraday.enabled:false}")
+    private boolean intradayEnabled;
+
+    @Value("${portfolio.intraday.lease:PT10M}")
+    private Duration intradayLease;
+
+    @Value("${portfolio.zone:Asia/Kolkata}")
+    private String zone;
 
     @Autowired
     public PortfolioSnapshotService(
             StockHoldingRepository stockHoldingRepository,
             MutualFundHoldingRepository mutualFundHoldingRepository,
             CryptoHoldingRepository cryptoHoldingRepository,
-            ManualHoldingRepository manualHoldingRepository,
-            PortfolioHistoryRepository portfolioHistoryRepository,
-            RestTemplate restTemplate) {
+            PortfolioHistoryJdbcRepository portfolioHistoryJdbcRepository,
+            PortfolioIntradayJdbcRepository portfolioIntradayJdbcRepository,
+            HoldingQueryRepository holdingQueryRepository,
+            SnapshotCheckpointRepository snapshotCheckpointRepository,
+            SnapshotCheckpointJdbcRepository snapshotCheckpointJdbcRepository,
+            SnapshotFailureJdbcRepository snapshotFailureJdbcRepository,
+            SchedulerLeaseJdbcRepository schedulerLeaseJdbcRepository,
+            InstanceIdentity instanceIdentity,
+            MarketPriceService marketPriceService,
+            PortfolioVersionService portfolioVersionService,
+            PortfolioReturnsService portfolioReturnsService,
+            InstrumentHolderIndex instrumentHolderIndex,
+            ApplicationEventPublisher eventPublisher,
+            @Value("${portfolio.revalue.queue-capacity:16}") int revalueQueueCapacity) {
         this.stockHoldingRepository = stockHoldingRepository;
         this.mutualFundHoldingRepository = mutualFundHoldingRepository;
         this.cryptoHoldingRepository = cryptoHoldingRepository;
-        this.manualHoldingRepository = manualHoldingRepository;
-        this.portfolioHistoryRepository = portfolioHistoryRepository;
-        this.restTemplate = restTemplate;
+        this.portfolioHistoryJdbcRepository = portfolioHistoryJdbcRepository;
+        this.portfolioIntradayJdbcRepository = portfolioIntradayJdbcRepository;
+        this.holdingQueryRepository = holdingQueryRepository;
+        this.snapshotCheckpointRepository = snapshotCheckpointRepository;
+        this.snapshotCheckpointJdbcRepository = snapshotCheckpointJdbcRepository;
+        this.snapshotFailureJdbcRepository = snapshotFailureJdbcRepository;
+        this.schedulerLeaseJdbcRepository = schedulerLeaseJdbcRepository;
+        this.instanceIdentity = instanceIdentity;
+        this.marketPriceService = marketPriceService;
+        this.portfolioVersionService = portfolioVersionService;
+        this.portfolioReturnsService = portfolioReturnsService;
+        this.instrumentHolderIndex = instrumentHolderIndex;
+        this.eventPublisher = eventPublisher;
+        this.revalueExecutor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(revalueQueueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "portfolio-revalue");
+                    thread.setDaemon(true);
+                    return thread;
+                });
     }
 
-    @Scheduled(cron = "0 0 1 * * ?") // Runs at 1:00 AM every day
+    @PreDestroy
+    public void shutdown() {
+        revalueExecutor.shutdownNow();
+    }
+
+    @Scheduled(cron = "0 0 1 * * ?", zone = "${portfolio.zone:Asia/Kolkata}") // Runs at 1:00 AM every day
     public void takeSnapshots() {
-        log.info("Starting daily portfolio snapshot job...");
+        runDailySnapshot(true);
+    }
 
-        // 1. Get all unique User IDs from all holding tables
-        Set<String> userIds = new HashSet<>();
-        stockHoldingRepository.findAll().forEach(h -> userIds.add(h.getUserId()));
-        mutualFundHoldingRepository.findAll().forEach(h -> userIds.add(h.getUserId()));
-        cryptoHoldingRepository.findAll().forEach(h -> userIds.add(h.getUserId()));
-        manualHoldingRepository.findAll().forEach(h -> userIds.add(h.getUserId()));
+    /**
+     * Picks up today's run when it was interrupted by a crash or redeploy, or left users that
+     * failed to value or write, instead of waiting for tomorrow's cron trigger. The first check
+     * comes shortly after startup.
+     */
+    @Scheduled(initialDelayString = "PT1M", fixedDelayString = "${portfolio.snapshot.resume-interval:PT30M}")
+    public void resumeIncompleteSnapshot() {
+        runDailySnapshot(false);
+    }
 
-        // 2. For each user, calculate their total value
-        for (String userId : userIds) {
-            try {
-                BigDecimal totalValue = calculateTotalValueForUser(userId);
+    /**
+     * Runs today's snapshot under the checkpoint lease, so only one trigger on one instance
+     * works on it at a time. A run that has paged through every user then retries the users
+     * recorded as failed, and only marks the day completed when none are left.
+     *
+     * @param start whether to create today's checkpoint; resumes only continue an existing one
+     */
+    private void runDailySnapshot(boolean start) {
+        if (isDistributed()) {
+            // DistributedSnapshotCoordinator publishes the run and every instance values its share
+            return;
+        }
+        if (!running.compareAndSet(false, true)) {
+            return;
+        }
+        LocalDate snapshotDate = LocalDate.now(ZoneId.of(zone));
+        try {
+            if (!snapshotCheckpointJdbcRepository.claim(snapshotDate, instanceIdentity.getId(), leaseExpiry(), start)) {
+                if (start) {
+                    log.info("Portfolio snapshot for {} already completed or running elsewhere, skipping.", snapshotDate);
+                }
+                return;
+            }
+            String afterUserId = snapshotCheckpointRepository.findById(snapshotDate)
+                    .map(SnapshotCheckpoint::getLastUserId)
+                    .orElse("");
+            if (!afterUserId.isEmpty()) {
+                log.info("Resuming portfolio snapshot for {} after user {}", snapshotDate, afterUserId);
+            } else {
+                log.info("Starting daily portfolio snapshot job...");
+            }
+            takeSnapshots(snapshotDate, afterUserId);
+        } catch (Exception e) {
+            // The checkpoint stays RUNNING, so the next resume carries on from it
+            log.error("Portfolio snapshot for {} failed", snapshotDate, e);
+        } finally {
+            running.set(false);
+        }
+    }
 
-                // 3. Save the snapshot
-                PortfolioHistory snapshot = new PortfolioHistory();
-                snapshot.setUserId(userId);
-                snapshot.setSnapshotDate(LocalDate.now());
-                snapshot.setTotalValue(totalValue);
-                portfolioHistoryRepository.save(snapshot);
+    private void takeSnapshots(LocalDate snapshotDate, String afterUserId) {
+        String instanceId = instanceIdentity.getId();
 
-                log.info("Saved snapshot for user: {} with total value: {}", userId, totalValue);
-            } catch (Exception e) {
-                log.error("Failed to create snapshot for user: {}", userId, e);
+        // 1. Resolve every distinct instrument price once, before valuing any user
+        PriceBook priceBook = resolvePrices();
+        if (!snapshotCheckpointJdbcRepository.claim(snapshotDate, instanceId, leaseExpiry(), false)) {
+            log.warn("Lost the portfolio snapshot lease for {} while resolving prices; stopping", snapshotDate);
+            return;
+        }
+
+        // 2. Page through distinct user ids and value each page, sequentially or on a bounded worker pool
+        long startedAt = System.nanoTime();
+        Set<String> failed = ConcurrentHashMap.newKeySet();
+        AtomicInteger failedCount = new AtomicInteger();
+        AtomicBoolean leaseHeld = new AtomicBoolean(true);
+        int processed;
+        SnapshotBatchWriter writer = new SnapshotBatchWriter("Daily snapshot", rows -> {
+            portfolioReturnsService.writeHistory(rows);
+            portfolioVersionService.recordHistoryWritten(rows);
+        }, writeBatchSize);
+        try (writer) {
+            processed = valueUsers(afterUserId, snapshotDate, priceBook, writer, failed, lastUserId -> {
+                // The page's failed users are recorded for retry before the checkpoint moves past
+                // them; if that fails the page throws and a resume re-runs it (upserts make the
+                // overlap harmless).
+                List<String> pageFailures = drainFailures(failed, writer);
+                snapshotFailureJdbcRepository.record(snapshotDate, pageFailures);
+                failedCount.addAndGet(pageFailures.size());
+                if (!snapshotCheckpointJdbcRepository.advance(snapshotDate, instanceId, lastUserId, leaseExpiry())) {
+                    log.warn("Lost the portfolio snapshot lease for {} after user {}; stopping", snapshotDate, lastUserId);
+                    leaseHeld.set(false);
+                }
+                return leaseHeld.get();
+            });
+
+            // 3. Every user has been paged through: retry the ones that failed, on this or an earlier attempt
+            if (leaseHeld.get() && !Thread.currentThread().isInterrupted()) {
+                int remaining = retryFailedUsers(snapshotDate, priceBook, writer);
+                if (remaining == 0) {
+                    snapshotCheckpointJdbcRepository.complete(snapshotDate, instanceId);
+                } else {
+                    log.warn("{} users still failing in the {} portfolio snapshot; retrying on the next resume",
+                            remaining, snapshotDate);
+                }
             }
         }
 
-        log.info("Portfolio snapshot job complete. Processed {} users.", userIds.size());
+        double elapsedSeconds = Math.max((System.nanoTime() - startedAt) / 1_000_000_000.0, 0.001);
+        // Users count as succeeded once their row is stored, and as failed if valuing or writing it failed
+        log.info("Portfolio snapshot job complete. Processed {} users ({} rows written, {} users failed) in {}s, {} users/s.",
+                processed, writer.getRowsWritten(), failedCount.get(),
+                String.format("%.1f", elapsedSeconds), String.format("%.1f", processed / elapsedSeconds));
     }
 
-    private BigDecimal calculateTotalValueForUser(String userId) {
-        BigDecimal totalValue = BigDecimal.ZERO;
+    /**
+     * Values the users recorded as failed for {@code snapshotDate} again, and clears the ones
+     * that now succeed.
+     *
+     * @return number of users still failing
+     */
+    private int retryFailedUsers(LocalDate snapshotDate, PriceBook priceBook, SnapshotBatchWriter writer) {
+        List<String> userIds = snapshotFailureJdbcRepository.findUserIds(snapshotDate);
+        if (userIds.isEmpty()) {
+            return 0;
+        }
+        Set<String> failed = ConcurrentHashMap.newKeySet();
+        for (List<String> chunk : chunk(userIds, holdingsBatchSize)) {
+            snapshotChunk(chunk, snapshotDate, priceBook, writer, failed);
+        }
+        writer.flush();
+        Set<String> stillFailing = new HashSet<>(drainFailures(failed, writer));
+        snapshotFailureJdbcRepository.delete(snapshotDate, userIds.stream()
+                .filter(userId -> !stillFailing.contains(userId))
+                .toList());
+        log.info("Retried {} failed users for the {} portfolio snapshot, {} still failing",
+                userIds.size(), snapshotDate, stillFailing.size());
+        return stillFailing.size();
+    }
 
-        // Get all holdings for this user
-        Iterable<StockHolding> stocks = stockHoldingRepository.findByUserId(userId);
-        Iterable<CryptoHolding> cryptos = cryptoHoldingRepository.findByUserId(userId);
-        Iterable<MutualFundHolding> mutualFunds = mutualFundHoldingRepository.findByUserId(userId);
-        Iterable<ManualHolding> manuals = manualHoldingRepository.findByUserId(userId);
+    /**
+     * Takes the users that failed to value or write since the last call.
+     */
+    private static List<String> drainFailures(Set<String> failed, SnapshotBatchWriter writer) {
+        List<String> drained = new ArrayList<>(failed);
+        failed.removeAll(drained);
+        drained.addAll(writer.drainFailedUserIds());
+        return drained;
+    }
 
-        // Calculate stock values
-        for (StockHolding stock : stocks) {
-            try {
-                String url = "http://marketdataservice:8010/price/stock/" + stock.getSymbol();
-                Map<String, Object> priceData = restTemplate.getForObject(url, Map.class);
-                if (priceData != null && priceData.containsKey("current_price")) {
-                    BigDecimal currentPrice = new BigDecimal(priceData.get("current_price").toString());
-                    BigDecimal value = stock.getQuantity().multiply(currentPrice);
-                    totalValue = totalValue.add(value);
-                }
-            } catch (Exception e) {
-                log.warn("Failed to fetch stock price for {}, using purchase price", stock.getSymbol());
-                BigDecimal value = stock.getQuantity().multiply(stock.getPurchasePrice());
-                totalValue = totalValue.add(value);
+    private Instant leaseExpiry() {
+        return Instant.now().plus(lease);
+    }
+
+    /**
+     * Values every portfolio into the intraday tier during market hours, on whichever instance
+     * takes the tick's lease first. Missing a tick is harmless, so unlike the daily run there is
+     * no checkpoint to resume from.
+     */
+    @Scheduled(cron = "${portfolio.intraday.cron:0 */15 9-15 * * MON-FRI}", zone = "${portfolio.zone:Asia/Kolkata}")
+    public void takeIntradaySnapshots() {
+        if (!intradayEnabled) {
+            return;
+        }
+        try {
+            if (!schedulerLeaseJdbcRepository.acquire(INTRADAY_LEASE, instanceIdentity.getId(),
+                    Instant.now().plus(intradayLease))) {
+                return;
             }
+        } catch (Exception e) {
+            log.warn("Skipping intraday snapshot: {}", e.getMessage());
+            return;
         }
+        LocalDateTime capturedAt = LocalDateTime.now(ZoneId.of(zone)).truncatedTo(ChronoUnit.MINUTES);
+        PriceBook priceBook = resolvePrices();
 
-        // Calculate crypto values
-        for (CryptoHolding crypto : cryptos) {
-            try {
-                String url = "http://marketdataservice:8010/price/crypto/" + crypto.getCoinId();
-                Map<String, Object> priceData = restTemplate.getForObject(url, Map.class);
-                if (priceData != null && priceData.containsKey("current_price")) {
-                    BigDecimal currentPrice = new BigDecimal(priceData.get("current_price").toString());
-                    BigDecimal value = crypto.getQuantity().multiply(currentPrice);
-                    totalValue = totalValue.add(value);
+        long startedAt = System.nanoTime();
+        Set<String> failed = ConcurrentHashMap.newKeySet();
+        int processed;
+        SnapshotBatchWriter writer = new SnapshotBatchWriter("Intraday snapshot",
+                rows -> portfolioIntradayJdbcRepository.batchUpsert(capturedAt, rows), writeBatchSize);
+        try (writer) {
+            processed = valueUsers("", capturedAt.toLocalDate(), priceBook, writer, failed, lastUserId -> true);
+        }
+        log.info("Intraday snapshot at {} complete. Processed {} users ({} failed) in {}ms.",
+                capturedAt, processed, failed.size() + writer.getRowsFailed(), (System.nanoTime() - startedAt) / 1_000_000);
+    }
+
+    /**
+     * Values one work item of a distributed daily run: a chunk of users published by
+     * {@link DistributedSnapshotCoordinator}. Prices come from the cache and
+     * {@code instrument_prices}, so no run-wide price book is needed. Users that fail to value
+     * are recorded as snapshot failures for the coordinator to republish, and the rest are
+     * cleared, since the item may itself be such a retry.
+     *
+     * @throws IllegalStateException if the holdings could not be loaded or snapshots could
+     *                               not be written, so the item is redelivered
+     */
+    public void snapshotUsers(LocalDate snapshotDate, List<String> userIds) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+        Map<String, List<HoldingRowDto>> holdingsByUser = holdingQueryRepository.findPositionsByUserIds(userIds).stream()
+                .collect(Collectors.groupingBy(HoldingRowDto::userId));
+        Map<String, List<RealizedPnlDto>> realizedByUser = holdingQueryRepository.findRealizedByUserIds(userIds).stream()
+                .collect(Collectors.groupingBy(RealizedPnlDto::userId));
+        PriceBook priceBook = resolvePrices(holdingsByUser);
+
+        Set<String> failed = ConcurrentHashMap.newKeySet();
+        SnapshotBatchWriter writer = new SnapshotBatchWriter("Snapshot work item", rows -> {
+            portfolioReturnsService.writeHistory(rows);
+            portfolioVersionService.recordHistoryWritten(rows);
+        }, writeBatchSize);
+        try (writer) {
+            for (String userId : userIds) {
+                snapshotUser(userId, holdingsByUser.getOrDefault(userId, List.of()),
+                        realizedByUser.getOrDefault(userId, List.of()), snapshotDate, priceBook, writer, failed);
+            }
+            writer.flush();
+            if (writer.getRowsFailed() > 0) {
+                throw new IllegalStateException(writer.getRowsFailed() + " snapshot rows for " + snapshotDate
+                        + " could not be written");
+            }
+        }
+        snapshotFailureJdbcRepository.record(snapshotDate, failed);
+        snapshotFailureJdbcRepository.delete(snapshotDate, userIds.stream()
+                .filter(userId -> !failed.contains(userId))
+                .toList());
+        log.debug("Valued {} users starting at {} for {} ({} failed)",
+                writer.getRowsWritten(), userIds.get(0), snapshotDate, failed.size());
+    }
+
+    /**
+     * Queues {@link #revalue} for the {@code changed} instruments.
+     *
+     * @return false if too many revaluations are already waiting
+     */
+    public boolean submitRevalue(Map<AssetClass, ? extends Collection<String>> changed) {
+        try {
+            revalueExecutor.execute(() -> {
+                try {
+                    revalue(changed);
+                } catch (Exception e) {
+                    log.error("Revaluation of changed instruments failed", e);
                 }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Revalues only the portfolios that hold one of the {@code changed} instruments, after
+     * re-pricing those instruments live. Each new value is published as a
+     * {@link PortfolioRevaluedEvent}; nothing is written to history.
+     */
+    public RevalueResultDto revalue(Map<AssetClass, ? extends Collection<String>> changed) {
+        long startedAt = System.nanoTime();
+        int instrumentCount = 0;
+        for (Map.Entry<AssetClass, ? extends Collection<String>> entry : changed.entrySet()) {
+            marketPriceService.refresh(entry.getKey(), entry.getValue());
+            instrumentCount += entry.getValue().size();
+        }
+
+        List<String> holders = instrumentHolderIndex.holdersOf(changed);
+        Instant valuedAt = Instant.now();
+        int failed = 0;
+        for (List<String> userIds : chunk(holders, holdingsBatchSize)) {
+            Map<String, List<HoldingRowDto>> holdingsByUser;
+            try {
+                holdingsByUser = holdingQueryRepository.findPositionsByUserIds(userIds).stream()
+                        .collect(Collectors.groupingBy(HoldingRowDto::userId));
             } catch (Exception e) {
-                log.warn("Failed to fetch crypto price for {}, using purchase price", crypto.getCoinId());
-                BigDecimal value = crypto.getQuantity().multiply(crypto.getPurchasePrice());
-                totalValue = totalValue.add(value);
+                failed += userIds.size();
+                log.error("Failed to load holdings for {} users starting at {}", userIds.size(), userIds.get(0), e);
+                continue;
+            }
+
+            // Other instruments in these portfolios come from the cache or instrument_prices
+            PriceBook priceBook = resolvePrices(holdingsByUser);
+
+            for (String userId : userIds) {
+                try {
+                    Valuation valuation = calculateTotalValue(holdingsByUser.getOrDefault(userId, List.of()), List.of(),
+                            priceBook);
+                    eventPublisher.publishEvent(
+                            new PortfolioRevaluedEvent(userId, valuation.totalValue(), valuation.stale(), valuedAt));
+                } catch (Exception e) {
+                    failed++;
+                    log.error("Failed to revalue portfolio for user: {}", userId, e);
+                }
             }
         }
 
-        // Calculate mutual fund values
-        for (MutualFundHolding mf : mutualFunds) {
-            try {
-                String url = "http://marketdataservice:8010/price/mutualfund/" + mf.getSchemeCode();
-                Map<String, Object> priceData = restTemplate.getForObject(url, Map.class);
-                if (priceData != null && priceData.containsKey("nav")) {
-                    BigDecimal nav = new BigDecimal(priceData.get("nav").toString());
-                    BigDecimal value = mf.getQuantity().multiply(nav);
-                    totalValue = totalValue.add(value);
+        log.info("Revalued {} portfolios holding {} changed instruments in {}ms ({} failed)",
+                holders.size() - failed, instrumentCount, (System.nanoTime() - startedAt) / 1_000_000, failed);
+        return new RevalueResultDto(instrumentCount, holders.size() - failed, failed);
+    }
+
+    /**
+     * Values every user after {@code afterUserId} in ascending id order, one page at a time.
+     * {@code onPageWritten} is called with the page's last user id once the page is flushed,
+     * and stops the run by returning false.
+     *
+     * @return number of users processed
+     */
+    private int valueUsers(String afterUserId, LocalDate snapshotDate, PriceBook priceBook, SnapshotBatchWriter writer,
+                           Set<String> failed, Predicate<String> onPageWritten) {
+        ExecutorService executor = parallelEnabled ? newWorkerPool() : null;
+        int processed = 0;
+        try {
+            List<String> page;
+            do {
+                page = holdingQueryRepository.findUserIdsAfter(afterUserId, userPageSize);
+                if (page.isEmpty()) {
+                    break;
                 }
-            } catch (Exception e) {
-                log.warn("Failed to fetch mutual fund price for {}, using purchase price", mf.getSchemeCode());
-                BigDecimal value = mf.getQuantity().multiply(mf.getPurchasePrice());
-                totalValue = totalValue.add(value);
+                List<List<String>> chunks = chunk(page, holdingsBatchSize);
+                if (executor != null) {
+                    snapshotChunksInParallel(executor, chunks, snapshotDate, priceBook, writer, failed);
+                } else {
+                    for (List<String> chunk : chunks) {
+                        snapshotChunk(chunk, snapshotDate, priceBook, writer, failed);
+                    }
+                }
+                processed += page.size();
+                afterUserId = page.get(page.size() - 1);
+
+                writer.flush();
+                if (!onPageWritten.test(afterUserId)) {
+                    break;
+                }
+            } while (page.size() == userPageSize && !Thread.currentThread().isInterrupted());
+        } finally {
+            if (executor != null) {
+                executor.shutdownNow();
+            }
+        }
+        return processed;
+    }
+
+    /**
+     * Builds the weekly and monthly rollups once for history written before they existed.
+     * Later runs keep them current as part of every snapshot write.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillHistoryRollups() {
+        try {
+            if (!portfolioHistoryJdbcRepository.hasRollups() && portfolioHistoryJdbcRepository.hasSnapshots()) {
+                int rows = portfolioHistoryJdbcRepository.rebuildRollups();
+                log.info("Backfilled {} portfolio history rollup rows from daily snapshots", rows);
+            }
+        } catch (Exception e) {
+            log.error("Failed to backfill portfolio history rollups", e);
+        }
+    }
+
+    private ExecutorService newWorkerPool() {
+        // A fixed pool caps how many chunks are loaded and valued at once, which keeps JDBC
+        // connection usage below the datasource pool size.
+        AtomicInteger threadCount = new AtomicInteger();
+        return Executors.newFixedThreadPool(maxConcurrency, runnable -> {
+            Thread thread = new Thread(runnable, "snapshot-worker-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private void snapshotChunksInParallel(ExecutorService executor, List<List<String>> chunks, LocalDate snapshotDate,
+                                          PriceBook priceBook, SnapshotBatchWriter writer, Set<String> failed) {
+        List<Callable<Void>> tasks = new ArrayList<>(chunks.size());
+        for (List<String> chunk : chunks) {
+            tasks.add(() -> {
+                snapshotChunk(chunk, snapshotDate, priceBook, writer, failed);
+                return null;
+            });
+        }
+        try {
+            // Waiting per page keeps at most one page of pending work in memory
+            executor.invokeAll(tasks);
+        } catch (InterruptedException e) {
+            log.error("Snapshot job interrupted, stopping after the current page");
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Loads the positions and realized PnL of a chunk of users in one query each, then values
+     * each user separately so a failure only affects that user.
+     */
+    private void snapshotChunk(List<String> userIds, LocalDate snapshotDate, PriceBook priceBook,
+                               SnapshotBatchWriter writer, Set<String> failed) {
+        Map<String, List<HoldingRowDto>> holdingsByUser;
+        Map<String, List<RealizedPnlDto>> realizedByUser;
+        try {
+            holdingsByUser = holdingQueryRepository.findPositionsByUserIds(userIds).stream()
+                    .collect(Collectors.groupingBy(HoldingRowDto::userId));
+            realizedByUser = holdingQueryRepository.findRealizedByUserIds(userIds).stream()
+                    .collect(Collectors.groupingBy(RealizedPnlDto::userId));
+        } catch (Exception e) {
+            failed.addAll(userIds);
+            log.error("Failed to load holdings for {} users starting at {}", userIds.size(), userIds.get(0), e);
+            return;
+        }
+
+        for (String userId : userIds) {
+            snapshotUser(userId, holdingsByUser.getOrDefault(userId, List.of()),
+                    realizedByUser.getOrDefault(userId, List.of()), snapshotDate, priceBook, writer, failed);
+        }
+    }
+
+    private void snapshotUser(String userId, List<HoldingRowDto> holdings, List<RealizedPnlDto> realized,
+                              LocalDate snapshotDate, PriceBook priceBook, SnapshotBatchWriter writer,
+                              Set<String> failed) {
+        try {
+            Valuation valuation = calculateTotalValue(holdings, realized, priceBook);
+
+            // 3. Queue the snapshot; the writer flushes it with the rest of its batch and counts
+            // it as written or failed once the batch has been stored
+            PortfolioHistory snapshot = new PortfolioHistory();
+            snapshot.setUserId(userId);
+            snapshot.setSnapshotDate(snapshotDate);
+            snapshot.setTotalValue(valuation.totalValue());
+            snapshot.setPriceStale(valuation.stale());
+            snapshot.setBreakdown(valuation.breakdown());
+            writer.add(snapshot);
+            log.debug("Valued user: {} with total value: {}", userId, valuation.totalValue());
+        } catch (Exception e) {
+            failed.add(userId);
+            log.error("Failed to create snapshot for user: {}", userId, e);
+        }
+    }
+
+    private boolean isDistributed() {
+        return "distributed".equalsIgnoreCase(snapshotMode);
+    }
+
+    /**
+     * Resolves the instruments held by a set of already loaded portfolios.
+     */
+    private PriceBook resolvePrices(Map<String, List<HoldingRowDto>> holdingsByUser) {
+        Map<AssetClass, Set<String>> instruments = new EnumMap<>(AssetClass.class);
+        holdingsByUser.values().forEach(holdings -> holdings.stream()
+                .filter(holding -> holding.type() != HoldingType.MANUAL)
+                .forEach(holding -> instruments.computeIfAbsent(holding.type().getAssetClass(),
+                        k -> new LinkedHashSet<>()).add(holding.instrumentId())));
+        return marketPriceService.resolveQuotes(instruments);
+    }
+
+    private PriceBook resolvePrices() {
+        Map<AssetClass, List<String>> instruments = new EnumMap<>(AssetClass.class);
+        instruments.put(AssetClass.STOCK, stockHoldingRepository.findDistinctSymbols());
+        instruments.put(AssetClass.CRYPTO, cryptoHoldingRepository.findDistinctCoinIds());
+        instruments.put(AssetClass.MUTUAL_FUND, mutualFundHoldingRepository.findDistinctSchemeCodes());
+
+        PriceBook priceBook = marketPriceService.resolveQuotes(instruments);
+        log.info("Resolved {} instrument prices for snapshot run, {} stale (price cache: {})",
+                priceBook.size(), priceBook.staleCount(), marketPriceService.cacheStats());
+        return priceBook;
+    }
+
+    private Valuation calculateTotalValue(List<HoldingRowDto> holdings, List<RealizedPnlDto> realized,
+                                          PriceBook priceBook) {
+        BigDecimal totalValue = BigDecimal.ZERO;
+        boolean stale = false;
+        AssetClassBreakdown breakdown = AssetClassBreakdown.zero();
+
+        for (HoldingRowDto holding : holdings) {
+            BigDecimal value;
+            if (holding.type() == HoldingType.MANUAL) {
+                // Manual holdings don't need live prices, and are valued like the dashboard values them
+                value = holding.manualValue();
+            } else {
+                PriceQuote quote = priceBook.get(holding.type().getAssetClass(), holding.instrumentId());
+                stale |= quote == null || quote.stale();
+                value = holding.quantity().multiply(priceOrPurchasePrice(quote, holding.purchasePrice()));
             }
+            totalValue = totalValue.add(value);
+            breakdown.add(holding.type(), value, holding.investedValue());
         }
+        for (RealizedPnlDto pnl : realized) {
+            breakdown.addRealized(pnl.type(), pnl.realizedPnl());
+        }
+
+        return new Valuation(totalValue, stale, breakdown);
+    }
 
-        // Add manual holding values (these don't need live prices)
-        for (ManualHolding manual : manuals) {
-            totalValue = totalValue.add(manual.getCurrentValue());
+    /**
+     * Instruments that have never been priced successfully are valued at cost as a last resort.
+     */
+    private static BigDecimal priceOrPurchasePrice(PriceQuote quote, BigDecimal purchasePrice) {
+        return quote != null ? quote.price() : purchasePrice;
+    }
+
+    private static List<List<String>> chunk(List<String> userIds, int size) {
+        List<List<String>> chunks = new ArrayList<>();
+        for (int from = 0; from < userIds.size(); from += size) {
+            chunks.add(userIds.subList(from, Math.min(from + size, userIds.size())));
         }
+        return chunks;
+    }
 
-        return totalValue;
+    private record Valuation(BigDecimal totalValue, boolean stale, AssetClassBreakdown breakdown) {
     }
 }
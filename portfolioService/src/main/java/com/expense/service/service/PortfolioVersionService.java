@@ -0,0 +1,86 @@
+package com.expense.service.service;
+
+import com.expense.service.entities.PortfolioHistory;
+import com.expense.service.entities.PortfolioVersion;
+import com.expense.service.repository.PortfolioVersionJdbcRepository;
+import com.expense.service.repository.PortfolioVersionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Instant;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Tracks per-user portfolio versions and turns them into HTTP validators, so polling clients
+ * can be answered with 304 Not Modified from one primary-key read instead of re-running the
+ * holding or history queries.
+ */
+@Service
+@Slf4j
+public class PortfolioVersionService {
+
+    public enum Scope { HOLDINGS, HISTORY }
+
+    /**
+     * Strong ETag and Last-Modified time ({@code -1} when unknown) for one scope of a portfolio.
+     */
+    public record Validator(String etag, long lastModified) {
+    }
+
+    private final PortfolioVersionRepository portfolioVersionRepository;
+    private final PortfolioVersionJdbcRepository portfolioVersionJdbcRepository;
+
+    @Autowired
+    public PortfolioVersionService(PortfolioVersionRepository portfolioVersionRepository,
+                                   PortfolioVersionJdbcRepository portfolioVersionJdbcRepository) {
+        this.portfolioVersionRepository = portfolioVersionRepository;
+        this.portfolioVersionJdbcRepository = portfolioVersionJdbcRepository;
+    }
+
+    /**
+     * Moves the holdings version once the change has committed, so a client can never cache
+     * the pre-change response under the new version. It runs whether or not the other
+     * listeners succeed, and a failed bump is retried once: a missed bump leaves clients on
+     * 304 for data that has changed.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onHoldingsChanged(HoldingsChangedEvent event) {
+        try {
+            portfolioVersionJdbcRepository.bumpHoldings(event.userId());
+        } catch (Exception first) {
+            try {
+                portfolioVersionJdbcRepository.bumpHoldings(event.userId());
+            } catch (Exception e) {
+                e.addSuppressed(first);
+                log.error("Failed to bump the holdings version of user {}", event.userId(), e);
+            }
+        }
+    }
+
+    /**
+     * Moves the history version of every user in a freshly written batch of snapshots.
+     */
+    public void recordHistoryWritten(List<PortfolioHistory> snapshots) {
+        Set<String> userIds = new LinkedHashSet<>();
+        snapshots.forEach(snapshot -> userIds.add(snapshot.getUserId()));
+        portfolioVersionJdbcRepository.bumpHistory(userIds);
+    }
+
+    public Validator validator(String userId, Scope scope) {
+        PortfolioVersion version = portfolioVersionRepository.findById(userId).orElse(null);
+        long counter = 0;
+        Instant modifiedAt = null;
+        if (version != null) {
+            counter = scope == Scope.HOLDINGS ? version.getHoldingsVersion() : version.getHistoryVersion();
+            modifiedAt = scope == Scope.HOLDINGS ? version.getHoldingsModifiedAt() : version.getHistoryModifiedAt();
+        }
+        // The user hash keeps a browser that switches accounts from matching another user's version
+        String etag = scope.name().toLowerCase() + "-" + Integer.toHexString(userId.hashCode()) + "-" + counter;
+        return new Validator(etag, modifiedAt != null ? modifiedAt.toEpochMilli() : -1);
+    }
+}
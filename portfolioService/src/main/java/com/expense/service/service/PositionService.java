@@ -0,0 +1,110 @@
+package com.expense.service.service;
+
+import com.expense.service.dto.PositionDto;
+import com.expense.service.entities.AssetClass;
+import com.expense.service.entities.Position;
+import com.expense.service.repository.PositionJdbcRepository;
+import com.expense.service.repository.PositionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Keeps {@link Position}s in step with the lots they are built from. Every add, delete,
+ * import or sale publishes a {@link HoldingsChangedEvent}, and once the change has committed
+ * the user's positions are re-aggregated before any other listener runs, so the dashboard,
+ * live stream and snapshot jobs never see lots and positions disagree.
+ */
+@Service
+@Slf4j
+public class PositionService {
+
+    private final PositionRepository positionRepository;
+    private final PositionJdbcRepository positionJdbcRepository;
+    private final MarketPriceService marketPriceService;
+
+    @Autowired
+    public PositionService(PositionRepository positionRepository,
+                           PositionJdbcRepository positionJdbcRepository,
+                           MarketPriceService marketPriceService) {
+        this.positionRepository = positionRepository;
+        this.positionJdbcRepository = positionJdbcRepository;
+        this.marketPriceService = marketPriceService;
+    }
+
+    /**
+     * A failed rebuild is logged rather than thrown: the change itself is already stored, the
+     * other listeners still run, and the startup backfill repairs the positions.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onHoldingsChanged(HoldingsChangedEvent event) {
+        try {
+            positionJdbcRepository.rebuildUser(event.userId());
+        } catch (Exception e) {
+            log.error("Failed to rebuild the positions of user {}", event.userId(), e);
+        }
+    }
+
+    /**
+     * Re-aggregates every open position on startup, which picks up lots recorded before
+     * positions existed and any change a failed rebuild missed. Later changes keep them current
+     * through {@link #onHoldingsChanged}.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillPositions() {
+        try {
+            int rows = positionJdbcRepository.rebuildAll();
+            log.info("Rebuilt {} positions from holding lots", rows);
+        } catch (Exception e) {
+            log.error("Failed to backfill positions", e);
+        }
+    }
+
+    /**
+     * Every position of the user, open ones valued at current prices, with FIFO realized and
+     * unrealized PnL.
+     */
+    public List<PositionDto> getPositions(String userId) {
+        List<Position> positions = positionRepository.findByUserIdOrderByHoldingTypeAscInstrumentIdAsc(userId);
+
+        Map<AssetClass, Set<String>> instruments = new EnumMap<>(AssetClass.class);
+        for (Position position : positions) {
+            if (position.getLotCount() > 0) {
+                instruments.computeIfAbsent(position.getHoldingType().getAssetClass(), k -> new LinkedHashSet<>())
+                        .add(position.getInstrumentId());
+            }
+        }
+        PriceBook prices = marketPriceService.resolveQuotes(instruments);
+
+        List<PositionDto> result = new ArrayList<>(positions.size());
+        for (Position position : positions) {
+            PriceQuote quote = position.getLotCount() > 0
+                    ? prices.get(position.getHoldingType().getAssetClass(), position.getInstrumentId())
+                    : null;
+            BigDecimal currentValue = quote != null ? position.getQuantity().multiply(quote.price()) : null;
+            result.add(new PositionDto(position.getExternalId(), position.getHoldingType().name(),
+                    position.getInstrumentId(), position.getDetail(), position.getQuantity(), position.getCostBasis(),
+                    position.getAveragePrice(), position.getLotCount(),
+                    quote != null ? quote.price() : null,
+                    currentValue,
+                    currentValue != null ? currentValue.subtract(position.getCostBasis()) : null,
+                    position.getRealizedPnl()));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,40 @@
+package com.expense.service.service;
+
+import com.expense.service.entities.AssetClass;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Prices resolved in one pass for a set of instruments, keyed by asset class and the
+ * instrument identifier stored on the holding (stock symbol, crypto coin id, mutual fund
+ * scheme code, ...).
+ */
+public class PriceBook {
+
+    private final Map<AssetClass, Map<String, PriceQuote>> quotes = new EnumMap<>(AssetClass.class);
+
+    public void put(AssetClass assetClass, String instrumentId, PriceQuote quote) {
+        quotes.computeIfAbsent(assetClass, ignored -> new HashMap<>()).put(instrumentId, quote);
+    }
+
+    /**
+     * Returns the quote, or {@code null} when neither a live nor a last known price exists.
+     */
+    public PriceQuote get(AssetClass assetClass, String instrumentId) {
+        Map<String, PriceQuote> byInstrument = quotes.get(assetClass);
+        return byInstrument == null ? null : byInstrument.get(instrumentId);
+    }
+
+    public int size() {
+        return quotes.values().stream().mapToInt(Map::size).sum();
+    }
+
+    public long staleCount() {
+        return quotes.values().stream()
+                .flatMap(byInstrument -> byInstrument.values().stream())
+                .filter(PriceQuote::stale)
+                .count();
+    }
+}
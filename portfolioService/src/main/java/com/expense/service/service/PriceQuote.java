@@ -0,0 +1,19 @@
+package com.expense.service.service;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * A price together with when it was observed. {@code stale} is set when the live lookup
+ * failed and the price is the last known good value from {@code instrument_prices}.
+ */
+public record PriceQuote(BigDecimal price, Instant asOf, boolean stale) {
+
+    public static PriceQuote live(BigDecimal price, Instant asOf) {
+        return new PriceQuote(price, asOf, false);
+    }
+
+    public static PriceQuote lastKnown(BigDecimal price, Instant asOf) {
+        return new PriceQuote(price, asOf, true);
+    }
+}
@@ -0,0 +1,233 @@
+package com.expense.service.service;
+
+import com.expense.service.dto.HoldingRowDto;
+import com.expense.service.entities.LotSale;
+import com.expense.service.entities.PortfolioHistory;
+import lombok.extern.slf4j.Slf4j;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+/**
+ * Return arithmetic over the running fields of {@link PortfolioHistory}. Each row carries
+ * prefix values (cumulative flows, chained growth, day-weighted flows), so the time-weighted
+ * and Modified Dietz money-weighted return between any two rows needs only those two rows.
+ *
+ * External flows are the day-over-day change in net contributions: adding a holding is a
+ * contribution, deleting one a withdrawal, and a sale withdraws its proceeds. Flows are assumed
+ * to land at the end of the day they are first seen, after that day's market move: a day's
+ * growth is {@code (V_t - F_t) / V_{t-1}}, and in Modified Dietz a flow on day {@code d} is
+ * weighted by {@code (end - d) / (end - start)}.
+ */
+@Slf4j
+final class ReturnMath {
+
+    private static final double DAYS_PER_YEAR = 365.0;
+    private static final int XIRR_ITERATIONS = 100;
+    private static final double XIRR_TOLERANCE = 1e-9;
+
+    private ReturnMath() {
+    }
+
+    /**
+     * Fills in the running fields of {@code row} from the user's previous row. Without a
+     * previous row that carries them, {@code row} starts a new series.
+     *
+     * @return true if {@code row} is the first point of its series
+     */
+    static boolean chain(PortfolioHistory previous, PortfolioHistory row) {
+        BigDecimal invested = row.getBreakdown() != null ? row.getBreakdown().netContributed() : null;
+        BigDecimal day = BigDecimal.valueOf(row.getSnapshotDate().toEpochDay());
+        if (previous == null || previous.getGrowthIndex() == null) {
+            BigDecimal netInvested = invested != null ? invested : BigDecimal.ZERO;
+            row.setNetInvested(netInvested);
+            row.setGrowthIndex(1.0);
+            row.setFlowDayWeight(netInvested.multiply(day));
+            return true;
+        }
+
+        // Rows without a breakdown carry no invested amount, so they are taken to have no flow
+        BigDecimal netInvested = invested != null ? invested : previous.getNetInvested();
+        BigDecimal flow = netInvested.subtract(previous.getNetInvested());
+        double growthIndex = previous.getGrowthIndex();
+        double previousValue = previous.getTotalValue().doubleValue();
+        if (previousValue > 0) {
+            double growth = (row.getTotalValue().doubleValue() - flow.doubleValue()) / previousValue;
+            // A non-positive growth means the day was mis-valued (e.g. missing prices), not a total loss
+            if (growth > 0) {
+                growthIndex *= growth;
+            } else {
+                log.warn("Leaving {} out of the time-weighted return for user {}: growth {} from value {} and flow {}",
+                        row.getSnapshotDate(), row.getUserId(), growth, row.getTotalValue(), flow);
+            }
+        }
+        row.setNetInvested(netInvested);
+        row.setGrowthIndex(growthIndex);
+        row.setFlowDayWeight(previous.getFlowDayWeight().add(flow.multiply(day)));
+        return false;
+    }
+
+    /**
+     * The first point of a series, as the start of a window, from the value and invested
+     * amount it was recorded with; its running fields follow from those.
+     */
+    static PortfolioHistory seriesStart(String userId, LocalDate firstDate, BigDecimal value, BigDecimal invested) {
+        PortfolioHistory start = new PortfolioHistory(userId, firstDate, value);
+        start.setNetInvested(invested);
+        start.setGrowthIndex(1.0);
+        start.setFlowDayWeight(invested.multiply(BigDecimal.valueOf(firstDate.toEpochDay())));
+        return start;
+    }
+
+    /**
+     * The state just before the first point of a series: nothing held, nothing invested. Only
+     * used for series whose first point was not recorded; measured from here, the money-weighted
+     * return also counts gains made before tracking started.
+     */
+    static PortfolioHistory inception(String userId, LocalDate firstDate) {
+        PortfolioHistory start = new PortfolioHistory(userId, firstDate.minusDays(1), BigDecimal.ZERO);
+        start.setNetInvested(BigDecimal.ZERO);
+        start.setGrowthIndex(1.0);
+        start.setFlowDayWeight(BigDecimal.ZERO);
+        return start;
+    }
+
+    static Double timeWeighted(PortfolioHistory start, PortfolioHistory end) {
+        if (start.getGrowthIndex() <= 0) {
+            return null;
+        }
+        return end.getGrowthIndex() / start.getGrowthIndex() - 1;
+    }
+
+    /**
+     * Modified Dietz return: gain over the period divided by the starting value plus each flow
+     * weighted by the fraction of the period it was invested for.
+     */
+    static Double moneyWeighted(PortfolioHistory start, PortfolioHistory end) {
+        long startDay = start.getSnapshotDate().toEpochDay();
+        long endDay = end.getSnapshotDate().toEpochDay();
+        if (endDay <= startDay) {
+            return null;
+        }
+        double flows = end.getNetInvested().subtract(start.getNetInvested()).doubleValue();
+        double flowDays = end.getFlowDayWeight().subtract(start.getFlowDayWeight()).doubleValue();
+        // sum(flow * (end - day)) / (end - start), rebuilt from the two prefix sums
+        double weightedFlows = (endDay * flows - flowDays) / (endDay - startDay);
+        double startValue = start.getTotalValue().doubleValue();
+        double capital = startValue + weightedFlows;
+        if (capital <= 0) {
+            return null;
+        }
+        return (end.getTotalValue().doubleValue() - startValue - flows) / capital;
+    }
+
+    /**
+     * Annualised internal rate of return of the current lots and the sold parts of earlier
+     * ones: each lot's invested amount paid out on its purchase date, each sale's proceeds
+     * received on the day it was sold, and {@code value} received on {@code asOf}. Lots without
+     * a purchase date are taken to be bought on {@code undatedAs}.
+     *
+     * @return the rate, or null when it is undefined or does not converge
+     */
+    static Double xirr(List<HoldingRowDto> lots, List<LotSale> sales, BigDecimal value, LocalDate asOf,
+                       LocalDate undatedAs) {
+        if (value == null || value.signum() < 0) {
+            return null;
+        }
+        double[] amounts = new double[lots.size() + 2 * sales.size() + 1];
+        double[] years = new double[amounts.length];
+        int count = 0;
+        int paid = 0;
+        double received = value.doubleValue();
+        for (HoldingRowDto lot : lots) {
+            if (lot.investedValue() == null || lot.investedValue().signum() <= 0) {
+                continue;
+            }
+            amounts[count] = -lot.investedValue().doubleValue();
+            years[count] = yearsBetween(lot.purchaseDate() != null ? lot.purchaseDate() : undatedAs, asOf);
+            count++;
+            paid++;
+        }
+        for (LotSale sale : sales) {
+            if (sale.getCost().signum() <= 0) {
+                continue;
+            }
+            amounts[count] = -sale.getCost().doubleValue();
+            years[count] = yearsBetween(sale.getPurchaseDate() != null ? sale.getPurchaseDate() : undatedAs, asOf);
+            count++;
+            paid++;
+            amounts[count] = sale.getProceeds().doubleValue();
+            years[count] = yearsBetween(sale.getSoldOn(), asOf);
+            count++;
+            received += sale.getProceeds().doubleValue();
+        }
+        if (paid == 0 || received <= 0) {
+            return null;
+        }
+        amounts[count] = value.doubleValue();
+        years[count] = 0;
+        count++;
+
+        // Newton's method from 10%, falling back to bisection when it leaves the valid range
+        double rate = 0.1;
+        for (int i = 0; i < XIRR_ITERATIONS; i++) {
+            double npv = 0;
+            double slope = 0;
+            for (int j = 0; j < count; j++) {
+                // Flows are compounded forward to asOf, so older lots have a larger exponent
+                double factor = Math.pow(1 + rate, years[j]);
+                npv += amounts[j] * factor;
+                slope += amounts[j] * years[j] * factor / (1 + rate);
+            }
+            if (Math.abs(npv) < XIRR_TOLERANCE * received) {
+                return rate;
+            }
+            if (slope == 0) {
+                break;
+            }
+            double next = rate - npv / slope;
+            if (!Double.isFinite(next) || next <= -1) {
+                break;
+            }
+            rate = next;
+        }
+        return bisect(amounts, years, count, received);
+    }
+
+    private static double yearsBetween(LocalDate from, LocalDate to) {
+        return ChronoUnit.DAYS.between(from, to) / DAYS_PER_YEAR;
+    }
+
+    private static Double bisect(double[] amounts, double[] years, int count, double scale) {
+        double low = -0.9999;
+        double high = 100;
+        double lowNpv = futureValue(amounts, years, count, low);
+        if (Math.signum(lowNpv) == Math.signum(futureValue(amounts, years, count, high))) {
+            return null;
+        }
+        for (int i = 0; i < 200; i++) {
+            double mid = (low + high) / 2;
+            double npv = futureValue(amounts, years, count, mid);
+            if (Math.abs(npv) < XIRR_TOLERANCE * scale || high - low < XIRR_TOLERANCE) {
+                return mid;
+            }
+            if (Math.signum(npv) == Math.signum(lowNpv)) {
+                low = mid;
+                lowNpv = npv;
+            } else {
+                high = mid;
+            }
+        }
+        return null;
+    }
+
+    private static double futureValue(double[] amounts, double[] years, int count, double rate) {
+        double total = 0;
+        for (int j = 0; j < count; j++) {
+            total += amounts[j] * Math.pow(1 + rate, years[j]);
+        }
+        return total;
+    }
+}
@@ -0,0 +1,114 @@
+package com.expense.service.service;
+
+import com.expense.service.entities.PortfolioHistory;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Buffers {@link PortfolioHistory} rows produced by one snapshot run and hands them to
+ * {@code sink} in batches. Safe to share between snapshot workers. A batch size of 1 keeps the
+ * original one-round-trip-per-user path so both can be compared from the rows/s figure in {@link #close()}.
+ *
+ * A row only counts as written once the sink call for its batch has returned; every row of a
+ * batch the sink rejected counts as failed, and its user is kept for {@link #drainFailedUserIds()}.
+ */
+@Slf4j
+public class SnapshotBatchWriter implements AutoCloseable {
+
+    private final String name;
+    private final Consumer<List<PortfolioHistory>> sink;
+    private final int batchSize;
+
+    private List<PortfolioHistory> buffer;
+    private List<String> failedUserIds = new ArrayList<>();
+    private long rowsWritten;
+    private long rowsFailed;
+    private long writeNanos;
+
+    public SnapshotBatchWriter(String name, Consumer<List<PortfolioHistory>> sink, int batchSize) {
+        this.name = name;
+        this.sink = sink;
+        this.batchSize = Math.max(batchSize, 1);
+        this.buffer = new ArrayList<>(this.batchSize);
+    }
+
+    public void add(PortfolioHistory snapshot) {
+        List<PortfolioHistory> full = null;
+        synchronized (this) {
+            buffer.add(snapshot);
+            if (buffer.size() >= batchSize) {
+                full = buffer;
+                buffer = new ArrayList<>(batchSize);
+            }
+        }
+        // Write outside the lock so other workers can keep buffering while a batch is in flight
+        if (full != null) {
+            write(full);
+        }
+    }
+
+    public void flush() {
+        List<PortfolioHistory> pending;
+        synchronized (this) {
+            pending = buffer;
+            buffer = new ArrayList<>(batchSize);
+        }
+        if (!pending.isEmpty()) {
+            write(pending);
+        }
+    }
+
+    @Override
+    public void close() {
+        flush();
+        double seconds = Math.max(writeNanos / 1_000_000_000.0, 0.001);
+        log.info("{} writer ({}) wrote {} rows, {} failed, in {}s of write time, {} rows/s.",
+                name, batchSize > 1 ? "batch size " + batchSize : "row by row",
+                rowsWritten, rowsFailed,
+                String.format("%.2f", seconds), String.format("%.1f", rowsWritten / seconds));
+    }
+
+    private void write(List<PortfolioHistory> rows) {
+        long startedAt = System.nanoTime();
+        try {
+            if (batchSize > 1) {
+                sink.accept(rows);
+            } else {
+                rows.forEach(row -> sink.accept(List.of(row)));
+            }
+            record(rows.size(), 0, System.nanoTime() - startedAt);
+        } catch (Exception e) {
+            log.error("{} writer failed to write batch of {} snapshots", name, rows.size(), e);
+            record(0, rows.size(), System.nanoTime() - startedAt);
+            synchronized (this) {
+                rows.forEach(row -> failedUserIds.add(row.getUserId()));
+            }
+        }
+    }
+
+    /**
+     * Users whose rows failed to write since the last call.
+     */
+    public synchronized List<String> drainFailedUserIds() {
+        List<String> drained = failedUserIds;
+        failedUserIds = new ArrayList<>();
+        return drained;
+    }
+
+    public synchronized long getRowsWritten() {
+        return rowsWritten;
+    }
+
+    public synchronized long getRowsFailed() {
+        return rowsFailed;
+    }
+
+    private synchronized void record(int written, int failed, long nanos) {
+        rowsWritten += written;
+        rowsFailed += failed;
+        writeNanos += nanos;
+    }
+}
@@ -0,0 +1,11 @@
+package com.expense.service.service;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * One unit of a distributed daily snapshot run: a chunk of consecutive user ids to value
+ * for {@code snapshotDate}. Published to the snapshot work topic keyed by the first user id.
+ */
+public record SnapshotWorkItem(LocalDate snapshotDate, List<String> userIds) {
+}
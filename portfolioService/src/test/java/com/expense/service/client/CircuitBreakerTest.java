@@ -0,0 +1,72 @@
+package com.expense.service.client;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CircuitBreakerTest {
+
+    @Test
+    void opensAfterConsecutiveFailuresOnly() {
+        CircuitBreaker breaker = new CircuitBreaker(3, Duration.ofMinutes(1));
+        breaker.recordFailure();
+        breaker.recordFailure();
+        breaker.recordSuccess();
+        breaker.recordFailure();
+        breaker.recordFailure();
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+
+        breaker.recordFailure();
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(breaker.allowRequest()).isFalse();
+    }
+
+    @Test
+    void letsOneTrialThroughOnceTheOpenDurationHasPassed() {
+        CircuitBreaker breaker = new CircuitBreaker(1, Duration.ZERO);
+        breaker.recordFailure();
+
+        assertThat(breaker.allowRequest()).isTrue();
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+        assertThat(breaker.allowRequest()).isFalse();
+
+        breaker.recordSuccess();
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void reopensWhenTheTrialFails() {
+        CircuitBreaker breaker = new CircuitBreaker(5, Duration.ofMillis(1));
+        for (int i = 0; i < 5; i++) {
+            breaker.recordFailure();
+        }
+        await(breaker);
+        breaker.recordFailure();
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+    }
+
+    @Test
+    void handsBackATrialThatNeverReachedTheEndpoint() {
+        CircuitBreaker breaker = new CircuitBreaker(1, Duration.ofMinutes(1));
+        breaker.recordFailure();
+        breaker.releaseTrial();
+        assertThat(breaker.allowRequest()).isFalse();
+
+        CircuitBreaker elapsed = new CircuitBreaker(1, Duration.ofMillis(1));
+        elapsed.recordFailure();
+        await(elapsed);
+        elapsed.releaseTrial();
+        assertThat(elapsed.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(elapsed.allowRequest()).isTrue();
+    }
+
+    private static void await(CircuitBreaker breaker) {
+        long deadline = System.nanoTime() + Duration.ofSeconds(1).toNanos();
+        while (!breaker.allowRequest()) {
+            assertThat(System.nanoTime()).isLessThan(deadline);
+            Thread.onSpinWait();
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.expense.service.client;
+
+import com.expense.service.entities.AssetClass;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MarketDataClientTest {
+
+    private HttpServer server;
+    private final AtomicInteger hits = new AtomicInteger();
+    private volatile int status;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            hits.incrementAndGet();
+            byte[] body = (status == 200 ? "{\"price\": 101.5}" : "{\"error\": \"x\"}").getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(status, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.start();
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    void opensTheCircuitWhenTheUpstreamIsRateLimitedOrFailing() {
+        MarketDataClient client = client(16, Duration.ofSeconds(5));
+        status = 429;
+        for (int i = 0; i < 2; i++) {
+            assertThatThrownBy(() -> client.fetchPrice(AssetClass.STOCK, "INFY").join())
+                    .isInstanceOf(CompletionException.class);
+        }
+        status = 502;
+        assertThatThrownBy(() -> client.fetchPrice(AssetClass.STOCK, "INFY").join())
+                .isInstanceOf(CompletionException.class);
+        assertThat(circuitOpen("stock")).isEqualTo(1.0);
+
+        // Open: fails fast without reaching marketdataservice
+        assertThatThrownBy(() -> client.fetchPrice(AssetClass.STOCK, "INFY").join())
+                .hasCauseInstanceOf(MarketDataException.class)
+                .hasMessageContaining("Circuit open");
+        assertThat(hits).hasValue(3);
+    }
+
+    @Test
+    void keepsTheCircuitClosedForInstrumentsWithoutAPrice() {
+        MarketDataClient client = client(16, Duration.ofSeconds(5));
+        status = 404;
+        for (int i = 0; i < 5; i++) {
+            assertThat(client.fetchPrice(AssetClass.STOCK, "UNKNOWN").join()).isNull();
+        }
+        assertThat(circuitOpen("stock")).isEqualTo(0.0);
+        assertThat(hits).hasValue(5);
+    }
+
+    @Test
+    void doesNotHoldLocalPermitExhaustionAgainstTheCircuit() {
+        // No permits at all: every call is rejected locally before any request is sent
+        MarketDataClient client = client(0, Duration.ofMillis(100));
+        status = 200;
+        for (int i = 0; i < 5; i++) {
+            assertThatThrownBy(() -> client.fetchPrice(AssetClass.STOCK, "INFY").join())
+                    .hasCauseInstanceOf(MarketDataException.class)
+                    .hasMessageContaining("Too many concurrent");
+        }
+        assertThat(circuitOpen("stock")).isEqualTo(0.0);
+        assertThat(hits).hasValue(0);
+    }
+
+    @Test
+    void returnsToTheCallerWhileWaitingForAPermit() {
+        MarketDataClient client = client(0, Duration.ofSeconds(1));
+        long startedAt = System.nanoTime();
+        CompletableFuture<BigDecimal> price = client.fetchPrice(AssetClass.STOCK, "INFY");
+
+        assertThat(Duration.ofNanos(System.nanoTime() - startedAt)).isLessThan(Duration.ofMillis(500));
+        assertThat(price).isNotDone();
+        assertThatThrownBy(price::join).hasMessageContaining("Too many concurrent");
+    }
+
+    @Test
+    void startsQueuedRequestsAsPermitsAreReleased() {
+        MarketDataClient client = client(1, Duration.ofSeconds(5));
+        status = 200;
+        List<CompletableFuture<BigDecimal>> prices = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            prices.add(client.fetchPrice(AssetClass.STOCK, "INFY" + i));
+        }
+
+        for (CompletableFuture<BigDecimal> price : prices) {
+            assertThat(price.join()).isEqualByComparingTo("101.5");
+        }
+        assertThat(hits).hasValue(4);
+    }
+
+    private MarketDataClient client(int maxConcurrentRequests, Duration requestTimeout) {
+        return new MarketDataClient("http://127.0.0.1:" + server.getAddress().getPort(), Duration.ofSeconds(1),
+                requestTimeout, maxConcurrentRequests, 3, Duration.ofMinutes(1), new ObjectMapper(),
+                meterRegistry);
+    }
+
+    private double circuitOpen(String endpoint) {
+        return meterRegistry.get("portfolio.marketdata.circuit.open").tag("endpoint", endpoint).gauge().value();
+    }
+}
@@ -0,0 +1,97 @@
+package com.expense.service.repository;
+
+import com.expense.service.entities.CryptoHolding;
+import com.expense.service.entities.ManualHolding;
+import com.expense.service.entities.StockHolding;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Import(HoldingQueryRepository.class)
+class HoldingQueryRepositoryTest {
+
+    @Autowired
+    private HoldingQueryRepository holdingQueryRepository;
+    @Autowired
+    private StockHoldingRepository stockHoldingRepository;
+    @Autowired
+    private CryptoHoldingRepository cryptoHoldingRepository;
+    @Autowired
+    private ManualHoldingRepository manualHoldingRepository;
+
+    @Test
+    void pagesDistinctUserIdsAcrossAllTablesInOrder() {
+        // u1 has many lots in one table, so a branch without DISTINCT would fill a page with it
+        for (int i = 0; i < 5; i++) {
+            stock("u1");
+        }
+        stock("u3");
+        crypto("u2");
+        crypto("u3");
+        manual("u4");
+        manual("u6");
+        stock("u5");
+
+        List<String> seen = new ArrayList<>();
+        String after = "";
+        List<String> page;
+        do {
+            page = holdingQueryRepository.findUserIdsAfter(after, 2);
+            assertThat(page).hasSizeLessThanOrEqualTo(2);
+            seen.addAll(page);
+            if (!page.isEmpty()) {
+                after = page.get(page.size() - 1);
+            }
+        } while (page.size() == 2);
+
+        assertThat(seen).containsExactly("u1", "u2", "u3", "u4", "u5", "u6");
+    }
+
+    @Test
+    void startsStrictlyAfterTheCursor() {
+        stock("u1");
+        crypto("u2");
+        manual("u3");
+
+        assertThat(holdingQueryRepository.findUserIdsAfter("u1", 10)).containsExactly("u2", "u3");
+        assertThat(holdingQueryRepository.findUserIdsAfter("u3", 10)).isEmpty();
+    }
+
+    private void stock(String userId) {
+        StockHolding holding = new StockHolding();
+        holding.setUserId(userId);
+        holding.setSymbol("INFY");
+        holding.setQuantity(BigDecimal.ONE);
+        holding.setPurchasePrice(BigDecimal.TEN);
+        stockHoldingRepository.save(holding);
+    }
+
+    private void crypto(String userId) {
+        CryptoHolding holding = new CryptoHolding();
+        holding.setUserId(userId);
+        holding.setCoinId("bitcoin");
+        holding.setSymbol("BTC");
+        holding.setQuantity(BigDecimal.ONE);
+        holding.setPurchasePrice(BigDecimal.TEN);
+        cryptoHoldingRepository.save(holding);
+    }
+
+    private void manual(String userId) {
+        ManualHolding holding = new ManualHolding();
+        holding.setUserId(userId);
+        holding.setAssetName("Fixed Deposit");
+        holding.setAssetType("FD");
+        holding.setInvestedValue(BigDecimal.TEN);
+        manualHoldingRepository.save(holding);
+    }
+}
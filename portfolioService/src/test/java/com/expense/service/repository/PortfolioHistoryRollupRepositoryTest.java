@@ -0,0 +1,73 @@
+package com.expense.service.repository;
+
+import com.expense.service.dto.PortfolioHistoryDto;
+import com.expense.service.entities.HistoryResolution;
+import com.expense.service.entities.PortfolioHistoryRollup;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ActiveProfiles("test")
+class PortfolioHistoryRollupRepositoryTest {
+
+    @Autowired
+    private PortfolioHistoryRollupRepository portfolioHistoryRollupRepository;
+
+    @Test
+    void firstPageKeepsThePeriodContainingTheRangeStart() {
+        monthly("u1", LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 31));
+        monthly("u1", LocalDate.of(2024, 2, 1), LocalDate.of(2024, 2, 29));
+
+        // A range starting mid-January still shows January's close
+        List<PortfolioHistoryDto> page = portfolioHistoryRollupRepository.findPageByUserId("u1",
+                HistoryResolution.MONTHLY, LocalDate.of(2024, 1, 15), PageRequest.of(0, 10));
+
+        assertThat(page).extracting(PortfolioHistoryDto::snapshotDate)
+                .containsExactly(LocalDate.of(2024, 1, 31), LocalDate.of(2024, 2, 29));
+    }
+
+    @Test
+    void pagesResumeRightAfterTheLastCloseDate() {
+        // The current month closes on the latest snapshot, not the month end
+        monthly("u1", LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 31));
+        monthly("u1", LocalDate.of(2024, 2, 1), LocalDate.of(2024, 2, 29));
+        monthly("u1", LocalDate.of(2024, 3, 1), LocalDate.of(2024, 3, 31));
+        monthly("u1", LocalDate.of(2024, 4, 1), LocalDate.of(2024, 4, 12));
+        monthly("u2", LocalDate.of(2024, 2, 1), LocalDate.of(2024, 2, 29));
+
+        List<LocalDate> seen = new ArrayList<>();
+        LocalDate after = LocalDate.EPOCH;
+        List<PortfolioHistoryDto> page;
+        do {
+            page = portfolioHistoryRollupRepository.findPageByUserId("u1", HistoryResolution.MONTHLY, after,
+                    PageRequest.of(0, 2));
+            page.forEach(row -> seen.add(row.snapshotDate()));
+            if (!page.isEmpty()) {
+                after = page.get(page.size() - 1).snapshotDate();
+            }
+        } while (page.size() == 2);
+
+        assertThat(seen).containsExactly(LocalDate.of(2024, 1, 31), LocalDate.of(2024, 2, 29),
+                LocalDate.of(2024, 3, 31), LocalDate.of(2024, 4, 12));
+    }
+
+    private void monthly(String userId, LocalDate periodStart, LocalDate closeDate) {
+        PortfolioHistoryRollup rollup = new PortfolioHistoryRollup();
+        rollup.setUserId(userId);
+        rollup.setResolution(HistoryResolution.MONTHLY);
+        rollup.setPeriodStart(periodStart);
+        rollup.setCloseDate(closeDate);
+        rollup.setTotalValue(BigDecimal.TEN);
+        portfolioHistoryRollupRepository.save(rollup);
+    }
+}
@@ -0,0 +1,77 @@
+package com.expense.service.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CsvRecordReaderTest {
+
+    @Test
+    void splitsPlainRecordsOnCommasAndNewlines() throws IOException {
+        assertThat(readAll("type,symbol\nSTOCK,INFY\nCRYPTO,BTC"))
+                .containsExactly(List.of("type", "symbol"), List.of("STOCK", "INFY"), List.of("CRYPTO", "BTC"));
+    }
+
+    @Test
+    void acceptsCrlfLineEndings() throws IOException {
+        assertThat(readAll("type,symbol\r\nSTOCK,INFY\r\n"))
+                .containsExactly(List.of("type", "symbol"), List.of("STOCK", "INFY"));
+    }
+
+    @Test
+    void skipsLeadingByteOrderMark() throws IOException {
+        assertThat(readAll("\uFEFFtype,symbol\nSTOCK,INFY"))
+                .containsExactly(List.of("type", "symbol"), List.of("STOCK", "INFY"));
+        assertThat(readAll("\uFEFF\"type\",symbol"))
+                .containsExactly(List.of("type", "symbol"));
+    }
+
+    @Test
+    void keepsCommasAndDoubledQuotesInsideQuotedFields() throws IOException {
+        assertThat(readAll("MANUAL,\"Gold, 24k\",\"the \"\"good\"\" bar\",\"\""))
+                .containsExactly(List.of("MANUAL", "Gold, 24k", "the \"good\" bar", ""));
+    }
+
+    @Test
+    void quotedFieldsMaySpanLines() throws IOException {
+        assertThat(readAll("MANUAL,\"line one\r\nline two\",FD\nSTOCK,INFY,NSE"))
+                .containsExactly(List.of("MANUAL", "line one\r\nline two", "FD"), List.of("STOCK", "INFY", "NSE"));
+    }
+
+    @Test
+    void skipsBlankLinesButKeepsEmptyFields() throws IOException {
+        assertThat(readAll("\n\r\nSTOCK,,NSE\n\n,\n"))
+                .containsExactly(List.of("STOCK", "", "NSE"), List.of("", ""));
+    }
+
+    @Test
+    void rejectsUnclosedQuote() {
+        assertThatThrownBy(() -> readAll("STOCK,\"INFY\nCRYPTO,BTC"))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("Unclosed quote");
+    }
+
+    @Test
+    void rejectsOverlongRecord() {
+        String record = "\"" + "x".repeat(70 * 1024);
+        assertThatThrownBy(() -> readAll(record))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("Record longer than");
+    }
+
+    private static List<List<String>> readAll(String csv) throws IOException {
+        CsvRecordReader reader = new CsvRecordReader(new StringReader(csv));
+        List<List<String>> records = new ArrayList<>();
+        List<String> record;
+        while ((record = reader.next()) != null) {
+            records.add(record);
+        }
+        return records;
+    }
+}
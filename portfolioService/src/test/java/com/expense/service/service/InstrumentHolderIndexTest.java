@@ -0,0 +1,92 @@
+package com.expense.service.service;
+
+import com.expense.service.dto.HoldingRowDto;
+import com.expense.service.entities.AssetClass;
+import com.expense.service.entities.HoldingType;
+import com.expense.service.repository.HoldingQueryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class InstrumentHolderIndexTest {
+
+    @Mock
+    private HoldingQueryRepository holdingQueryRepository;
+
+    private InstrumentHolderIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new InstrumentHolderIndex(holdingQueryRepository);
+        ReflectionTestUtils.setField(index, "userPageSize", 1000);
+        ReflectionTestUtils.setField(index, "holdingsBatchSize", 200);
+        ReflectionTestUtils.setField(index, "rebuildInterval", Duration.ofMinutes(10));
+    }
+
+    @Test
+    void retriesAFailedBuildOnTheNextCheck() {
+        when(holdingQueryRepository.findUserIdsAfter(anyString(), anyInt()))
+                .thenThrow(new IllegalStateException("database unavailable"))
+                .thenReturn(List.of("u1"));
+        when(holdingQueryRepository.findByUserIds(any())).thenReturn(List.of(stock("u1", "INFY")));
+
+        index.rebuildIfDue();
+        assertThat(index.isReady()).isFalse();
+
+        index.rebuildIfDue();
+        assertThat(index.isReady()).isTrue();
+        assertThat(index.holdersOf(Map.of(AssetClass.STOCK, List.of("INFY")))).containsExactly("u1");
+    }
+
+    @Test
+    void rebuildPicksUpChangesMadeElsewhere() {
+        when(holdingQueryRepository.findUserIdsAfter(anyString(), anyInt())).thenReturn(List.of("u1", "u2"));
+        when(holdingQueryRepository.findByUserIds(any()))
+                .thenReturn(List.of(stock("u1", "INFY"), stock("u2", "INFY")));
+        index.build();
+
+        // u2 sold everything and u1 switched to TCS through another instance
+        when(holdingQueryRepository.findUserIdsAfter(anyString(), anyInt())).thenReturn(List.of("u1"));
+        when(holdingQueryRepository.findByUserIds(any())).thenReturn(List.of(stock("u1", "TCS")));
+        index.build();
+
+        assertThat(index.holdersOf(Map.of(AssetClass.STOCK, List.of("INFY")))).isEmpty();
+        assertThat(index.holdersOf(Map.of(AssetClass.STOCK, List.of("TCS")))).containsExactly("u1");
+        assertThat(index.holdsAny("u2", AssetClass.STOCK, List.of("INFY"))).isFalse();
+    }
+
+    @Test
+    void skipsRebuildUntilTheIntervalHasPassed() {
+        when(holdingQueryRepository.findUserIdsAfter(anyString(), anyInt())).thenReturn(List.of("u1"));
+        when(holdingQueryRepository.findByUserIds(any())).thenReturn(List.of(stock("u1", "INFY")));
+        index.rebuildIfDue();
+
+        when(holdingQueryRepository.findByUserIds(any())).thenReturn(List.of(stock("u1", "TCS")));
+        index.rebuildIfDue();
+
+        assertThat(index.holdsAny("u1", AssetClass.STOCK, List.of("INFY"))).isTrue();
+    }
+
+    private static HoldingRowDto stock(String userId, String symbol) {
+        return new HoldingRowDto(HoldingType.STOCK, userId + "-" + symbol, userId, symbol, "NSE",
+                BigDecimal.ONE, BigDecimal.TEN, null, null, null, null);
+    }
+}
@@ -0,0 +1,114 @@
+package com.expense.service.service;
+
+import com.expense.service.config.InstanceIdentity;
+import com.expense.service.entities.AssetClass;
+import com.expense.service.entities.InstrumentPrice;
+import com.expense.service.repository.CryptoHoldingRepository;
+import com.expense.service.repository.InstrumentPriceRepository;
+import com.expense.service.repository.MutualFundHoldingRepository;
+import com.expense.service.repository.SchedulerLeaseJdbcRepository;
+import com.expense.service.repository.StockHoldingRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class InstrumentPriceRefresherTest {
+
+    @Mock
+    private MarketPriceService marketPriceService;
+    @Mock
+    private StockHoldingRepository stockHoldingRepository;
+    @Mock
+    private MutualFundHoldingRepository mutualFundHoldingRepository;
+    @Mock
+    private CryptoHoldingRepository cryptoHoldingRepository;
+    @Mock
+    private InstrumentPriceRepository instrumentPriceRepository;
+    @Mock
+    private SchedulerLeaseJdbcRepository schedulerLeaseJdbcRepository;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private InstrumentPriceRefresher refresher;
+
+    @BeforeEach
+    void setUp() {
+        refresher = new InstrumentPriceRefresher(marketPriceService, stockHoldingRepository,
+                mutualFundHoldingRepository, cryptoHoldingRepository, instrumentPriceRepository,
+                schedulerLeaseJdbcRepository, new InstanceIdentity("instance-1"), eventPublisher,
+                new MarketCalendar("Asia/Kolkata", "09:15", "15:45"),
+                Duration.ofHours(1), Duration.ofHours(1), Duration.ofHours(6));
+        ReflectionTestUtils.setField(refresher, "enabled", true);
+        ReflectionTestUtils.setField(refresher, "lease", Duration.ofMinutes(2));
+        ReflectionTestUtils.setField(refresher, "followLookback", Duration.ofMinutes(5));
+
+        when(stockHoldingRepository.findDistinctSymbols()).thenReturn(List.of());
+        when(mutualFundHoldingRepository.findDistinctSchemeCodes()).thenReturn(List.of());
+        when(cryptoHoldingRepository.findDistinctCoinIds()).thenReturn(List.of("bitcoin", "ethereum"));
+    }
+
+    @Test
+    void retriesOnTheNextTickWhenMostFetchesFailed() {
+        when(schedulerLeaseJdbcRepository.acquire(eq(InstrumentPriceRefresher.LEASE), eq("instance-1"), any()))
+                .thenReturn(true);
+        when(marketPriceService.refresh(eq(AssetClass.CRYPTO), anyCollection())).thenReturn(0, 2);
+
+        refresher.refreshDue();
+        refresher.refreshDue();
+        // The second round priced everything, so crypto is not due again within its interval
+        refresher.refreshDue();
+
+        verify(marketPriceService, times(2)).refresh(eq(AssetClass.CRYPTO), anyCollection());
+    }
+
+    @Test
+    void instancesWithoutTheLeasePublishStoredPricesOnceInsteadOfFetching() {
+        when(schedulerLeaseJdbcRepository.acquire(eq(InstrumentPriceRefresher.LEASE), eq("instance-1"), any()))
+                .thenReturn(false);
+        Instant asOf = Instant.now();
+        when(instrumentPriceRepository.findByAsOfAfter(any()))
+                .thenReturn(List.of(price(AssetClass.CRYPTO, "bitcoin", asOf), price(AssetClass.STOCK, "INFY", asOf)));
+
+        refresher.refreshDue();
+        refresher.refreshDue();
+
+        verify(marketPriceService, never()).refresh(any(), anyCollection());
+        ArgumentCaptor<InstrumentPricesRefreshedEvent> events = ArgumentCaptor.forClass(InstrumentPricesRefreshedEvent.class);
+        verify(eventPublisher, times(2)).publishEvent(events.capture());
+        assertThat(events.getAllValues()).containsExactlyInAnyOrder(
+                new InstrumentPricesRefreshedEvent(AssetClass.CRYPTO, List.of("bitcoin")),
+                new InstrumentPricesRefreshedEvent(AssetClass.STOCK, List.of("INFY")));
+    }
+
+    private static InstrumentPrice price(AssetClass assetClass, String instrumentId, Instant asOf) {
+        InstrumentPrice price = new InstrumentPrice();
+        price.setAssetClass(assetClass);
+        price.setInstrumentId(instrumentId);
+        price.setPrice(BigDecimal.TEN);
+        price.setAsOf(asOf);
+        return price;
+    }
+}
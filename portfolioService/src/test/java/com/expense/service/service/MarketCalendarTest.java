@@ -0,0 +1,41 @@
+package com.expense.service.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MarketCalendarTest {
+
+    private static final ZoneId ZONE = ZoneId.of("Asia/Kolkata");
+
+    private final MarketCalendar calendar = new MarketCalendar("Asia/Kolkata", "09:15", "15:45");
+
+    @Test
+    void marketIsOpenOnWeekdaysBetweenOpenAndClose() {
+        // 2024-06-14 is a Friday
+        assertThat(calendar.isOpen(at(2024, 6, 14, 9, 14))).isFalse();
+        assertThat(calendar.isOpen(at(2024, 6, 14, 9, 15))).isTrue();
+        assertThat(calendar.isOpen(at(2024, 6, 14, 15, 44))).isTrue();
+        assertThat(calendar.isOpen(at(2024, 6, 14, 15, 45))).isFalse();
+        assertThat(calendar.isOpen(at(2024, 6, 15, 11, 0))).isFalse();
+    }
+
+    @Test
+    void lastCloseSkipsTheWeekendAndTodayBeforeTheClose() {
+        Instant fridayClose = at(2024, 6, 14, 15, 45).toInstant();
+
+        assertThat(calendar.lastClose(at(2024, 6, 14, 15, 45))).isEqualTo(fridayClose);
+        assertThat(calendar.lastClose(at(2024, 6, 16, 20, 0))).isEqualTo(fridayClose);
+        assertThat(calendar.lastClose(at(2024, 6, 17, 8, 0))).isEqualTo(fridayClose);
+        assertThat(calendar.lastClose(at(2024, 6, 17, 16, 0))).isEqualTo(at(2024, 6, 17, 15, 45).toInstant());
+    }
+
+    private static ZonedDateTime at(int year, int month, int day, int hour, int minute) {
+        return LocalDateTime.of(year, month, day, hour, minute).atZone(ZONE);
+    }
+}
@@ -0,0 +1,66 @@
+package com.expense.service.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class MonteCarloProjectionTest {
+
+    // Two holding types over four historical days, day-major
+    private static final double[] GROWTH = {
+            1.01, 0.99,
+            0.98, 1.00,
+            1.02, 1.01,
+            1.00, 0.97};
+    private static final double[] START = {600, 400};
+    private static final long SEED = 42;
+
+    private final ForkJoinPool single = new ForkJoinPool(1);
+    private final ForkJoinPool wide = new ForkJoinPool(4);
+
+    @AfterEach
+    void tearDown() {
+        single.shutdownNow();
+        wide.shutdownNow();
+    }
+
+    @Test
+    void bandsAreOrderedByPercentile() {
+        double[][] bands = MonteCarloProjection.run(START, GROWTH, 5, 50, 2000, SEED, wide);
+
+        assertThat(bands).hasNumberOfRows(5);
+        for (double[] band : bands) {
+            assertThat(band).hasSize(MonteCarloProjection.PERCENTILES.length);
+            for (int i = 1; i < band.length; i++) {
+                assertThat(band[i]).isGreaterThanOrEqualTo(band[i - 1]);
+            }
+            assertThat(band[0]).isLessThan(band[band.length - 1]);
+        }
+    }
+
+    @Test
+    void resultsDoNotDependOnHowPathsAreSplit() {
+        double[][] sequential = MonteCarloProjection.run(START, GROWTH, 3, 50, 5000, SEED, single);
+        double[][] parallel = MonteCarloProjection.run(START, GROWTH, 3, 50, 5000, SEED, wide);
+
+        assertThat(parallel).isDeepEqualTo(sequential);
+        assertThat(Arrays.deepEquals(MonteCarloProjection.run(START, GROWTH, 3, 50, 5000, SEED + 1, wide), sequential))
+                .isFalse();
+    }
+
+    @Test
+    void constantGrowthCompoundsExactly() {
+        double[] flat = {1.001, 1.001, 1.001, 1.001};
+
+        double[][] bands = MonteCarloProjection.run(START, flat, 2, 100, 500, SEED, wide);
+
+        for (double value : bands[1]) {
+            assertThat(value).isCloseTo(1000 * Math.pow(1.001, 200), within(1e-6));
+        }
+    }
+}
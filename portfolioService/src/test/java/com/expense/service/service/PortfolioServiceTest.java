@@ -0,0 +1,130 @@
+package com.expense.service.service;
+
+import com.expense.service.dto.HoldingRowDto;
+import com.expense.service.dto.SellRequestDto;
+import com.expense.service.dto.SellResultDto;
+import com.expense.service.entities.HoldingType;
+import com.expense.service.entities.LotSale;
+import com.expense.service.repository.CryptoHoldingRepository;
+import com.expense.service.repository.LotSaleRepository;
+import com.expense.service.repository.ManualHoldingRepository;
+import com.expense.service.repository.MutualFundHoldingRepository;
+import com.expense.service.repository.PositionJdbcRepository;
+import com.expense.service.repository.StockHoldingRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class PortfolioServiceTest {
+
+    @Mock
+    private StockHoldingRepository stockHoldingRepository;
+    @Mock
+    private MutualFundHoldingRepository mutualFundHoldingRepository;
+    @Mock
+    private CryptoHoldingRepository cryptoHoldingRepository;
+    @Mock
+    private ManualHoldingRepository manualHoldingRepository;
+    @Mock
+    private PositionJdbcRepository positionJdbcRepository;
+    @Mock
+    private LotSaleRepository lotSaleRepository;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private PortfolioService portfolioService;
+
+    @BeforeEach
+    void setUp() {
+        portfolioService = new PortfolioService(stockHoldingRepository, mutualFundHoldingRepository,
+                cryptoHoldingRepository, manualHoldingRepository, positionJdbcRepository, lotSaleRepository,
+                eventPublisher);
+        ReflectionTestUtils.setField(portfolioService, "zone", "Asia/Kolkata");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void sellConsumesTheOldestLotsFirst() {
+        when(positionJdbcRepository.findLotsFifo("u1", HoldingType.STOCK, "INFY")).thenReturn(List.of(
+                lot("a", 10, 100, LocalDate.of(2023, 1, 1)),
+                lot("b", 10, 120, LocalDate.of(2023, 6, 1)),
+                lot("c", 10, 150, LocalDate.of(2024, 1, 1))));
+
+        SellResultDto result = portfolioService.sell(request(15, 200), "u1");
+
+        // All of a at 100 and half of b at 120
+        assertThat(result.getCostOfSold()).isEqualByComparingTo("1600");
+        assertThat(result.getRealizedPnl()).isEqualByComparingTo("1400");
+        assertThat(result.getLotsClosed()).isEqualTo(1);
+
+        InOrder order = inOrder(positionJdbcRepository, stockHoldingRepository, eventPublisher);
+        order.verify(positionJdbcRepository).addRealized(eq("u1"), eq(HoldingType.STOCK), eq("INFY"), eq("a"),
+                argThat(amount -> amount.compareTo(BigDecimal.valueOf(1400)) == 0));
+        order.verify(positionJdbcRepository).reduceLot(eq("u1"), eq(HoldingType.STOCK), eq("b"),
+                argThat(quantity -> quantity.compareTo(BigDecimal.valueOf(5)) == 0));
+        order.verify(stockHoldingRepository).deleteByUserIdAndExternalIdIn("u1", List.of("a"));
+        order.verify(eventPublisher).publishEvent(new HoldingsChangedEvent("u1"));
+        verify(positionJdbcRepository, never()).reduceLot(anyString(), any(), eq("c"), any());
+
+        ArgumentCaptor<List<LotSale>> sales = ArgumentCaptor.forClass(List.class);
+        verify(lotSaleRepository).saveAll(sales.capture());
+        assertThat(sales.getValue()).extracting(LotSale::getLotExternalId).containsExactly("a", "b");
+        assertThat(sales.getValue().get(1).getCost()).isEqualByComparingTo("600");
+        assertThat(sales.getValue().get(1).getProceeds()).isEqualByComparingTo("1000");
+        assertThat(sales.getValue().get(1).getPurchaseDate()).isEqualTo(LocalDate.of(2023, 6, 1));
+    }
+
+    @Test
+    void sellRejectsMoreThanIsHeld() {
+        when(positionJdbcRepository.findLotsFifo("u1", HoldingType.STOCK, "INFY"))
+                .thenReturn(List.of(lot("a", 10, 100, null)));
+
+        assertThatThrownBy(() -> portfolioService.sell(request(11, 200), "u1"))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        verify(positionJdbcRepository, never()).addRealized(any(), any(), any(), any(), any());
+        verify(positionJdbcRepository, never()).reduceLot(any(), any(), any(), any());
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    private static SellRequestDto request(double quantity, double price) {
+        SellRequestDto dto = new SellRequestDto();
+        dto.setType(HoldingType.STOCK);
+        dto.setInstrumentId("INFY");
+        dto.setQuantity(BigDecimal.valueOf(quantity));
+        dto.setPrice(BigDecimal.valueOf(price));
+        return dto;
+    }
+
+    private static HoldingRowDto lot(String externalId, double quantity, double price, LocalDate purchaseDate) {
+        BigDecimal lotQuantity = BigDecimal.valueOf(quantity);
+        BigDecimal purchasePrice = BigDecimal.valueOf(price);
+        return new HoldingRowDto(HoldingType.STOCK, externalId, "u1", "INFY", null, lotQuantity, purchasePrice,
+                lotQuantity.multiply(purchasePrice), null, purchaseDate, null);
+    }
+}
@@ -0,0 +1,213 @@
+package com.expense.service.service;
+
+import com.expense.service.config.InstanceIdentity;
+import com.expense.service.dto.HoldingRowDto;
+import com.expense.service.entities.HoldingType;
+import com.expense.service.entities.PortfolioHistory;
+import com.expense.service.repository.CryptoHoldingRepository;
+import com.expense.service.repository.HoldingQueryRepository;
+import com.expense.service.repository.MutualFundHoldingRepository;
+import com.expense.service.repository.PortfolioHistoryJdbcRepository;
+import com.expense.service.repository.PortfolioIntradayJdbcRepository;
+import com.expense.service.repository.SchedulerLeaseJdbcRepository;
+import com.expense.service.repository.SnapshotCheckpointJdbcRepository;
+import com.expense.service.repository.SnapshotCheckpointRepository;
+import com.expense.service.repository.SnapshotFailureJdbcRepository;
+import com.expense.service.repository.StockHoldingRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class PortfolioSnapshotServiceTest {
+
+    @Mock
+    private StockHoldingRepository stockHoldingRepository;
+    @Mock
+    private MutualFundHoldingRepository mutualFundHoldingRepository;
+    @Mock
+    private CryptoHoldingRepository cryptoHoldingRepository;
+    @Mock
+    private PortfolioHistoryJdbcRepository portfolioHistoryJdbcRepository;
+    @Mock
+    private PortfolioIntradayJdbcRepository portfolioIntradayJdbcRepository;
+    @Mock
+    private HoldingQueryRepository holdingQueryRepository;
+    @Mock
+    private SnapshotCheckpointRepository snapshotCheckpointRepository;
+    @Mock
+    private SnapshotCheckpointJdbcRepository snapshotCheckpointJdbcRepository;
+    @Mock
+    private SnapshotFailureJdbcRepository snapshotFailureJdbcRepository;
+    @Mock
+    private SchedulerLeaseJdbcRepository schedulerLeaseJdbcRepository;
+    @Mock
+    private MarketPriceService marketPriceService;
+    @Mock
+    private PortfolioVersionService portfolioVersionService;
+    @Mock
+    private PortfolioReturnsService portfolioReturnsService;
+    @Mock
+    private InstrumentHolderIndex instrumentHolderIndex;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private PortfolioSnapshotService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new PortfolioSnapshotService(stockHoldingRepository, mutualFundHoldingRepository,
+                cryptoHoldingRepository, portfolioHistoryJdbcRepository, portfolioIntradayJdbcRepository,
+                holdingQueryRepository, snapshotCheckpointRepository, snapshotCheckpointJdbcRepository,
+                snapshotFailureJdbcRepository, schedulerLeaseJdbcRepository, new InstanceIdentity("instance-1"), marketPriceService,
+                portfolioVersionService, portfolioReturnsService, instrumentHolderIndex, eventPublisher, 16);
+        ReflectionTestUtils.setField(service, "userPageSize", 1000);
+        ReflectionTestUtils.setField(service, "writeBatchSize", 500);
+        ReflectionTestUtils.setField(service, "holdingsBatchSize", 200);
+        ReflectionTestUtils.setField(service, "snapshotMode", "local");
+        ReflectionTestUtils.setField(service, "lease", Duration.ofMinutes(2));
+        ReflectionTestUtils.setField(service, "zone", "Asia/Kolkata");
+
+        when(marketPriceService.resolveQuotes(any())).thenReturn(new PriceBook());
+        when(snapshotCheckpointJdbcRepository.claim(any(), eq("instance-1"), any(), anyBoolean())).thenReturn(true);
+        when(snapshotCheckpointJdbcRepository.advance(any(), eq("instance-1"), anyString(), any())).thenReturn(true);
+        when(snapshotCheckpointRepository.findById(any())).thenReturn(Optional.empty());
+        when(holdingQueryRepository.findUserIdsAfter("", 1000)).thenReturn(List.of("u1", "u2"));
+    }
+
+    @Test
+    void completesTheDayWhenEveryUserIsWritten() {
+        when(holdingQueryRepository.findPositionsByUserIds(any())).thenReturn(List.of(manual("u1"), manual("u2")));
+        when(snapshotFailureJdbcRepository.findUserIds(any())).thenReturn(List.of());
+
+        service.takeSnapshots();
+
+        verify(portfolioReturnsService).writeHistory(any());
+        verify(snapshotCheckpointJdbcRepository).advance(any(), eq("instance-1"), eq("u2"), any());
+        verify(snapshotCheckpointJdbcRepository).complete(any(LocalDate.class), eq("instance-1"));
+    }
+
+    @Test
+    void recordsAFailedUserAndLeavesTheDayRunningWhileItStillFails() {
+        // u2's stock lot has no quantity, so valuing it throws
+        HoldingRowDto broken = new HoldingRowDto(HoldingType.STOCK, "e2", "u2", "INFY", "NSE", null,
+                BigDecimal.TEN, BigDecimal.TEN, null, null, null);
+        when(holdingQueryRepository.findPositionsByUserIds(any())).thenReturn(List.of(manual("u1"), broken));
+        when(snapshotFailureJdbcRepository.findUserIds(any())).thenReturn(List.of("u2"));
+
+        service.takeSnapshots();
+
+        verify(snapshotFailureJdbcRepository).record(any(), eq(List.of("u2")));
+        verify(snapshotCheckpointJdbcRepository).advance(any(), eq("instance-1"), eq("u2"), any());
+        verify(snapshotFailureJdbcRepository).delete(any(), eq(List.of()));
+        verify(snapshotCheckpointJdbcRepository, never()).complete(any(), anyString());
+    }
+
+    @Test
+    void clearsAFailedUserOnceItsRetrySucceeds() {
+        when(holdingQueryRepository.findPositionsByUserIds(any())).thenReturn(List.of(manual("u1"), manual("u2")));
+        when(snapshotFailureJdbcRepository.findUserIds(any())).thenReturn(List.of("u0"));
+
+        service.resumeIncompleteSnapshot();
+
+        verify(snapshotFailureJdbcRepository).delete(any(), eq(List.of("u0")));
+        verify(snapshotCheckpointJdbcRepository).complete(any(LocalDate.class), eq("instance-1"));
+    }
+
+    @Test
+    void recordsTheFailedUsersOfAWorkItemAndClearsTheRest() {
+        HoldingRowDto broken = new HoldingRowDto(HoldingType.STOCK, "e2", "u2", "INFY", "NSE", null,
+                BigDecimal.TEN, BigDecimal.TEN, null, null, null);
+        when(holdingQueryRepository.findPositionsByUserIds(any())).thenReturn(List.of(manual("u1"), broken));
+        LocalDate snapshotDate = LocalDate.of(2024, 6, 14);
+
+        service.snapshotUsers(snapshotDate, List.of("u1", "u2"));
+
+        verify(snapshotFailureJdbcRepository).record(eq(snapshotDate), eq(Set.of("u2")));
+        verify(snapshotFailureJdbcRepository).delete(snapshotDate, List.of("u1"));
+    }
+
+    @Test
+    void leavesTheRunAloneWhenAnotherInstanceHoldsTheLease() {
+        when(snapshotCheckpointJdbcRepository.claim(any(), eq("instance-1"), any(), anyBoolean())).thenReturn(false);
+
+        service.takeSnapshots();
+
+        verifyNoInteractions(holdingQueryRepository, portfolioReturnsService);
+    }
+
+    @Test
+    void skipsAnIntradayTickTakenByAnotherInstance() {
+        ReflectionTestUtils.setField(service, "intradayEnabled", true);
+        ReflectionTestUtils.setField(service, "intradayLease", Duration.ofMinutes(10));
+        when(schedulerLeaseJdbcRepository.acquire(eq(PortfolioSnapshotService.INTRADAY_LEASE), eq("instance-1"), any()))
+                .thenReturn(false);
+
+        service.takeIntradaySnapshots();
+
+        verifyNoInteractions(marketPriceService, holdingQueryRepository, portfolioIntradayJdbcRepository);
+    }
+
+    @Test
+    void stopsPagingWhenTheLeaseIsLost() {
+        ReflectionTestUtils.setField(service, "userPageSize", 1);
+        when(holdingQueryRepository.findUserIdsAfter("", 1)).thenReturn(List.of("u1"));
+        when(holdingQueryRepository.findPositionsByUserIds(any())).thenReturn(List.of(manual("u1")));
+        when(snapshotCheckpointJdbcRepository.advance(any(), eq("instance-1"), anyString(), any())).thenReturn(false);
+
+        service.takeSnapshots();
+
+        verify(holdingQueryRepository, never()).findUserIdsAfter(eq("u1"), anyInt());
+        verify(snapshotCheckpointJdbcRepository, never()).complete(any(), anyString());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void valuesAManualHoldingWithoutACurrentValueAtCost() {
+        HoldingRowDto noCurrentValue = new HoldingRowDto(HoldingType.MANUAL, "e2", "u2", "Plot", "Real Estate",
+                null, null, BigDecimal.valueOf(500), null, null, null);
+        when(holdingQueryRepository.findPositionsByUserIds(any())).thenReturn(List.of(manual("u1"), noCurrentValue));
+        when(snapshotFailureJdbcRepository.findUserIds(any())).thenReturn(List.of());
+
+        service.takeSnapshots();
+
+        ArgumentCaptor<List<PortfolioHistory>> rows = ArgumentCaptor.forClass(List.class);
+        verify(portfolioReturnsService).writeHistory(rows.capture());
+        assertThat(rows.getValue()).extracting(PortfolioHistory::getUserId, PortfolioHistory::getTotalValue)
+                .containsExactly(tuple("u1", BigDecimal.valueOf(11)), tuple("u2", BigDecimal.valueOf(500)));
+        assertThat(rows.getValue().get(1).getBreakdown().getManualValue()).isEqualByComparingTo("500");
+        verify(snapshotCheckpointJdbcRepository).complete(any(LocalDate.class), eq("instance-1"));
+    }
+
+    private static HoldingRowDto manual(String userId) {
+        return new HoldingRowDto(HoldingType.MANUAL, "e-" + userId, userId, "Fixed Deposit", "FD", null, null,
+                BigDecimal.TEN, BigDecimal.valueOf(11), null, null);
+    }
+}
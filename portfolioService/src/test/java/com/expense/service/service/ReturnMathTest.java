@@ -0,0 +1,152 @@
+package com.expense.service.service;
+
+import com.expense.service.dto.HoldingRowDto;
+import com.expense.service.entities.AssetClassBreakdown;
+import com.expense.service.entities.HoldingType;
+import com.expense.service.entities.LotSale;
+import com.expense.service.entities.PortfolioHistory;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class ReturnMathTest {
+
+    private static final LocalDate DAY_0 = LocalDate.of(2024, 1, 1);
+
+    @Test
+    void chainsGrowthWithFlowsAtTheEndOfTheDay() {
+        PortfolioHistory first = row(0, 100, 100);
+        PortfolioHistory second = row(1, 110, 100);
+        // 100 added on day 2: the 10 gain on top of it is that day's growth on 110
+        PortfolioHistory third = row(2, 220, 200);
+
+        assertThat(ReturnMath.chain(null, first)).isTrue();
+        assertThat(ReturnMath.chain(first, second)).isFalse();
+        assertThat(ReturnMath.chain(second, third)).isFalse();
+
+        assertThat(third.getNetInvested()).isEqualByComparingTo("200");
+        assertThat(ReturnMath.timeWeighted(first, third)).isCloseTo(0.2, within(1e-12));
+        assertThat(ReturnMath.timeWeighted(second, third)).isCloseTo(120.0 / 110 - 1, within(1e-12));
+    }
+
+    @Test
+    void countsASaleAsWithdrawingItsProceeds() {
+        PortfolioHistory first = row(0, 100, 100);
+        // Everything sold at 110: the invested amount falls by the cost, the value by the proceeds
+        PortfolioHistory sold = row(1, 0, 0);
+        sold.getBreakdown().setStockRealized(BigDecimal.TEN);
+        ReturnMath.chain(null, first);
+        ReturnMath.chain(first, sold);
+
+        assertThat(sold.getNetInvested()).isEqualByComparingTo("-10");
+        assertThat(ReturnMath.timeWeighted(first, sold)).isCloseTo(0.1, within(1e-12));
+    }
+
+    @Test
+    void leavesMisvaluedDaysOutOfTheGrowthIndex() {
+        PortfolioHistory first = row(0, 100, 100);
+        PortfolioHistory missingPrices = row(1, 0, 100);
+        ReturnMath.chain(null, first);
+        ReturnMath.chain(first, missingPrices);
+
+        assertThat(missingPrices.getGrowthIndex()).isEqualTo(1.0);
+    }
+
+    @Test
+    void seriesStartMatchesTheChainedFirstRow() {
+        PortfolioHistory first = row(0, 100, 100);
+        ReturnMath.chain(null, first);
+
+        PortfolioHistory start = ReturnMath.seriesStart("u1", DAY_0, BigDecimal.valueOf(100), BigDecimal.valueOf(100));
+
+        assertThat(start.getGrowthIndex()).isEqualTo(first.getGrowthIndex());
+        assertThat(start.getNetInvested()).isEqualByComparingTo(first.getNetInvested());
+        assertThat(start.getFlowDayWeight()).isEqualByComparingTo(first.getFlowDayWeight());
+        assertThat(ReturnMath.moneyWeighted(start, first)).isNull();
+    }
+
+    @Test
+    void modifiedDietzWeightsFlowsByTheRestOfThePeriod() {
+        PortfolioHistory first = row(0, 100, 100);
+        PortfolioHistory topUp = row(5, 200, 200);
+        PortfolioHistory end = row(10, 220, 200);
+        ReturnMath.chain(null, first);
+        ReturnMath.chain(first, topUp);
+        ReturnMath.chain(topUp, end);
+
+        PortfolioHistory start = ReturnMath.seriesStart("u1", DAY_0, BigDecimal.valueOf(100), BigDecimal.valueOf(100));
+
+        // Gain of 20 on 100 held throughout plus 100 held for half the period
+        assertThat(ReturnMath.moneyWeighted(start, end)).isCloseTo(20.0 / 150, within(1e-12));
+        assertThat(ReturnMath.moneyWeighted(first, end)).isCloseTo(20.0 / 150, within(1e-12));
+    }
+
+    @Test
+    void xirrConvergesWithNewtonForAYearAtTenPercent() {
+        LocalDate asOf = DAY_0.plusDays(365);
+
+        Double rate = ReturnMath.xirr(List.of(lot(100, DAY_0)), List.of(), BigDecimal.valueOf(110), asOf, asOf);
+
+        assertThat(rate).isCloseTo(0.1, within(1e-9));
+    }
+
+    @Test
+    void xirrFallsBackToBisectionForSteepShortTermLosses() {
+        LocalDate asOf = DAY_0.plusDays(30);
+
+        Double rate = ReturnMath.xirr(List.of(lot(100, DAY_0)), List.of(), BigDecimal.valueOf(60), asOf, asOf);
+
+        assertThat(rate).isCloseTo(Math.pow(0.6, 365.0 / 30) - 1, within(1e-6));
+    }
+
+    @Test
+    void xirrIsUndefinedOutsideTheSearchRange() {
+        LocalDate asOf = DAY_0.plusDays(10);
+
+        assertThat(ReturnMath.xirr(List.of(lot(100, DAY_0)), List.of(), BigDecimal.valueOf(50), asOf, asOf)).isNull();
+        assertThat(ReturnMath.xirr(List.of(), List.of(), BigDecimal.valueOf(50), asOf, asOf)).isNull();
+    }
+
+    @Test
+    void xirrDatesUndatedLotsAsGiven() {
+        LocalDate asOf = DAY_0.plusDays(365);
+
+        Double rate = ReturnMath.xirr(List.of(lot(100, null)), List.of(), BigDecimal.valueOf(110), asOf, DAY_0);
+
+        assertThat(rate).isCloseTo(0.1, within(1e-9));
+    }
+
+    @Test
+    void xirrIncludesTheSoldPartsOfLots() {
+        LocalDate asOf = DAY_0.plusDays(365);
+        LotSale sale = new LotSale();
+        sale.setPurchaseDate(DAY_0);
+        sale.setSoldOn(DAY_0.plusDays(365));
+        sale.setCost(BigDecimal.valueOf(100));
+        sale.setProceeds(BigDecimal.valueOf(110));
+
+        assertThat(ReturnMath.xirr(List.of(), List.of(sale), BigDecimal.ZERO, asOf, asOf))
+                .isCloseTo(0.1, within(1e-9));
+        assertThat(ReturnMath.xirr(List.of(lot(100, DAY_0)), List.of(sale), BigDecimal.valueOf(110), asOf, asOf))
+                .isCloseTo(0.1, within(1e-9));
+    }
+
+    private static PortfolioHistory row(int day, double value, double invested) {
+        PortfolioHistory row = new PortfolioHistory("u1", DAY_0.plusDays(day), BigDecimal.valueOf(value));
+        AssetClassBreakdown breakdown = new AssetClassBreakdown();
+        breakdown.setStockValue(BigDecimal.valueOf(value));
+        breakdown.setStockInvested(BigDecimal.valueOf(invested));
+        row.setBreakdown(breakdown);
+        return row;
+    }
+
+    private static HoldingRowDto lot(double invested, LocalDate purchaseDate) {
+        return new HoldingRowDto(HoldingType.STOCK, "lot-1", "u1", "INFY", "NSE", BigDecimal.ONE,
+                BigDecimal.valueOf(invested), BigDecimal.valueOf(invested), null, purchaseDate, null);
+    }
+}
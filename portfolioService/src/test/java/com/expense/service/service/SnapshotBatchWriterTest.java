@@ -0,0 +1,56 @@
+package com.expense.service.service;
+
+import com.expense.service.entities.PortfolioHistory;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SnapshotBatchWriterTest {
+
+    private static final LocalDate DAY = LocalDate.of(2024, 3, 1);
+
+    @Test
+    void countsRowsAsWrittenOnlyOnceTheirBatchIsStored() {
+        List<List<PortfolioHistory>> batches = new ArrayList<>();
+        SnapshotBatchWriter writer = new SnapshotBatchWriter("Test", batches::add, 2);
+
+        writer.add(row("u1"));
+        assertThat(writer.getRowsWritten()).isZero();
+        writer.add(row("u2"));
+        assertThat(writer.getRowsWritten()).isEqualTo(2);
+
+        writer.add(row("u3"));
+        writer.close();
+        assertThat(writer.getRowsWritten()).isEqualTo(3);
+        assertThat(writer.getRowsFailed()).isZero();
+        assertThat(batches).hasSize(2);
+    }
+
+    @Test
+    void countsEveryRowOfARejectedBatchAsFailed() {
+        SnapshotBatchWriter writer = new SnapshotBatchWriter("Test", rows -> {
+            if (rows.stream().anyMatch(row -> row.getUserId().equals("u3"))) {
+                throw new IllegalStateException("write failed");
+            }
+        }, 2);
+
+        writer.add(row("u1"));
+        writer.add(row("u2"));
+        writer.add(row("u3"));
+        writer.add(row("u4"));
+        writer.add(row("u5"));
+        writer.close();
+
+        assertThat(writer.getRowsWritten()).isEqualTo(3);
+        assertThat(writer.getRowsFailed()).isEqualTo(2);
+    }
+
+    private static PortfolioHistory row(String userId) {
+        return new PortfolioHistory(userId, DAY, BigDecimal.TEN);
+    }
+}